@@ -0,0 +1,124 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dapnet.core.model.Call;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the encoding and decoding time of {@link CompactMarshaller} with
+ * Java serialization, which JGroups uses for RPC payloads by default. The
+ * encoded size of each payload is printed on setup.
+ * <p>
+ * Payloads: a postCall mutation, a postCall mutation of a call with 600 call
+ * signs (large enough to be deflated) and an RPC response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompactMarshallerBenchmark {
+
+	@Param({ "call", "largeCall", "response" })
+	public String payload;
+
+	private final CompactMarshaller marshaller = new CompactMarshaller();
+	private Object object;
+	private byte[] compact;
+	private byte[] serialized;
+
+	@Setup
+	public void setup() throws Exception {
+		switch (payload) {
+		case "call":
+			object = createMutation(3);
+			break;
+		case "largeCall":
+			object = createMutation(600);
+			break;
+		default:
+			object = RpcResponse.OK;
+			break;
+		}
+
+		compact = compactEncode();
+		serialized = javaEncode();
+		System.out.printf("%n%s: compact %d bytes, Java serialization %d bytes%n", payload, compact.length,
+				serialized.length);
+	}
+
+	@Benchmark
+	public byte[] compactEncode() throws Exception {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+		marshaller.objectToStream(object, new DataOutputStream(buffer));
+		return buffer.toByteArray();
+	}
+
+	@Benchmark
+	public Object compactDecode() throws Exception {
+		return marshaller.objectFromStream(new DataInputStream(new ByteArrayInputStream(compact)));
+	}
+
+	@Benchmark
+	public byte[] javaEncode() throws Exception {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+		try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+			out.writeObject(object);
+		}
+
+		return buffer.toByteArray();
+	}
+
+	@Benchmark
+	public Object javaDecode() throws Exception {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+			return in.readObject();
+		}
+	}
+
+	private static Mutation createMutation(int callSignCount) {
+		List<String> callSigns = new ArrayList<>(callSignCount);
+		for (int i = 0; i < callSignCount; ++i) {
+			callSigns.add("dl" + i + "abc");
+		}
+
+		Call call = new Call();
+		call.setText("DB0XYZ: Relais Aachen ab 18 Uhr wegen Wartungsarbeiten ausser Betrieb. 73");
+		call.setCallSignNames(callSigns);
+		call.setTransmitterGroupNames(Arrays.asList("dl-nw", "dl-all"));
+		call.setEmergency(false);
+		call.setTimestamp(Instant.now());
+		call.setOwnerName("dl1abc");
+
+		return new Mutation("db0abc/8a5f4c1e-1b6e-4e7a-9d0c-3f2e4b6a7c8d", 4711, "postCall", new Object[] { call },
+				new Class<?>[] { Call.class });
+	}
+
+}
@@ -0,0 +1,178 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.model;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.dapnet.core.model.ModelSettings.SnapshotFormat;
+
+/**
+ * Generates a synthetic state of a large cluster, e.g. to measure the startup
+ * time. The state contains the given number of calls, 2000 call signs and 500
+ * users, the contents are random but the same for each run.
+ * <p>
+ * Run as a program to write a state file:
+ * {@code StateGenerator <file> [JSON|BINARY] [calls]}
+ */
+public final class StateGenerator {
+
+	public static final int DEFAULT_CALLS = 100_000;
+	private static final int CALL_SIGNS = 2000;
+	private static final int USERS = 500;
+	private static final int NODES = 20;
+	private static final int TRANSMITTERS = 300;
+	private static final int TRANSMITTER_GROUPS = 100;
+	private static final int RUBRICS = 50;
+	private static final String TEXT = "ABCDEFGHIJKLMNOPQRSTUVWXYZ abcdefghijklmnopqrstuvwxyz 0123456789 .,:-";
+	private final Random random = new Random(0x44415053L);
+	private final Instant now = Instant.now();
+
+	private StateGenerator() {
+	}
+
+	/**
+	 * Generates a new state.
+	 *
+	 * @param callCount Number of calls
+	 * @return State
+	 */
+	public static State generate(int callCount) {
+		return new StateGenerator().createState(callCount);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: StateGenerator <file> [JSON|BINARY] [calls]");
+			System.exit(1);
+		}
+
+		SnapshotFormat format = args.length > 1 ? SnapshotFormat.valueOf(args[1].toUpperCase()) : SnapshotFormat.JSON;
+		int callCount = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CALLS;
+
+		State state = generate(callCount);
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(args[0])), 64 * 1024)) {
+			state.write(out, format);
+		}
+	}
+
+	private State createState(int callCount) {
+		State state = new State();
+
+		for (int i = 0; i < USERS; ++i) {
+			String name = "user" + i;
+			state.getUsers().put(name, new User(name, "$2a$10$" + text(53), name + "@example.org", i == 0));
+		}
+
+		for (int i = 0; i < NODES; ++i) {
+			String name = "db0nd" + i;
+			state.getNodes().put(name, new Node(name, null, "6.06", "50.77", Node.Status.ONLINE));
+		}
+
+		for (int i = 0; i < TRANSMITTERS; ++i) {
+			state.getTransmitters().put("db0tx" + i, createTransmitter("db0tx" + i));
+		}
+
+		for (int i = 0; i < TRANSMITTER_GROUPS; ++i) {
+			TransmitterGroup group = new TransmitterGroup();
+			group.setName("group" + i);
+			group.setDescription(text(30));
+			group.setTransmitterNames(names("db0tx", TRANSMITTERS, 1 + random.nextInt(10)));
+			group.setOwnerNames(names("user", USERS, 1));
+			state.putTransmitterGroup(group.getName(), group);
+		}
+
+		for (int i = 0; i < CALL_SIGNS; ++i) {
+			CallSign callSign = new CallSign();
+			callSign.setName("dl" + i);
+			callSign.setDescription(text(20));
+			callSign.setNumeric(i % 10 == 0);
+			Pager pager = new Pager();
+			pager.setNumber(random.nextInt(2097152));
+			pager.setName("pager" + i);
+			callSign.setPagers(Arrays.asList(pager));
+			callSign.setOwnerNames(names("user", USERS, 1));
+			state.getCallSigns().put(callSign.getName(), callSign);
+		}
+
+		for (int i = 0; i < RUBRICS; ++i) {
+			Rubric rubric = new Rubric();
+			rubric.setName("rubric" + i);
+			rubric.setNumber(i % 95 + 1);
+			rubric.setLabel(text(10));
+			rubric.setTransmitterGroupNames(names("group", TRANSMITTER_GROUPS, 1 + random.nextInt(3)));
+			rubric.setOwnerNames(names("user", USERS, 1));
+			state.putRubric(rubric.getName(), rubric);
+
+			NewsList news = new NewsList();
+			for (int n = 0; n < 10; ++n) {
+				News item = new News();
+				item.setText(text(40 + random.nextInt(40)));
+				item.setRubricName(rubric.getName());
+				item.setTimestamp(now.minusSeconds(random.nextInt(86400)));
+				item.setOwnerName("user" + random.nextInt(USERS));
+				news.add(item);
+			}
+
+			state.getNews().put(rubric.getName(), news);
+		}
+
+		for (int i = 0; i < callCount; ++i) {
+			Call call = new Call();
+			call.setTimestamp(now.minusMillis(i * 100L));
+			call.setOwnerName("user" + random.nextInt(USERS));
+			call.setText(text(20 + random.nextInt(60)));
+			call.setCallSignNames(names("dl", CALL_SIGNS, 1 + random.nextInt(3)));
+			call.setTransmitterGroupNames(names("group", TRANSMITTER_GROUPS, 1 + random.nextInt(2)));
+			call.setEmergency(random.nextInt(100) == 0);
+			state.addCall(call);
+		}
+
+		return state;
+	}
+
+	private Transmitter createTransmitter(String name) {
+		Transmitter transmitter = new Transmitter();
+		transmitter.setName(name);
+		transmitter.setAuthKey(text(16));
+		transmitter.setLongitude("6.06");
+		transmitter.setLatitude("50.77");
+		transmitter.setPower("10");
+		transmitter.setTimeSlot("0123");
+		transmitter.setOwnerNames(names("user", USERS, 1));
+		transmitter.setAntennaType(Transmitter.AntennaType.OMNI);
+		transmitter.setUsage(Transmitter.Usage.WIDERANGE);
+		transmitter.setStatus(Transmitter.Status.OFFLINE);
+		return transmitter;
+	}
+
+	private List<String> names(String prefix, int range, int count) {
+		List<String> names = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i) {
+			names.add(prefix + random.nextInt(range));
+		}
+
+		return names;
+	}
+
+	private String text(int length) {
+		char[] text = new char[length];
+		for (int i = 0; i < length; ++i) {
+			text[i] = TEXT.charAt(random.nextInt(TEXT.length()));
+		}
+
+		return new String(text);
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.dapnet.core.model.ModelSettings.SnapshotFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to load a state snapshot on startup, including the
+ * rebuild of the indexes, for the JSON and the binary snapshot format. The
+ * snapshot is generated by {@link StateGenerator} and read from memory, so the
+ * results do not depend on the disk. The first iteration of each fork is a
+ * cold start.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 10)
+@Fork(3)
+public class StateLoadBenchmark {
+
+	@Param({ "JSON", "BINARY" })
+	public SnapshotFormat format;
+
+	@Param({ "100000" })
+	public int calls;
+
+	private byte[] snapshot;
+
+	@Setup
+	public void setup() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		StateGenerator.generate(calls).write(out, format);
+		snapshot = out.toByteArray();
+	}
+
+	@Benchmark
+	public State load() throws IOException {
+		return State.read(new ByteArrayInputStream(snapshot));
+	}
+
+}
@@ -0,0 +1,94 @@
+package org.dapnet.core.transmission;
+
+import java.util.concurrent.TimeUnit;
+
+import org.dapnet.core.transmission.PagerMessage.FunctionalBits;
+import org.dapnet.core.transmission.PagerMessage.MessagePriority;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time per message of {@link AirtimeEstimator}, both for single
+ * messages and for packing messages into a transmission as the slot scheduler
+ * does. The previous estimate of the slot scheduler, which assumed an average
+ * frame alignment, is included for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AirtimeEstimatorBenchmark {
+
+	private static final int MESSAGE_COUNT = 64;
+	private final AirtimeEstimator estimator = new AirtimeEstimator(1);
+	private final PagerMessage[] messages = new PagerMessage[MESSAGE_COUNT];
+
+	@Setup
+	public void setup() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < messages.length; ++i) {
+			text.append((char) ('A' + i % 26));
+			FunctionalBits mode = i % 4 == 0 ? FunctionalBits.NUMERIC : FunctionalBits.ALPHANUM;
+			messages[i] = new PagerMessage(text.toString(), 1000 + i * 7, MessagePriority.CALL, mode);
+		}
+	}
+
+	/**
+	 * Airtime of a transmission containing a single message.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(MESSAGE_COUNT)
+	public long single() {
+		long airtime = 0;
+		for (PagerMessage msg : messages) {
+			airtime += estimator.getAirtime(msg);
+		}
+
+		return airtime;
+	}
+
+	/**
+	 * Airtime of a transmission containing all messages.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(MESSAGE_COUNT)
+	public long packed() {
+		int position = 0;
+		for (PagerMessage msg : messages) {
+			position = AirtimeEstimator.append(position, msg);
+		}
+
+		return estimator.getBitAirtime(AirtimeEstimator.PREAMBLE_BITS)
+				+ estimator.getCodewordAirtime(AirtimeEstimator.getTransmittedCodewords(position));
+	}
+
+	/**
+	 * Previous estimate of the slot scheduler per message.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(MESSAGE_COUNT)
+	public long legacy() {
+		long airtime = 0;
+		for (PagerMessage msg : messages) {
+			int bitsPerChar = msg.getFunctionalBits() == FunctionalBits.NUMERIC ? 4 : 7;
+			int codewords = 1 + (msg.getTextLength() * bitsPerChar + 19) / 20;
+			codewords += 7;
+			codewords += (codewords + 15) / 16;
+			airtime += estimator.getCodewordAirtime(codewords);
+		}
+
+		return airtime;
+	}
+
+}
@@ -0,0 +1,103 @@
+package org.dapnet.core.transmission;
+
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.dapnet.core.Settings;
+import org.dapnet.core.transmission.PagerMessage.FunctionalBits;
+import org.dapnet.core.transmission.PagerMessage.MessagePriority;
+import org.dapnet.core.transmission.TransmitterClient.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Compares the time and allocation per frame of {@link MessageEncoder} with the
+ * previous encoding using {@link String#format(String, Object...)} followed by
+ * the string encoder of the pipeline. Run with {@code -prof gc} to get the
+ * allocation per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageEncoderBenchmark {
+
+	private static final String TEXT = "DB0XYZ: Relais Aachen ab 18 Uhr wegen Wartungsarbeiten ausser Betrieb. 73";
+	private static final byte[] TEXT_BYTES = TEXT.getBytes(StandardCharsets.US_ASCII);
+	private static final int ADDRESS = 0x1F4A5;
+	private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+	private final MessageEncoder encoder = new MessageEncoder();
+	private int sendSpeed;
+	private Message cached;
+	private int sequenceNumber;
+
+	@Setup
+	public void setup() {
+		sendSpeed = Settings.getTransmissionSettings().getPagingProtocolSettings().getSendSpeed();
+		cached = new Message(
+				new PagerMessage(Instant.now(), TEXT_BYTES, ADDRESS, MessagePriority.CALL, FunctionalBits.ALPHANUM));
+	}
+
+	/**
+	 * Previous path: the frame is formatted into a string which is encoded into a
+	 * buffer by the {@code StringEncoder}.
+	 */
+	@Benchmark
+	public ByteBuf legacy() {
+		String encoded = String.format("#%02X %s:%X:%X:%s:%s\n", nextSequenceNumber(), MessageEncoder.MT_ALPHANUM,
+				sendSpeed, ADDRESS, FunctionalBits.ALPHANUM.getValue(), TEXT);
+		ByteBuf out = ByteBufUtil.encodeString(alloc, CharBuffer.wrap(encoded), StandardCharsets.US_ASCII);
+		out.release();
+		return out;
+	}
+
+	/**
+	 * Frame of a new message, the frame body is encoded as well.
+	 */
+	@Benchmark
+	public ByteBuf encodeFirst() throws Exception {
+		Message msg = new Message(
+				new PagerMessage(Instant.now(), TEXT_BYTES, ADDRESS, MessagePriority.CALL, FunctionalBits.ALPHANUM));
+		return encode(msg);
+	}
+
+	/**
+	 * Frame of a message already sent to another transmitter, only the sequence
+	 * number is encoded.
+	 */
+	@Benchmark
+	public ByteBuf encodeCached() throws Exception {
+		return encode(cached);
+	}
+
+	private ByteBuf encode(Message msg) throws Exception {
+		msg.setSequenceNumber(nextSequenceNumber());
+		ByteBuf out = alloc.ioBuffer(TEXT_BYTES.length + 32);
+		encoder.encode(null, msg, out);
+		out.release();
+		return out;
+	}
+
+	private int nextSequenceNumber() {
+		sequenceNumber = (sequenceNumber + 1) & 0xFF;
+		return sequenceNumber;
+	}
+
+}
@@ -0,0 +1,114 @@
+package org.dapnet.core.transmission;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.dapnet.core.transmission.PagerMessage.FunctionalBits;
+import org.dapnet.core.transmission.PagerMessage.MessagePriority;
+import org.dapnet.core.transmission.TransmitterClient.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link MessageQueue} under contention of 8 producer threads and a
+ * single consumer with the previous message queue, a {@link PriorityQueue}
+ * guarded by a lock. Both queues are bounded the same way, so they do not grow
+ * while the consumer falls behind.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageQueueBenchmark {
+
+	private static final int PRODUCERS = 8;
+	private static final int LIMIT = 4096;
+	private static final int MESSAGE_COUNT = 1024;
+	private static final MessagePriority[] PRIORITIES = MessagePriority.values();
+	private Message[] messages;
+	private MessageQueue queue;
+	private PriorityQueue<PagerMessage> locked;
+
+	@Setup
+	public void setup() {
+		int[] limits = new int[PRIORITIES.length];
+		Arrays.fill(limits, LIMIT);
+		queue = new MessageQueue(limits);
+		locked = new PriorityQueue<>();
+
+		Instant now = Instant.now();
+		messages = new Message[MESSAGE_COUNT];
+		for (int i = 0; i < messages.length; ++i) {
+			MessagePriority priority = PRIORITIES[i % PRIORITIES.length];
+			messages[i] = new Message(new PagerMessage(now.plusMillis(i), "Message " + i, 1000 + i, priority,
+					FunctionalBits.ALPHANUM));
+		}
+	}
+
+	/**
+	 * Position of a producer in the prepared messages.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		private int index;
+
+		Message next(Message[] messages) {
+			index = (index + 1) % messages.length;
+			return messages[index];
+		}
+	}
+
+	@Benchmark
+	@Group("lockFree")
+	@GroupThreads(PRODUCERS)
+	public Message lockFreeOffer(Cursor cursor) {
+		return queue.offer(cursor.next(messages));
+	}
+
+	@Benchmark
+	@Group("lockFree")
+	@GroupThreads(1)
+	public Message lockFreePoll() {
+		return queue.poll();
+	}
+
+	@Benchmark
+	@Group("locked")
+	@GroupThreads(PRODUCERS)
+	public PagerMessage lockedOffer(Cursor cursor) {
+		PagerMessage msg = cursor.next(messages).getMessage();
+		synchronized (locked) {
+			locked.offer(msg);
+			// Same total bound as the lock free queue
+			if (locked.size() > LIMIT * PRIORITIES.length) {
+				return locked.poll();
+			}
+		}
+
+		return null;
+	}
+
+	@Benchmark
+	@Group("locked")
+	@GroupThreads(1)
+	public PagerMessage lockedPoll() {
+		synchronized (locked) {
+			return locked.poll();
+		}
+	}
+
+}
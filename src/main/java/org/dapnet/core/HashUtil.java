@@ -71,6 +71,9 @@ public class HashUtil {
 
 	private static final Pattern VALID_CHARS = Pattern.compile("\\p{Alnum}+");
 
+	// Looking up the factory is expensive, instances are not thread-safe
+	private static final ThreadLocal<SecretKeyFactory> FACTORIES = new ThreadLocal<>();
+
 	/**
 	 * Returns a salted PBKDF2 hash of the password.
 	 *
@@ -168,7 +171,12 @@ public class HashUtil {
 	private static byte[] pbkdf2(char[] password, byte[] salt, int iterations, int bytes)
 			throws NoSuchAlgorithmException, InvalidKeySpecException {
 		PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, bytes * 8);
-		SecretKeyFactory skf = SecretKeyFactory.getInstance(PBKDF2_ALGORITHM);
+		SecretKeyFactory skf = FACTORIES.get();
+		if (skf == null) {
+			skf = SecretKeyFactory.getInstance(PBKDF2_ALGORITHM);
+			FACTORIES.set(skf);
+		}
+
 		return skf.generateSecret(spec).getEncoded();
 	}
 
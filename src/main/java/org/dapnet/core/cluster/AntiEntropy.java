@@ -0,0 +1,326 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.cluster;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+
+import org.dapnet.core.cluster.EntityLocks.EntityType;
+import org.dapnet.core.cluster.StateRevisions.EntityKey;
+import org.dapnet.core.cluster.StateRevisions.Revision;
+import org.dapnet.core.cluster.StateRevisions.VersionVector;
+import org.dapnet.core.model.NewsList;
+import org.dapnet.core.rest.GsonTypeAdapterFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Anti-entropy reconciliation of the replicated entity maps.
+ * <p>
+ * Each entity map is split into a fixed number of buckets by key. The digest of
+ * a bucket is the sum of the hashes of its entities, so digests are
+ * independent of the iteration order. A member compares the digest of a peer
+ * with its own and sends the hashes of the entities in differing buckets only.
+ * The peer answers with its entities that differ, including their revisions.
+ * <p>
+ * A received entity replaces the local one if the peer knows a mutation of it
+ * the local member has missed. If neither member has missed the other's
+ * revision, e.g. after a mutation failed on one member, the greater revision
+ * wins. The order of revisions is the same on all members, so both sides
+ * agree on the winner when they reconcile with each other.
+ */
+final class AntiEntropy {
+
+	/**
+	 * Reconciled entity types.
+	 */
+	static final EntityType[] TYPES = { EntityType.CALL_SIGN, EntityType.RUBRIC, EntityType.TRANSMITTER,
+			EntityType.TRANSMITTER_GROUP, EntityType.USER };
+
+	private static final int BUCKETS = 64;
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private static final Gson gson;
+	private final ClusterManager clusterManager;
+	private final AntiEntropyStatistics statistics = new AntiEntropyStatistics();
+
+	static {
+		GsonBuilder builder = new GsonBuilder();
+		builder.registerTypeAdapterFactory(new GsonTypeAdapterFactory());
+		gson = builder.create();
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param clusterManager Cluster manager providing the state
+	 */
+	public AntiEntropy(ClusterManager clusterManager) {
+		this.clusterManager = clusterManager;
+	}
+
+	/**
+	 * Returns the statistics.
+	 *
+	 * @return Statistics
+	 */
+	public AntiEntropyStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Computes the digest of the local state.
+	 *
+	 * @return Digest
+	 */
+	public Digest createDigest() {
+		Digest digest = new Digest();
+		for (EntityType type : TYPES) {
+			long[] buckets = new long[BUCKETS];
+			clusterManager.getEntities(type).forEach((k, v) -> buckets[bucket(k)] += hash(k, v));
+			digest.buckets.put(type, buckets);
+		}
+
+		return digest;
+	}
+
+	/**
+	 * Compares the digest of a peer with the local state.
+	 *
+	 * @param remote Digest of the peer
+	 * @return Request for the differing entities or {@code null} if the states
+	 *         are equal.
+	 */
+	public DigestRequest createRequest(Digest remote) {
+		Digest local = createDigest();
+		DigestRequest request = new DigestRequest();
+		int divergent = 0;
+
+		for (EntityType type : TYPES) {
+			long[] localBuckets = local.buckets.get(type);
+			long[] remoteBuckets = remote.buckets.get(type);
+
+			BitSet differing = new BitSet(BUCKETS);
+			for (int i = 0; i < BUCKETS; ++i) {
+				if (remoteBuckets == null || localBuckets[i] != remoteBuckets[i]) {
+					differing.set(i);
+				}
+			}
+
+			if (differing.isEmpty()) {
+				continue;
+			}
+
+			divergent += differing.cardinality();
+			request.buckets.put(type, differing);
+			clusterManager.getEntities(type).forEach((k, v) -> {
+				if (differing.get(bucket(k))) {
+					request.hashes.put(new EntityKey(type, k), hash(k, v));
+				}
+			});
+		}
+
+		statistics.addDivergentBuckets(divergent);
+		return divergent > 0 ? request : null;
+	}
+
+	/**
+	 * Collects the local entities differing from the hashes of the requesting
+	 * member.
+	 *
+	 * @param request Request
+	 * @return Differing entities
+	 */
+	public Repair createRepair(DigestRequest request) {
+		StateRevisions revisions = clusterManager.getRevisions();
+		Repair repair = new Repair(revisions.getVersions());
+
+		request.buckets.forEach((type, differing) -> {
+			clusterManager.getEntities(type).forEach((k, v) -> {
+				if (!differing.get(bucket(k))) {
+					return;
+				}
+
+				EntityKey key = new EntityKey(type, k);
+				Long remoteHash = request.hashes.get(key);
+				if (remoteHash == null || remoteHash != hash(k, v)) {
+					repair.entries.add(new Entry(key, revisions.getRevision(key), v));
+				}
+			});
+		});
+
+		// Entities missing here
+		for (EntityKey key : request.hashes.keySet()) {
+			if (!clusterManager.getEntities(key.getType()).containsKey(key.getKey())) {
+				repair.entries.add(new Entry(key, revisions.getRevision(key), null));
+			}
+		}
+
+		return repair;
+	}
+
+	/**
+	 * Applies the entities received from a peer.
+	 *
+	 * @param repair Entities received
+	 * @return Number of replaced or removed entities
+	 */
+	public int applyRepair(Repair repair) {
+		StateRevisions revisions = clusterManager.getRevisions();
+		EntityLocks locks = clusterManager.getLocks();
+		int count = 0;
+
+		Lock lock = revisions.getTransferLock().writeLock();
+		lock.lock();
+		locks.lockExclusive();
+		try {
+			for (Entry entry : repair.entries) {
+				EntityKey key = entry.key;
+				ConcurrentMap<String, Object> entities = clusterManager.getEntities(key.getType());
+				Object local = entities.get(key.getKey());
+				if (!isReplaced(revisions.getRevision(key), local, entry, repair.versions, revisions)) {
+					continue;
+				}
+
+				if (entry.entity != null) {
+					entities.put(key.getKey(), entry.entity);
+					if (key.getType() == EntityType.RUBRIC) {
+						clusterManager.getState().getNews().putIfAbsent(key.getKey(), new NewsList());
+					}
+				} else {
+					entities.remove(key.getKey());
+					if (key.getType() == EntityType.RUBRIC) {
+						clusterManager.getState().getNews().remove(key.getKey());
+					}
+				}
+
+				revisions.repaired(key, entry.revision, entry.entity == null);
+				++count;
+			}
+
+			if (count > 0) {
+				clusterManager.getState().rebuildIndexes();
+				clusterManager.getResponseCache().invalidateAll();
+				clusterManager.getCredentialCache().invalidateAll();
+			}
+		} finally {
+			locks.unlockExclusive();
+			lock.unlock();
+		}
+
+		statistics.addRepairedEntities(count);
+		return count;
+	}
+
+	private static boolean isReplaced(Revision localRev, Object local, Entry entry, VersionVector remoteVersions,
+			StateRevisions revisions) {
+		if (local == null && entry.entity == null) {
+			return false;
+		} else if (local != null && entry.entity != null && hash(entry.key.getKey(), local) == entry.hash()) {
+			// Equal again in the meantime
+			return false;
+		} else if (entry.revision != null && !revisions.contains(entry.revision)) {
+			// The peer has a mutation missed here
+			return true;
+		} else if (localRev != null && !remoteVersions.contains(localRev)) {
+			// The peer missed a mutation, it repairs itself
+			return false;
+		}
+
+		int result = Revision.compare(entry.revision, localRev);
+		if (result != 0) {
+			return result > 0;
+		} else if (local == null || entry.entity == null) {
+			// Without revisions existing entities are kept
+			return local == null;
+		} else {
+			return Long.compareUnsigned(entry.hash(), hash(entry.key.getKey(), local)) > 0;
+		}
+	}
+
+	private static int bucket(String key) {
+		return Math.floorMod(key.hashCode(), BUCKETS);
+	}
+
+	private static long hash(String key, Object value) {
+		// 64 bit FNV-1a, key and value separated by a newline
+		long h = FNV_OFFSET;
+		for (byte b : (key + '\n' + gson.toJson(value)).getBytes(StandardCharsets.UTF_8)) {
+			h ^= b & 0xff;
+			h *= FNV_PRIME;
+		}
+
+		// Spread the bits, bucket digests are sums
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * Bucket digests of the entity maps.
+	 */
+	static final class Digest implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final EnumMap<EntityType, long[]> buckets = new EnumMap<>(EntityType.class);
+	}
+
+	/**
+	 * Differing buckets and the local entity hashes in these buckets.
+	 */
+	static final class DigestRequest implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final EnumMap<EntityType, BitSet> buckets = new EnumMap<>(EntityType.class);
+		private final HashMap<EntityKey, Long> hashes = new HashMap<>();
+	}
+
+	/**
+	 * Entities differing from the requesting member.
+	 */
+	static final class Repair implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final VersionVector versions;
+		private final List<Entry> entries = new ArrayList<>();
+
+		Repair(VersionVector versions) {
+			this.versions = versions;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Repair{entries=%d}", entries.size());
+		}
+	}
+
+	/**
+	 * Entity with its revision, the entity is {@code null} if it does not exist.
+	 */
+	static final class Entry implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final EntityKey key;
+		private final Revision revision;
+		private final Object entity;
+
+		Entry(EntityKey key, Revision revision, Object entity) {
+			this.key = key;
+			this.revision = revision;
+			this.entity = entity;
+		}
+
+		private long hash() {
+			return entity != null ? AntiEntropy.hash(key.getKey(), entity) : 0;
+		}
+	}
+
+}
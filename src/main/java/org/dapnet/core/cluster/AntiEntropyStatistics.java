@@ -0,0 +1,98 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.cluster;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class AntiEntropyStatistics {
+
+	private final AtomicLong runs = new AtomicLong();
+	private final AtomicLong failedRuns = new AtomicLong();
+	private final AtomicLong divergentRuns = new AtomicLong();
+	private final AtomicLong divergentBuckets = new AtomicLong();
+	private final AtomicLong repairedEntities = new AtomicLong();
+
+	/**
+	 * Gets the number of completed reconciliations with a peer.
+	 * 
+	 * @return Number of runs
+	 */
+	public long getRuns() {
+		return runs.get();
+	}
+
+	/**
+	 * Increments the number of completed reconciliations.
+	 */
+	void incrementRuns() {
+		runs.incrementAndGet();
+	}
+
+	/**
+	 * Gets the number of reconciliations failed because the peer did not answer.
+	 * 
+	 * @return Number of failed runs
+	 */
+	public long getFailedRuns() {
+		return failedRuns.get();
+	}
+
+	/**
+	 * Increments the number of failed reconciliations.
+	 */
+	void incrementFailedRuns() {
+		failedRuns.incrementAndGet();
+	}
+
+	/**
+	 * Gets the number of reconciliations which found differences.
+	 * 
+	 * @return Number of divergent runs
+	 */
+	public long getDivergentRuns() {
+		return divergentRuns.get();
+	}
+
+	/**
+	 * Gets the number of buckets found differing from the peer.
+	 * 
+	 * @return Number of divergent buckets
+	 */
+	public long getDivergentBuckets() {
+		return divergentBuckets.get();
+	}
+
+	/**
+	 * Adds to the number of divergent buckets.
+	 * 
+	 * @param count Number of divergent buckets of a run
+	 */
+	void addDivergentBuckets(int count) {
+		if (count > 0) {
+			divergentRuns.incrementAndGet();
+			divergentBuckets.addAndGet(count);
+		}
+	}
+
+	/**
+	 * Gets the number of entities replaced or removed by repairs.
+	 * 
+	 * @return Number of repaired entities
+	 */
+	public long getRepairedEntities() {
+		return repairedEntities.get();
+	}
+
+	/**
+	 * Adds to the number of repaired entities.
+	 * 
+	 * @param count Number of entities repaired by a run
+	 */
+	void addRepairedEntities(int count) {
+		repairedEntities.addAndGet(count);
+	}
+
+}
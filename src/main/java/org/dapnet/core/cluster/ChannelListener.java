@@ -22,6 +22,7 @@ import org.dapnet.core.DAPNETCore;
 import org.dapnet.core.HashUtil;
 import org.dapnet.core.model.Node;
 import org.dapnet.core.model.User;
+import org.dapnet.core.rest.ResponseCache.CachedCollection;
 import org.jgroups.Event;
 import org.jgroups.JChannel;
 import org.jgroups.stack.IpAddress;
@@ -47,6 +48,9 @@ public class ChannelListener implements org.jgroups.ChannelListener {
 		if (clusterManager.getChannel().getView().size() == 1) {
 			printCreateClusterWarning();
 
+			// The local state is the cluster state
+			clusterManager.getRevisions().anchor();
+
 			// User already existing in State?
 			if (clusterManager.getState().getUsers().size() == 0) {
 				createFirstUser();
@@ -99,7 +103,8 @@ public class ChannelListener implements org.jgroups.ChannelListener {
 		Node node = clusterManager.getState().getNodes().get(clusterManager.getChannel().getName());
 		node.setAddress(address);
 		node.setStatus(Node.Status.ONLINE);
-		clusterManager.getState().writeToFile();
+		clusterManager.getResponseCache().invalidate(CachedCollection.NODES);
+		clusterManager.writeState();
 		logger.info("First node successfully updated");
 	}
 
@@ -15,9 +15,23 @@
 package org.dapnet.core.cluster;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
@@ -28,36 +42,67 @@ import org.apache.logging.log4j.Logger;
 import org.dapnet.core.CoreStartupException;
 import org.dapnet.core.DAPNETCore;
 import org.dapnet.core.Settings;
+import org.dapnet.core.cluster.EntityLocks.EntityType;
+import org.dapnet.core.cluster.StateRevisions.CallRevision;
+import org.dapnet.core.cluster.StateRevisions.Changes;
+import org.dapnet.core.cluster.StateRevisions.EntityKey;
+import org.dapnet.core.cluster.StateRevisions.VersionVector;
 import org.dapnet.core.model.NewsList;
 import org.dapnet.core.model.Node;
 import org.dapnet.core.model.Node.Status;
 import org.dapnet.core.model.Rubric;
 import org.dapnet.core.model.State;
+import org.dapnet.core.model.StateJournal;
 import org.dapnet.core.model.Transmitter;
+import org.dapnet.core.rest.CredentialCache;
+import org.dapnet.core.rest.ResponseCache;
+import org.dapnet.core.rest.ResponseCache.CachedCollection;
 import org.dapnet.core.rest.RestListener;
 import org.dapnet.core.transmission.TransmissionManager;
 import org.dapnet.core.transmission.TransmitterManager;
 import org.dapnet.core.transmission.TransmitterManagerListener;
 import org.jgroups.Address;
 import org.jgroups.JChannel;
+import org.jgroups.View;
 import org.jgroups.blocks.RequestOptions;
 import org.jgroups.blocks.ResponseMode;
 import org.jgroups.blocks.RpcDispatcher;
+import org.jgroups.blocks.RspFilter;
 import org.jgroups.util.ExtendedUUID;
+import org.jgroups.util.Rsp;
 import org.jgroups.util.RspList;
 
 public class ClusterManager implements TransmitterManagerListener, RestListener {
 	private static final Logger logger = LogManager.getLogger();
 	private static final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+	private static final int MAX_REPAIR_ATTEMPTS = 3;
 
 	private final JChannel channel;
 	private final ChannelListener channelListener;
 	private final MembershipListener membershipListener;
+	private final ResponseCache responseCache = new ResponseCache();
+	private final CredentialCache credentialCache = new CredentialCache(
+			Settings.getRestSettings().getCredentialCacheSize(), Settings.getRestSettings().getCredentialCacheTtl());
 	private final ClusterStateListener stateListener;
 	private final RpcDispatcher dispatcher;
 	private final RequestOptions requestOptions;
 	private final TransmissionManager transmissionManager;
 	private final TransmitterManager transmitterManager;
+	private final EntityLocks locks = new EntityLocks();
+	private final StateRevisions revisions = new StateRevisions(
+			Settings.getClusterSettings().getStateDeltaWindow());
+	private final Object sendLock = new Object();
+	// Sequence number of the last mutation sent, guarded by sendLock
+	private long sequence;
+	private final AntiEntropy antiEntropy = new AntiEntropy(this);
+	private final ScheduledExecutorService repairExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "MutationRepair");
+		t.setDaemon(true);
+		return t;
+	});
+	// Origin of the mutations sent, guarded by sendLock
+	private String origin;
+	private StateJournal journal;
 	private volatile State state;
 	private volatile boolean quorum = true;
 	private volatile boolean stopping = false;
@@ -74,6 +119,7 @@ public class ClusterManager implements TransmitterManagerListener, RestListener
 		// Create Channel
 		channel = new JChannel(Settings.getClusterSettings().getClusterConfigurationFile());
 		channel.setName(readNodeName());
+		restartOrigin();
 		channel.addAddressGenerator(() -> {
 			ExtendedUUID address = ExtendedUUID.randomUUID(channel.getName());
 			address.put("version", DAPNETCore.getCoreVersion().getBytes(StandardCharsets.UTF_8));
@@ -86,6 +132,9 @@ public class ClusterManager implements TransmitterManagerListener, RestListener
 
 		// Create Dispatcher (for creating Block on top of channel)
 		dispatcher = new RpcDispatcher(channel, new RpcListener(this));
+		if (Settings.getClusterSettings().isCompactMarshaller()) {
+			dispatcher.setMarshaller(new CompactMarshaller());
+		}
 
 		membershipListener = new org.dapnet.core.cluster.MembershipListener(this);
 		dispatcher.setMembershipListener(membershipListener);
@@ -118,6 +167,17 @@ public class ClusterManager implements TransmitterManagerListener, RestListener
 			logger.warn("Creating new empty State");
 		}
 
+		int replayed = 0;
+		if (Settings.getModelSettings().isJournaling()) {
+			try {
+				journal = new StateJournal(Paths.get(Settings.getModelSettings().getStateFile() + ".journal"));
+				replayed = journal.replay(state);
+				logger.info("Replayed {} journal records.", replayed);
+			} catch (IOException ex) {
+				throw new CoreStartupException(ex);
+			}
+		}
+
 		registerNewsList();
 		resetNodeStates();
 
@@ -134,6 +194,39 @@ public class ClusterManager implements TransmitterManagerListener, RestListener
 				logger.warn("Startup enforced, ignoring state validation errors.");
 			}
 		}
+
+		if (replayed > 0) {
+			// Compact the journal
+			writeState();
+		}
+	}
+
+	/**
+	 * Writes a full snapshot of the state and discards the journal. Waits for
+	 * all running state mutations to complete.
+	 * 
+	 * @return {@code true} if the state has been written successfully.
+	 */
+	public boolean writeState() {
+		locks.lockExclusive();
+		try {
+			State theState = state;
+			if (theState == null || !theState.writeToFile()) {
+				return false;
+			}
+
+			if (journal != null) {
+				try {
+					journal.reset();
+				} catch (IOException ex) {
+					logger.error("Failed to reset the state journal.", ex);
+				}
+			}
+
+			return true;
+		} finally {
+			locks.unlockExclusive();
+		}
 	}
 
 	private void registerNewsList() {
@@ -155,10 +248,14 @@ public class ClusterManager implements TransmitterManagerListener, RestListener
 		for (Node n : state.getNodes().values()) {
 			n.setStatus(Status.SUSPENDED);
 		}
+
+		responseCache.invalidate(CachedCollection.NODES);
 	}
 
 	public void stop() {
 		stopping = true;
+		repairExecutor.shutdownNow();
+		membershipListener.stop();
 		transmitterManager.disconnectFromAll();
 	}
 
@@ -204,6 +301,26 @@ public class ClusterManager implements TransmitterManagerListener, RestListener
 		}
 	}
 
+	/**
+	 * Returns the number of acknowledgements required for a write in
+	 * {@link ClusterSettings.WriteMode#QUORUM} mode: a majority of the active
+	 * nodes, but not more than the current members. A minority partition
+	 * therefore still requires all of its members, as for operations not
+	 * requiring a quorum.
+	 * 
+	 * @return Required number of acknowledgements
+	 */
+	private int getWriteQuorum() {
+		int activeNodeCount = 0;
+		for (Node node : state.getNodes().values()) {
+			if (node.getStatus() != Node.Status.SUSPENDED) {
+				activeNodeCount++;
+			}
+		}
+
+		return Math.max(1, Math.min(activeNodeCount / 2 + 1, channel.getView().size()));
+	}
+
 	@Override
 	public boolean isQuorum() {
 		checkQuorum();// Should be unnecessary, but added ensure QuorumCheck
@@ -216,24 +333,386 @@ public class ClusterManager implements TransmitterManagerListener, RestListener
 	@SuppressWarnings("rawtypes")
 	public boolean handleStateOperation(Collection<Address> destination, String methodName, Object[] args,
 			Class[] types) {
+		return handleStateOperationAsync(destination, methodName, args, types).join();
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public CompletableFuture<Boolean> handleStateOperationAsync(Collection<Address> destination, String methodName,
+			Object[] args, Class[] types) {
 		if (!channel.isConnected()) {
-			return false;
+			return CompletableFuture.completedFuture(false);
 		}
 
+		CompletableFuture<RspList<Object>> future;
 		try {
-			RspList rspList = dispatcher.callRemoteMethods(destination, methodName, args, types, requestOptions);
-			if (isRspSuccessful(rspList)) {
-				return true;
+			if (destination == null) {
+				// State mutation sent to all members
+				if (Settings.getClusterSettings().getWriteMode() == ClusterSettings.WriteMode.QUORUM) {
+					return sendMutationWithQuorum(methodName, args, types);
+				}
+
+				future = sendMutation(methodName, args, types, requestOptions).future;
 			} else {
-				logger.error("Response: {}", rspList);
+				future = dispatcher.callRemoteMethodsWithFuture(destination, methodName, args, types,
+						requestOptions);
 			}
 		} catch (Exception e) {
 			logger.catching(e);
+			logger.fatal("Insecure Cluster State");
+			return CompletableFuture.completedFuture(false);
+		}
+
+		// The request timeout is not applied to futures
+		return future.orTimeout(requestOptions.timeout(), TimeUnit.MILLISECONDS).handle((rspList, ex) -> {
+			if (ex == null && isRspSuccessful(rspList)) {
+				return true;
+			} else if (ex instanceof TimeoutException) {
+				// Removes the pending request
+				future.cancel(false);
+				logger.error("No response within {} ms.", requestOptions.timeout());
+			} else if (ex != null) {
+				logger.catching(ex);
+			} else {
+				logger.error("Response: {}", rspList);
+			}
+
+			logger.fatal("Insecure Cluster State");
+			return false;
+		});
+	}
+
+	/**
+	 * Sends a mutation to all members and completes as soon as the write quorum
+	 * has acknowledged it. Members which have not answered are repaired in the
+	 * background.
+	 */
+	@SuppressWarnings("rawtypes")
+	private CompletableFuture<Boolean> sendMutationWithQuorum(String methodName, Object[] args, Class[] types)
+			throws Exception {
+		final int required = getWriteQuorum();
+		RequestOptions options = new RequestOptions(ResponseMode.GET_ALL, requestOptions.timeout())
+				.setRspFilter(new QuorumFilter(required));
+
+		SentMutation sent = sendMutation(methodName, args, types, options);
+		final Mutation mutation = sent.mutation;
+		final CompletableFuture<RspList<Object>> future = sent.future;
+
+		return future.orTimeout(requestOptions.timeout(), TimeUnit.MILLISECONDS).handle((rspList, ex) -> {
+			if (ex != null) {
+				if (ex instanceof TimeoutException) {
+					future.cancel(false);
+				}
+
+				logger.error("No quorum for {}: {}", mutation, ex.toString());
+				return false;
+			}
+
+			int acks = 0;
+			List<Address> stragglers = new ArrayList<>();
+			for (Map.Entry<Address, Rsp<Object>> e : rspList.entrySet()) {
+				Rsp<Object> rsp = e.getValue();
+				if (!rsp.wasReceived()) {
+					if (!rsp.wasSuspected() && !rsp.wasUnreachable()) {
+						stragglers.add(e.getKey());
+					}
+				} else if (rsp.getValue() == RpcResponse.OK) {
+					++acks;
+				} else {
+					// Already marked as applied there, a retry would not help
+					logger.warn("Member {} rejected {}: {}", e.getKey(), mutation,
+							rsp.hasException() ? rsp.getException() : rsp.getValue());
+				}
+			}
+
+			if (acks < required) {
+				logger.error("Only {} of {} required acknowledgements for {}: {}", acks, required, mutation, rspList);
+				logger.fatal("Insecure Cluster State");
+				return false;
+			}
+
+			if (!stragglers.isEmpty()) {
+				scheduleRepair(mutation, stragglers, 1);
+			}
+
+			return true;
+		});
+	}
+
+	/**
+	 * Sends a mutation with the next sequence number to all members. The sequence
+	 * number is only consumed if the mutation has been sent. A send failing with
+	 * an exception has not reached any member, so the members do not wait for a
+	 * sequence number which will never arrive.
+	 */
+	@SuppressWarnings("rawtypes")
+	private SentMutation sendMutation(String methodName, Object[] args, Class[] types, RequestOptions options)
+			throws Exception {
+		synchronized (sendLock) {
+			Mutation mutation = new Mutation(origin, sequence + 1, methodName, args, types);
+			CompletableFuture<RspList<Object>> future = dispatcher.callRemoteMethodsWithFuture(null, "applyMutation",
+					new Object[] { mutation }, new Class[] { Mutation.class }, options);
+
+			sequence = mutation.getSequence();
+			return new SentMutation(mutation, future);
 		}
+	}
 
-		logger.fatal("Insecure Cluster State");
+	/**
+	 * Starts a new origin for the mutations sent by this node. Called on startup
+	 * and after the state has been replaced by a full state transfer: mutations
+	 * of the previous origin missed by other members are no longer part of the
+	 * state, so later mutations must not wait for them.
+	 */
+	void restartOrigin() {
+		synchronized (sendLock) {
+			// Sequence numbers restart with the origin, so the origin must be unique
+			origin = channel.getName() + "/" + UUID.randomUUID();
+			sequence = 0;
+		}
+	}
 
-		return false;
+	/**
+	 * Replaces the state by a full state transfer because a mutation of the given
+	 * origin has been missed. The state is requested from the member which sent
+	 * the mutation, it has applied all of its own mutations. Runs in the
+	 * background, the caller may be a thread delivering messages.
+	 * 
+	 * @param origin Origin of the missed mutation
+	 */
+	void requestStateTransfer(String origin) {
+		if (stopping) {
+			return;
+		}
+
+		repairExecutor.execute(() -> {
+			String name = origin.substring(0, origin.lastIndexOf('/'));
+			View view = channel.getView();
+			Address provider = view.getMembers().stream().filter(m -> name.equals(m.toString())).findFirst()
+					.orElse(view.getCoord());
+			if (provider.equals(channel.getAddress())) {
+				logger.error("No member to receive the missed mutations of {} from.", origin);
+				revisions.transferFailed();
+				return;
+			}
+
+			try {
+				logger.info("Receiving State from {}", provider);
+				channel.getState(provider, requestOptions.timeout());
+			} catch (Exception ex) {
+				logger.error("Failed to receive State from {}: {}", provider, ex.getMessage());
+				revisions.transferFailed();
+			}
+		});
+	}
+
+	/**
+	 * Resends a mutation to members which have not acknowledged it. Mutations
+	 * are only applied once per member, so resending is safe even if the first
+	 * attempt is still in progress.
+	 */
+	private void scheduleRepair(Mutation mutation, Collection<Address> members, int attempt) {
+		if (stopping) {
+			return;
+		}
+
+		repairExecutor.schedule(() -> {
+			List<Address> targets = new ArrayList<>(members);
+			targets.removeIf(a -> !channel.getView().containsMember(a));
+			if (targets.isEmpty()) {
+				return;
+			}
+
+			try {
+				dispatcher.<Object>callRemoteMethodsWithFuture(targets, "applyMutation", new Object[] { mutation },
+						new Class[] { Mutation.class }, requestOptions)
+						.orTimeout(requestOptions.timeout(), TimeUnit.MILLISECONDS)
+						.whenComplete((rspList, ex) -> {
+							List<Address> failed = new ArrayList<>();
+							if (ex != null) {
+								failed.addAll(targets);
+							} else {
+								rspList.forEach((address, rsp) -> {
+									if (!rsp.wasReceived()) {
+										failed.add(address);
+									}
+								});
+							}
+
+							if (failed.isEmpty()) {
+								logger.info("Repaired {} on {}", mutation, targets);
+							} else if (attempt < MAX_REPAIR_ATTEMPTS) {
+								scheduleRepair(mutation, failed, attempt + 1);
+							} else {
+								logger.warn("Giving up repairing {} on {}", mutation, failed);
+							}
+						});
+			} catch (Exception ex) {
+				logger.warn("Failed to repair {}: {}", mutation, ex.getMessage());
+			}
+		}, attempt, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Requests the changes of the state missed since the given version vector from
+	 * another member and applies them.
+	 * 
+	 * @param target   Member to request the changes from
+	 * @param versions Version vector of the local state
+	 * @return {@code true} if the changes have been applied, {@code false} if a
+	 *         full state transfer is required.
+	 */
+	boolean requestStateDelta(Address target, VersionVector versions) {
+		if (!revisions.isAnchored()) {
+			return false;
+		}
+
+		try {
+			StateDelta delta = dispatcher.callRemoteMethod(target, "getStateDelta", new Object[] { versions },
+					new Class[] { VersionVector.class }, requestOptions);
+			if (delta == null) {
+				logger.info("State delta not available, full state transfer required.");
+				return false;
+			}
+
+			applyStateDelta(delta);
+			logger.info("Applied state delta: {}", delta);
+
+			// The journal refers to the previous state, replace it by a snapshot
+			writeState();
+			return true;
+		} catch (Exception ex) {
+			logger.warn("Failed to receive state delta: {}", ex.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Creates the delta for a member with the given version vector.
+	 * 
+	 * @param versions Version vector of the remote member
+	 * @return State delta or {@code null} if a full state transfer is required.
+	 */
+	StateDelta createStateDelta(VersionVector versions) {
+		Lock lock = revisions.getTransferLock().writeLock();
+		lock.lock();
+		try {
+			Changes changes = revisions.getChangesSince(versions);
+			if (changes == null) {
+				return null;
+			}
+
+			StateDelta delta = new StateDelta(changes);
+			for (EntityKey key : changes.getChanged().keySet()) {
+				Object value = getEntities(key.getType()).get(key.getKey());
+				if (value != null) {
+					delta.getEntities().put(key, value);
+				}
+			}
+
+			return delta;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void applyStateDelta(StateDelta delta) {
+		Lock lock = revisions.getTransferLock().writeLock();
+		lock.lock();
+		locks.lockExclusive();
+		try {
+			Changes changes = delta.getChanges();
+			VersionVector remote = changes.getVersions();
+
+			// Keep entities changed by mutations received after the delta was created
+			for (Map.Entry<EntityKey, Object> e : delta.getEntities().entrySet()) {
+				if (!revisions.isNewer(e.getKey(), remote)) {
+					getEntities(e.getKey().getType()).put(e.getKey().getKey(), e.getValue());
+				}
+			}
+
+			for (EntityKey key : changes.getDeleted().keySet()) {
+				if (!revisions.isNewer(key, remote)) {
+					getEntities(key.getType()).remove(key.getKey());
+				}
+			}
+
+			for (CallRevision c : changes.getCalls()) {
+				if (!revisions.contains(c.getRevision())) {
+					state.addCall(c.getCall());
+				}
+			}
+
+			// Entity maps have been changed directly
+			state.rebuildIndexes();
+			responseCache.invalidateAll();
+			credentialCache.invalidateAll();
+			revisions.apply(changes);
+			registerNewsList();
+		} finally {
+			locks.unlockExclusive();
+			lock.unlock();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	ConcurrentMap<String, Object> getEntities(EntityType type) {
+		switch (type) {
+		case CALL_SIGN:
+			return (ConcurrentMap<String, Object>) (ConcurrentMap<String, ?>) state.getCallSigns();
+		case NEWS:
+			return (ConcurrentMap<String, Object>) (ConcurrentMap<String, ?>) state.getNews();
+		case NODE:
+			return (ConcurrentMap<String, Object>) (ConcurrentMap<String, ?>) state.getNodes();
+		case RUBRIC:
+			return (ConcurrentMap<String, Object>) (ConcurrentMap<String, ?>) state.getRubrics();
+		case TRANSMITTER:
+			return (ConcurrentMap<String, Object>) (ConcurrentMap<String, ?>) state.getTransmitters();
+		case TRANSMITTER_GROUP:
+			return (ConcurrentMap<String, Object>) (ConcurrentMap<String, ?>) state.getTransmitterGroups();
+		case USER:
+			return (ConcurrentMap<String, Object>) (ConcurrentMap<String, ?>) state.getUsers();
+		default:
+			throw new IllegalArgumentException("Entity type has no state map: " + type);
+		}
+	}
+
+	/**
+	 * Reconciles the state with a random member, see {@link AntiEntropy}.
+	 */
+	public void runAntiEntropy() {
+		if (!channel.isConnected() || !revisions.isAnchored()) {
+			return;
+		}
+
+		List<Address> members = new ArrayList<>(channel.getView().getMembers());
+		members.remove(channel.getAddress());
+		if (members.isEmpty()) {
+			return;
+		}
+
+		Address peer = members.get(ThreadLocalRandom.current().nextInt(members.size()));
+		try {
+			AntiEntropy.Digest digest = dispatcher.callRemoteMethod(peer, "getStateDigest", new Object[0],
+					new Class[0], requestOptions);
+			AntiEntropy.DigestRequest request = antiEntropy.createRequest(digest);
+			if (request != null) {
+				AntiEntropy.Repair repair = dispatcher.callRemoteMethod(peer, "getStateRepair",
+						new Object[] { request }, new Class[] { AntiEntropy.DigestRequest.class }, requestOptions);
+				int repaired = antiEntropy.applyRepair(repair);
+				logger.info("State differs from {}, repaired {} entities.", peer, repaired);
+
+				if (repaired > 0) {
+					// Repairs are not journaled
+					writeState();
+				}
+			}
+
+			antiEntropy.getStatistics().incrementRuns();
+		} catch (Exception ex) {
+			antiEntropy.getStatistics().incrementFailedRuns();
+			logger.warn("Failed to reconcile state with {}: {}", peer, ex.getMessage());
+		}
 	}
 
 	public boolean updateNodeStatus(Node.Status status) {
@@ -278,7 +757,15 @@ public class ClusterManager implements TransmitterManagerListener, RestListener
 		if (stopping) {
 			updateNodeStatus(Node.Status.SUSPENDED);
 			channel.close();
-			getState().writeToFile();
+			writeState();
+
+			if (journal != null) {
+				try {
+					journal.close();
+				} catch (IOException ex) {
+					logger.error("Failed to close the state journal.", ex);
+				}
+			}
 		}
 	}
 
@@ -293,6 +780,7 @@ public class ClusterManager implements TransmitterManagerListener, RestListener
 		return transmissionManager;
 	}
 
+	@Override
 	public TransmitterManager getTransmitterManager() {
 		return transmitterManager;
 	}
@@ -306,11 +794,95 @@ public class ClusterManager implements TransmitterManagerListener, RestListener
 		return state;
 	}
 
+	/**
+	 * Returns the state journal.
+	 * 
+	 * @return State journal or {@code null} if journaling is disabled.
+	 */
+	public StateJournal getJournal() {
+		return journal;
+	}
+
+	EntityLocks getLocks() {
+		return locks;
+	}
+
+	StateRevisions getRevisions() {
+		return revisions;
+	}
+
+	AntiEntropy getAntiEntropy() {
+		return antiEntropy;
+	}
+
+	@Override
+	public AntiEntropyStatistics getAntiEntropyStatistics() {
+		return antiEntropy.getStatistics();
+	}
+
+	@Override
+	public ViewStatistics getViewStatistics() {
+		return membershipListener.getStatistics();
+	}
+
+	@Override
+	public ResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	@Override
+	public CredentialCache getCredentialCache() {
+		return credentialCache;
+	}
+
 	public void setState(State state) {
 		this.state = state;
 
 		if (state != null) {
 			registerNewsList();
 		}
+
+		responseCache.invalidateAll();
+		credentialCache.invalidateAll();
+	}
+
+	/**
+	 * Mutation sent to all members and its pending responses.
+	 */
+	private static final class SentMutation {
+		private final Mutation mutation;
+		private final CompletableFuture<RspList<Object>> future;
+
+		SentMutation(Mutation mutation, CompletableFuture<RspList<Object>> future) {
+			this.mutation = mutation;
+			this.future = future;
+		}
 	}
+
+	/**
+	 * Stops waiting for responses once enough members acknowledged a mutation.
+	 */
+	private static final class QuorumFilter implements RspFilter {
+		private final int required;
+		private int acks;
+
+		QuorumFilter(int required) {
+			this.required = required;
+		}
+
+		@Override
+		public synchronized boolean isAcceptable(Object response, Address sender) {
+			if (response == RpcResponse.OK) {
+				++acks;
+			}
+
+			return true;
+		}
+
+		@Override
+		public synchronized boolean needMoreResponses() {
+			return acks < required;
+		}
+	}
+
 }
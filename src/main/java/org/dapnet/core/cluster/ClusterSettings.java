@@ -17,9 +17,20 @@ package org.dapnet.core.cluster;
 import java.io.Serializable;
 
 public class ClusterSettings implements Serializable {
+
+	/**
+	 * Acknowledgements required for state mutations.
+	 */
+	public enum WriteMode {
+		ALL, QUORUM
+	}
+
 	private static final long serialVersionUID = 6362766257617737103L;
 	private int responseTimeout = 10000;
 	private String clusterConfigurationFile = "config/ClusterConfig.xml";
+	private int stateDeltaWindow = 10000;
+	private boolean compactMarshaller = true;
+	private WriteMode writeMode = WriteMode.ALL;
 
 	private String nodeName;
 
@@ -33,6 +44,38 @@ public class ClusterSettings implements Serializable {
 		return clusterConfigurationFile;
 	}
 
+	/**
+	 * Returns the number of added calls and deleted entities kept for delta state
+	 * transfers. Members missing older changes receive the full state.
+	 * 
+	 * @return Delta window size
+	 */
+	public int getStateDeltaWindow() {
+		return stateDeltaWindow;
+	}
+
+	/**
+	 * Returns whether RPC payloads are encoded with the compact marshaller instead
+	 * of Java serialization. Must be the same on all nodes of the cluster.
+	 * 
+	 * @return {@code true} if the compact marshaller is used
+	 */
+	public boolean isCompactMarshaller() {
+		return compactMarshaller;
+	}
+
+	/**
+	 * Returns the acknowledgements required for state mutations. With
+	 * {@code ALL} every member must acknowledge, with {@code QUORUM} a majority
+	 * of the active nodes is sufficient and the remaining members are repaired
+	 * in the background.
+	 * 
+	 * @return Write mode
+	 */
+	public WriteMode getWriteMode() {
+		return writeMode;
+	}
+
 	public String getNodeName() { return nodeName; }
 
 	public String getChannelName() { return channelName; }
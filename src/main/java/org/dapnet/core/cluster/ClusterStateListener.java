@@ -19,6 +19,7 @@ import java.io.DataOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
@@ -27,6 +28,7 @@ import javax.validation.Validator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.dapnet.core.DAPNETCore;
+import org.dapnet.core.cluster.StateRevisions.Changes;
 import org.dapnet.core.model.State;
 import org.jgroups.util.Util;
 
@@ -43,8 +45,17 @@ public class ClusterStateListener implements org.jgroups.StateListener {
 	public void getState(OutputStream outputStream) throws Exception {
 		logger.info("Start sending State to other Node");
 
-		State state = clusterManager.getState();
-		Util.objectToStream(state, new DataOutputStream(outputStream));
+		// Send the state together with its revisions for later delta transfers
+		StateRevisions revisions = clusterManager.getRevisions();
+		Lock lock = revisions.getTransferLock().writeLock();
+		lock.lock();
+		try {
+			DataOutputStream out = new DataOutputStream(outputStream);
+			Util.objectToStream(clusterManager.getState(), out);
+			Util.objectToStream(revisions.getAll(), out);
+		} finally {
+			lock.unlock();
+		}
 
 		logger.info("Finished sending State to other Node");
 	}
@@ -53,14 +64,29 @@ public class ClusterStateListener implements org.jgroups.StateListener {
 	public void setState(InputStream inputStream) throws Exception {
 		logger.info("Receiving State from other Node");
 
-		State state = (State) Util.objectFromStream(new DataInputStream(inputStream));
-		clusterManager.setState(state);
+		DataInputStream in = new DataInputStream(inputStream);
+		State state = (State) Util.objectFromStream(in);
+		Changes changes = (Changes) Util.objectFromStream(in);
+
+		StateRevisions revisions = clusterManager.getRevisions();
+		Lock lock = revisions.getTransferLock().writeLock();
+		lock.lock();
+		try {
+			clusterManager.setState(state);
+			revisions.reset(changes);
+			// Mutations of this node missed by others have been discarded
+			clusterManager.restartOrigin();
+		} finally {
+			lock.unlock();
+		}
+
 		state.setModelReferences();
 
 		// Validate state
 		Set<ConstraintViolation<Object>> violations = validator.validate(state);
 		if (violations.isEmpty()) {
-			state.writeToFile();
+			// The journal refers to the previous state, replace it by a snapshot
+			clusterManager.writeState();
 
 			logger.info("State successfully received");
 		} else {
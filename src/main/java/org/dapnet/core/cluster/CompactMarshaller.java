@@ -0,0 +1,449 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.dapnet.core.model.Activation;
+import org.dapnet.core.model.Call;
+import org.dapnet.core.model.CallSign;
+import org.dapnet.core.model.News;
+import org.dapnet.core.model.Node;
+import org.dapnet.core.model.Rubric;
+import org.dapnet.core.model.Transmitter;
+import org.dapnet.core.model.TransmitterGroup;
+import org.dapnet.core.model.User;
+import org.dapnet.core.rest.GsonTypeAdapterFactory;
+import org.jgroups.blocks.Marshaller;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Marshaller for RPC arguments and return values without Java serialization for
+ * the common cases. Calls, news and activations are written field by field,
+ * other entities as compact JSON. Everything else (e.g. state deltas) falls
+ * back to Java serialization. Payloads larger than
+ * {@link #COMPRESSION_THRESHOLD} are deflated if that makes them smaller.
+ * <p>
+ * The format is not compatible with the default JGroups marshalling, so all
+ * members of a cluster must use the same setting.
+ */
+final class CompactMarshaller implements Marshaller {
+
+	private static final int COMPRESSION_THRESHOLD = 1024;
+
+	private static final byte TYPE_NULL = 0;
+	private static final byte TYPE_STRING = 1;
+	private static final byte TYPE_BOOLEAN = 2;
+	private static final byte TYPE_INT = 3;
+	private static final byte TYPE_LONG = 4;
+	private static final byte TYPE_RPC_RESPONSE = 5;
+	private static final byte TYPE_NODE_STATUS = 6;
+	private static final byte TYPE_MUTATION = 7;
+	private static final byte TYPE_CALL = 8;
+	private static final byte TYPE_NEWS = 9;
+	private static final byte TYPE_ACTIVATION = 10;
+	private static final byte TYPE_JSON = 11;
+	private static final byte TYPE_SERIALIZED = 12;
+	private static final byte TYPE_DEFLATED = 13;
+
+	/**
+	 * Classes referenced by index in mutation parameter types and JSON encoded
+	 * entities. Only append new entries, the index is part of the wire format.
+	 */
+	private static final Class<?>[] CLASSES = { String.class, Boolean.TYPE, Integer.TYPE, Long.TYPE, Call.class,
+			News.class, Activation.class, CallSign.class, Node.class, Rubric.class, Transmitter.class,
+			TransmitterGroup.class, User.class, Node.Status.class };
+	private static final Map<Class<?>, Integer> CLASS_INDEXES = new HashMap<>();
+	private static final RpcResponse[] RESPONSES = RpcResponse.values();
+	private static final Node.Status[] NODE_STATUSES = Node.Status.values();
+	private static final Gson gson;
+
+	static {
+		for (int i = 0; i < CLASSES.length; ++i) {
+			CLASS_INDEXES.put(CLASSES[i], i);
+		}
+
+		GsonBuilder builder = new GsonBuilder();
+		builder.registerTypeAdapterFactory(new GsonTypeAdapterFactory());
+		gson = builder.create();
+	}
+
+	@Override
+	public void objectToStream(Object obj, DataOutput out) throws Exception {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+		writeObject(obj, new DataOutputStream(buffer));
+
+		byte[] data = buffer.toByteArray();
+		if (data.length > COMPRESSION_THRESHOLD) {
+			byte[] deflated = deflate(data);
+			if (deflated != null) {
+				out.writeByte(TYPE_DEFLATED);
+				out.writeInt(data.length);
+				out.writeInt(deflated.length);
+				out.write(deflated);
+				return;
+			}
+		}
+
+		out.write(data);
+	}
+
+	@Override
+	public Object objectFromStream(DataInput in) throws Exception {
+		byte type = in.readByte();
+		if (type != TYPE_DEFLATED) {
+			return readObject(type, in);
+		}
+
+		int length = in.readInt();
+		byte[] deflated = new byte[in.readInt()];
+		in.readFully(deflated);
+
+		DataInputStream data = new DataInputStream(new ByteArrayInputStream(inflate(deflated, length)));
+		return readObject(data.readByte(), data);
+	}
+
+	@Override
+	public int estimatedSize(Object arg) {
+		if (arg == null || arg instanceof RpcResponse) {
+			return 2;
+		} else if (arg instanceof String) {
+			return ((String) arg).length() + 5;
+		} else {
+			return 256;
+		}
+	}
+
+	private static void writeObject(Object obj, DataOutput out) throws IOException {
+		if (obj == null) {
+			out.writeByte(TYPE_NULL);
+		} else if (obj instanceof String) {
+			out.writeByte(TYPE_STRING);
+			writeString((String) obj, out);
+		} else if (obj instanceof Boolean) {
+			out.writeByte(TYPE_BOOLEAN);
+			out.writeBoolean((Boolean) obj);
+		} else if (obj instanceof Integer) {
+			out.writeByte(TYPE_INT);
+			out.writeInt((Integer) obj);
+		} else if (obj instanceof Long) {
+			out.writeByte(TYPE_LONG);
+			out.writeLong((Long) obj);
+		} else if (obj instanceof RpcResponse) {
+			out.writeByte(TYPE_RPC_RESPONSE);
+			out.writeByte(((RpcResponse) obj).ordinal());
+		} else if (obj instanceof Node.Status) {
+			out.writeByte(TYPE_NODE_STATUS);
+			out.writeByte(((Node.Status) obj).ordinal());
+		} else if (obj instanceof Mutation) {
+			out.writeByte(TYPE_MUTATION);
+			writeMutation((Mutation) obj, out);
+		} else if (obj instanceof Call) {
+			out.writeByte(TYPE_CALL);
+			writeCall((Call) obj, out);
+		} else if (obj instanceof News) {
+			out.writeByte(TYPE_NEWS);
+			writeNews((News) obj, out);
+		} else if (obj instanceof Activation) {
+			out.writeByte(TYPE_ACTIVATION);
+			writeActivation((Activation) obj, out);
+		} else if (CLASS_INDEXES.containsKey(obj.getClass())) {
+			out.writeByte(TYPE_JSON);
+			out.writeByte(CLASS_INDEXES.get(obj.getClass()));
+			writeString(gson.toJson(obj), out);
+		} else {
+			out.writeByte(TYPE_SERIALIZED);
+			writeSerialized(obj, out);
+		}
+	}
+
+	private static Object readObject(byte type, DataInput in) throws IOException {
+		switch (type) {
+		case TYPE_NULL:
+			return null;
+		case TYPE_STRING:
+			return readString(in);
+		case TYPE_BOOLEAN:
+			return in.readBoolean();
+		case TYPE_INT:
+			return in.readInt();
+		case TYPE_LONG:
+			return in.readLong();
+		case TYPE_RPC_RESPONSE:
+			return RESPONSES[in.readUnsignedByte()];
+		case TYPE_NODE_STATUS:
+			return NODE_STATUSES[in.readUnsignedByte()];
+		case TYPE_MUTATION:
+			return readMutation(in);
+		case TYPE_CALL:
+			return readCall(in);
+		case TYPE_NEWS:
+			return readNews(in);
+		case TYPE_ACTIVATION:
+			return readActivation(in);
+		case TYPE_JSON: {
+			Class<?> cls = readClass(in);
+			return gson.fromJson(readString(in), cls);
+		}
+		case TYPE_SERIALIZED:
+			return readSerialized(in);
+		default:
+			throw new StreamCorruptedException("Unknown type: " + type);
+		}
+	}
+
+	private static void writeMutation(Mutation mutation, DataOutput out) throws IOException {
+		writeString(mutation.getOrigin(), out);
+		out.writeLong(mutation.getSequence());
+		writeString(mutation.getMethodName(), out);
+
+		Object[] args = mutation.getArgs();
+		Class<?>[] types = mutation.getTypes();
+		out.writeByte(args.length);
+		for (int i = 0; i < args.length; ++i) {
+			Integer index = CLASS_INDEXES.get(types[i]);
+			if (index == null) {
+				throw new IOException("Unsupported mutation parameter type: " + types[i].getName());
+			}
+
+			out.writeByte(index);
+			writeObject(args[i], out);
+		}
+	}
+
+	private static Mutation readMutation(DataInput in) throws IOException {
+		String origin = readString(in);
+		long sequence = in.readLong();
+		String methodName = readString(in);
+
+		int count = in.readUnsignedByte();
+		Object[] args = new Object[count];
+		Class<?>[] types = new Class<?>[count];
+		for (int i = 0; i < count; ++i) {
+			types[i] = readClass(in);
+			args[i] = readObject(in.readByte(), in);
+		}
+
+		return new Mutation(origin, sequence, methodName, args, types);
+	}
+
+	private static void writeCall(Call call, DataOutput out) throws IOException {
+		writeString(call.getText(), out);
+		writeStrings(call.getCallSignNames(), out);
+		writeStrings(call.getTransmitterGroupNames(), out);
+		out.writeBoolean(call.isEmergency());
+		writeInstant(call.getTimestamp(), out);
+		writeString(call.getOwnerName(), out);
+	}
+
+	private static Call readCall(DataInput in) throws IOException {
+		Call call = new Call();
+		call.setText(readString(in));
+		call.setCallSignNames(readStrings(in));
+		call.setTransmitterGroupNames(readStrings(in));
+		call.setEmergency(in.readBoolean());
+		call.setTimestamp(readInstant(in));
+		call.setOwnerName(readString(in));
+		return call;
+	}
+
+	private static void writeNews(News news, DataOutput out) throws IOException {
+		writeString(news.getText(), out);
+		writeString(news.getRubricName(), out);
+		out.writeInt(news.getNumber());
+		writeInstant(news.getTimestamp(), out);
+		writeString(news.getOwnerName(), out);
+	}
+
+	private static News readNews(DataInput in) throws IOException {
+		News news = new News();
+		news.setText(readString(in));
+		news.setRubricName(readString(in));
+		news.setNumber(in.readInt());
+		news.setTimestamp(readInstant(in));
+		news.setOwnerName(readString(in));
+		return news;
+	}
+
+	private static void writeActivation(Activation activation, DataOutput out) throws IOException {
+		out.writeInt(activation.getNumber());
+		writeStrings(activation.getTransmitterGroupNames(), out);
+
+		Date timestamp = activation.getTimestamp();
+		out.writeBoolean(timestamp != null);
+		if (timestamp != null) {
+			out.writeLong(timestamp.getTime());
+		}
+	}
+
+	private static Activation readActivation(DataInput in) throws IOException {
+		Activation activation = new Activation();
+		activation.setNumber(in.readInt());
+		activation.setTransmitterGroupNames(readStrings(in));
+		if (in.readBoolean()) {
+			activation.setTimestamp(new Date(in.readLong()));
+		}
+
+		return activation;
+	}
+
+	private static void writeSerialized(Object obj, DataOutput out) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+		try (ObjectOutputStream oos = new ObjectOutputStream(buffer)) {
+			oos.writeObject(obj);
+		}
+
+		out.writeInt(buffer.size());
+		out.write(buffer.toByteArray());
+	}
+
+	private static Object readSerialized(DataInput in) throws IOException {
+		byte[] data = new byte[in.readInt()];
+		in.readFully(data);
+
+		try (InputStream is = new ByteArrayInputStream(data); ObjectInputStream ois = new ObjectInputStream(is)) {
+			return ois.readObject();
+		} catch (ClassNotFoundException ex) {
+			throw new IOException("Unknown serialized class.", ex);
+		}
+	}
+
+	private static Class<?> readClass(DataInput in) throws IOException {
+		int index = in.readUnsignedByte();
+		if (index >= CLASSES.length) {
+			throw new StreamCorruptedException("Unknown class index: " + index);
+		}
+
+		return CLASSES[index];
+	}
+
+	private static void writeString(String value, DataOutput out) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] data = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(data.length);
+			out.write(data);
+		}
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+
+		byte[] data = new byte[length];
+		in.readFully(data);
+		return new String(data, StandardCharsets.UTF_8);
+	}
+
+	private static void writeStrings(Collection<String> values, DataOutput out) throws IOException {
+		if (values == null) {
+			out.writeInt(-1);
+			return;
+		}
+
+		out.writeInt(values.size());
+		for (String v : values) {
+			writeString(v, out);
+		}
+	}
+
+	private static List<String> readStrings(DataInput in) throws IOException {
+		int count = in.readInt();
+		if (count < 0) {
+			return null;
+		}
+
+		List<String> values = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i) {
+			values.add(readString(in));
+		}
+
+		return values;
+	}
+
+	private static void writeInstant(Instant value, DataOutput out) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeLong(value.getEpochSecond());
+			out.writeInt(value.getNano());
+		}
+	}
+
+	private static Instant readInstant(DataInput in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+
+		long seconds = in.readLong();
+		return Instant.ofEpochSecond(seconds, in.readInt());
+	}
+
+	private static byte[] deflate(byte[] data) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+
+			// Only worth it if the result is smaller
+			byte[] buffer = new byte[data.length];
+			int length = deflater.deflate(buffer);
+			if (!deflater.finished()) {
+				return null;
+			}
+
+			byte[] result = new byte[length];
+			System.arraycopy(buffer, 0, result, 0, length);
+			return result;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] inflate(byte[] data, int length) throws IOException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(data);
+
+			byte[] result = new byte[length];
+			if (inflater.inflate(result) != length || !inflater.finished()) {
+				throw new StreamCorruptedException("Invalid deflated payload.");
+			}
+
+			return result;
+		} catch (DataFormatException ex) {
+			throw new StreamCorruptedException("Invalid deflated payload: " + ex.getMessage());
+		} finally {
+			inflater.end();
+		}
+	}
+
+}
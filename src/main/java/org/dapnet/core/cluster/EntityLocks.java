@@ -0,0 +1,77 @@
+package org.dapnet.core.cluster;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Locks used to apply state mutations. Mutations of a single entity lock a
+ * stripe selected by the entity type and name, so mutations of unrelated
+ * entities run in parallel. Mutations touching several entities (e.g. cascading
+ * deletes) use the exclusive lock, which waits for all other mutations to
+ * complete and blocks new ones. All locks are reentrant.
+ */
+final class EntityLocks {
+
+	public enum EntityType {
+		CALL, ACTIVATION, CALL_SIGN, NEWS, NODE, RUBRIC, TRANSMITTER, TRANSMITTER_GROUP, USER
+	}
+
+	private static final int STRIPE_COUNT = 64;
+	private final ReentrantReadWriteLock globalLock = new ReentrantReadWriteLock();
+	private final ReentrantLock[] stripes = new ReentrantLock[STRIPE_COUNT];
+
+	public EntityLocks() {
+		for (int i = 0; i < stripes.length; ++i) {
+			stripes[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Acquires the lock for a single entity.
+	 *
+	 * @param type Entity type
+	 * @param name Entity name, may be {@code null} if the mutation only appends a
+	 *             new entity.
+	 */
+	public void lock(EntityType type, String name) {
+		globalLock.readLock().lock();
+		if (name != null) {
+			getStripe(type, name).lock();
+		}
+	}
+
+	/**
+	 * Releases the lock for a single entity.
+	 *
+	 * @param type Entity type
+	 * @param name Entity name as passed to {@link #lock(EntityType, String)}
+	 */
+	public void unlock(EntityType type, String name) {
+		if (name != null) {
+			getStripe(type, name).unlock();
+		}
+
+		globalLock.readLock().unlock();
+	}
+
+	/**
+	 * Acquires the exclusive lock.
+	 */
+	public void lockExclusive() {
+		globalLock.writeLock().lock();
+	}
+
+	/**
+	 * Releases the exclusive lock.
+	 */
+	public void unlockExclusive() {
+		globalLock.writeLock().unlock();
+	}
+
+	private ReentrantLock getStripe(EntityType type, String name) {
+		int hash = 31 * type.ordinal() + name.toLowerCase().hashCode();
+		hash ^= (hash >>> 16);
+		return stripes[hash & (STRIPE_COUNT - 1)];
+	}
+
+}
@@ -15,11 +15,17 @@
 package org.dapnet.core.cluster;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.dapnet.core.DAPNETCore;
+import org.dapnet.core.cluster.StateRevisions.VersionVector;
 import org.dapnet.core.model.Node;
+import org.dapnet.core.rest.ResponseCache.CachedCollection;
 import org.jgroups.Address;
 import org.jgroups.Event;
 import org.jgroups.MergeView;
@@ -31,6 +37,15 @@ import org.jgroups.util.ExtendedUUID;
 public class MembershipListener implements org.jgroups.MembershipListener {
 	private static final Logger logger = LogManager.getLogger();
 	private final ClusterManager clusterManager;
+	private final ViewStatistics statistics = new ViewStatistics();
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "ViewHandler");
+		t.setDaemon(true);
+		return t;
+	});
+	private final Object pendingLock = new Object();
+	private ViewHandler pending;
+	private volatile boolean stopping = false;
 
 	public MembershipListener(ClusterManager clusterManager) {
 		this.clusterManager = clusterManager;
@@ -38,9 +53,66 @@ public class MembershipListener implements org.jgroups.MembershipListener {
 
 	@Override
 	public void viewAccepted(View view) {
-		ViewHandler handler = new ViewHandler(view);
-		Thread worker = new Thread(handler, "ViewHandler");
-		worker.start();
+		if (stopping) {
+			return;
+		}
+
+		// Capture the revisions before mutations of the merged view are delivered
+		VersionVector versions = null;
+		if (view instanceof MergeView) {
+			versions = clusterManager.getRevisions().getVersions();
+		}
+
+		statistics.incrementViewsReceived();
+
+		// Views not handled yet are replaced by the latest one
+		synchronized (pendingLock) {
+			if (pending != null) {
+				pending.update(view, versions);
+				statistics.incrementViewsSkipped();
+				return;
+			}
+
+			pending = new ViewHandler(view, versions);
+		}
+
+		try {
+			executor.execute(this::handlePending);
+		} catch (RejectedExecutionException ex) {
+			// Stopped in the meantime, the view is dropped
+			logger.debug("View handler stopped, dropping view {}", view);
+		}
+	}
+
+	private void handlePending() {
+		ViewHandler handler;
+		synchronized (pendingLock) {
+			handler = pending;
+			pending = null;
+		}
+
+		if (handler != null) {
+			long start = System.nanoTime();
+			handler.run();
+			statistics.addHandled(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Returns the view handling statistics.
+	 * 
+	 * @return Statistics
+	 */
+	public ViewStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Stops handling views.
+	 */
+	public void stop() {
+		stopping = true;
+		executor.shutdownNow();
 	}
 
 	@Override
@@ -57,19 +129,35 @@ public class MembershipListener implements org.jgroups.MembershipListener {
 	}
 
 	private final class ViewHandler implements Runnable {
-		private final View view;
+		private View view;
+		private MergeView mergeView;
+		private VersionVector versions;
 
-		private ViewHandler(View view) {
+		private ViewHandler(View view, VersionVector versions) {
+			update(view, versions);
+		}
+
+		/**
+		 * Replaces the view. A pending merge is kept, together with the revisions
+		 * captured for the first merge view.
+		 */
+		private void update(View view, VersionVector versions) {
 			this.view = view;
+			if (view instanceof MergeView) {
+				mergeView = (MergeView) view;
+				if (this.versions == null) {
+					this.versions = versions;
+				}
+			}
 		}
 
 		@Override
 		public void run() {
 			logger.info("New View: {}", view);
 			// Check whether merge is taking place
-			if (view instanceof MergeView) {
+			if (mergeView != null) {
 				try {
-					handleMerge((MergeView) view);
+					handleMerge(mergeView);
 				} catch (Exception e) {
 					logger.fatal("Could not get State from majority", e);
 					DAPNETCore.shutdown();
@@ -77,6 +165,9 @@ public class MembershipListener implements org.jgroups.MembershipListener {
 				}
 			}
 
+			// Look up all physical addresses at once
+			Map<Address, PhysicalAddress> physicalAddresses = getPhysicalAddresses();
+
 			for (Address add : view.getMembers()) {
 				Node node = clusterManager.getState().getNodes().get(add.toString());
 				if (node == null) {
@@ -94,8 +185,12 @@ public class MembershipListener implements org.jgroups.MembershipListener {
 				}
 
 				// Try to set IP address for node
-				PhysicalAddress physicalAddress = (PhysicalAddress) clusterManager.getChannel()
-						.down(new Event(Event.GET_PHYSICAL_ADDRESS, add));
+				PhysicalAddress physicalAddress = physicalAddresses != null ? physicalAddresses.get(add) : null;
+				if (physicalAddress == null) {
+					physicalAddress = (PhysicalAddress) clusterManager.getChannel()
+							.down(new Event(Event.GET_PHYSICAL_ADDRESS, add));
+				}
+
 				if (physicalAddress instanceof IpAddress) {
 					node.setAddress((IpAddress) physicalAddress);
 				}
@@ -103,10 +198,11 @@ public class MembershipListener implements org.jgroups.MembershipListener {
 
 			// Update node states:
 			updateNodeStates();
+			clusterManager.getResponseCache().invalidate(CachedCollection.NODES);
 
 			// Save and check for quorum:
 			clusterManager.checkQuorum();
-			clusterManager.getState().writeToFile();
+			clusterManager.writeState();
 		}
 
 		private void handleMerge(MergeView view) throws Exception {
@@ -127,13 +223,20 @@ public class MembershipListener implements org.jgroups.MembershipListener {
 				 */
 				logger.info("Node is minoritySubgroup");
 
+				// Try to get the missed changes only
+				Address provider = majorSubgroup.getMembers().get(0);
+				if (clusterManager.requestStateDelta(provider, versions)) {
+					logger.info("Finished merge process with state delta");
+					return;
+				}
+
 				// Get State from majority
 				logger.info("Receive State from majoritySubgroup");
 				// Get State sometimes fails, no idea why!
 				int numberOfAttempts = 0;
 				while (true) {
 					try {
-						clusterManager.getChannel().getState(majorSubgroup.getMembers().get(0), 5000);
+						clusterManager.getChannel().getState(provider, 5000);
 						break; // Success
 					} catch (Exception e) {
 						logger.warn("Failed to receive State");
@@ -148,6 +251,17 @@ public class MembershipListener implements org.jgroups.MembershipListener {
 			logger.info("Finished merge process");
 		}
 
+		@SuppressWarnings("unchecked")
+		private Map<Address, PhysicalAddress> getPhysicalAddresses() {
+			try {
+				return (Map<Address, PhysicalAddress>) clusterManager.getChannel()
+						.down(new Event(Event.GET_LOGICAL_PHYSICAL_MAPPINGS, true));
+			} catch (RuntimeException ex) {
+				logger.debug("Failed to get physical addresses: {}", ex.getMessage());
+				return null;
+			}
+		}
+
 		private View getMajorSubgroup(MergeView view) {
 			// Major subgroups is the group with greatest number of nodes
 			// If two groups have the same number of nodes, the first group is
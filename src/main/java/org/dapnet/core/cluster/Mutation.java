@@ -0,0 +1,60 @@
+package org.dapnet.core.cluster;
+
+import java.io.Serializable;
+
+/**
+ * State mutation sent to all members. Wraps the RPC of the mutation together
+ * with its revision, see {@link StateRevisions}.
+ */
+final class Mutation implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	private final String origin;
+	private final long sequence;
+	private final String methodName;
+	private final Object[] args;
+	private final Class<?>[] types;
+
+	/**
+	 * Creates a new mutation.
+	 *
+	 * @param origin     Origin of the mutation, unique per node and start
+	 * @param sequence   Sequence number assigned by the origin
+	 * @param methodName Name of the {@link RpcListener} method to invoke
+	 * @param args       Method arguments
+	 * @param types      Method parameter types
+	 */
+	public Mutation(String origin, long sequence, String methodName, Object[] args, Class<?>[] types) {
+		this.origin = origin;
+		this.sequence = sequence;
+		this.methodName = methodName;
+		this.args = args;
+		this.types = types;
+	}
+
+	public String getOrigin() {
+		return origin;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	public Object[] getArgs() {
+		return args;
+	}
+
+	public Class<?>[] getTypes() {
+		return types;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Mutation{%s, origin=%s, sequence=%d}", methodName, origin, sequence);
+	}
+
+}
@@ -14,7 +14,9 @@
 
 package org.dapnet.core.cluster;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 
 import javax.validation.Validation;
 import javax.validation.Validator;
@@ -23,6 +25,8 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.dapnet.core.Settings;
+import org.dapnet.core.cluster.EntityLocks.EntityType;
+import org.dapnet.core.cluster.StateRevisions.VersionVector;
 import org.dapnet.core.model.Activation;
 import org.dapnet.core.model.Call;
 import org.dapnet.core.model.CallSign;
@@ -31,18 +35,190 @@ import org.dapnet.core.model.NewsList;
 import org.dapnet.core.model.Node;
 import org.dapnet.core.model.Rubric;
 import org.dapnet.core.model.State;
+import org.dapnet.core.model.State.DeleteListener;
+import org.dapnet.core.model.StateJournal;
+import org.dapnet.core.model.StateJournal.Operation;
 import org.dapnet.core.model.Transmitter;
 import org.dapnet.core.model.TransmitterGroup;
 import org.dapnet.core.model.User;
+import org.dapnet.core.rest.ResponseCache;
+import org.dapnet.core.rest.ResponseCache.CachedCollection;
 import org.dapnet.core.transmission.TransmissionManager;
 
 public class RpcListener {
 	private static final Logger logger = LogManager.getLogger();
 	private static final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+	private final EntityLocks locks;
+	private final StateRevisions revisions;
 	private final ClusterManager clusterManager;
+	private final Deletions deletions = new Deletions();
 
 	public RpcListener(ClusterManager clusterManager) {
 		this.clusterManager = clusterManager;
+		this.locks = clusterManager.getLocks();
+		this.revisions = clusterManager.getRevisions();
+	}
+
+	/**
+	 * Appends a mutation to the state journal before it is applied.
+	 */
+	private void journal(Operation op, Object data) throws IOException {
+		StateJournal journal = clusterManager.getJournal();
+		if (journal != null) {
+			journal.append(op, data);
+		}
+	}
+
+	/**
+	 * Saves the state after a journaled mutation if journaling is disabled.
+	 */
+	private void saveState() {
+		if (clusterManager.getJournal() == null && Settings.getModelSettings().isSavingImmediately()) {
+			clusterManager.getState().writeToFile();
+		}
+	}
+
+
+	// ### Revisions
+	// ####################################################################################################
+	/**
+	 * Records a changed entity and invalidates the cached responses.
+	 */
+	private void changed(EntityType type, String key) {
+		revisions.changed(type, key);
+		invalidate(type);
+	}
+
+	/**
+	 * Records a deleted entity and invalidates the cached responses.
+	 */
+	private void deleted(EntityType type, String key) {
+		revisions.deleted(type, key);
+		invalidate(type);
+	}
+
+	/**
+	 * Records a cascading mutation. Dependent entities of any type may have been
+	 * changed in place, so all cached responses are invalidated.
+	 */
+	private void barrier() {
+		revisions.barrier();
+		clusterManager.getResponseCache().invalidateAll();
+	}
+
+	private void invalidate(EntityType type) {
+		ResponseCache cache = clusterManager.getResponseCache();
+		switch (type) {
+		case NODE:
+			cache.invalidate(CachedCollection.NODES);
+			break;
+		case RUBRIC:
+			cache.invalidate(CachedCollection.RUBRICS);
+			break;
+		case TRANSMITTER:
+			cache.invalidate(CachedCollection.TRANSMITTERS);
+			break;
+		case TRANSMITTER_GROUP:
+			cache.invalidate(CachedCollection.TRANSMITTER_GROUPS);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Records the entities removed by a cascading delete.
+	 */
+	private final class Deletions implements DeleteListener {
+		@Override
+		public void callSignDeleted(String name) {
+			deleted(EntityType.CALL_SIGN, name);
+		}
+
+		@Override
+		public void rubricDeleted(String name) {
+			deleted(EntityType.NEWS, name);
+			deleted(EntityType.RUBRIC, name);
+		}
+
+		@Override
+		public void transmitterGroupDeleted(String name) {
+			deleted(EntityType.TRANSMITTER_GROUP, name);
+		}
+
+		@Override
+		public void transmitterDeleted(String name, Transmitter transmitter) {
+			deleted(EntityType.TRANSMITTER, name);
+
+			// Disconnect from transmitter
+			clusterManager.getTransmitterManager().disconnectFrom(transmitter);
+		}
+
+		@Override
+		public void userDeleted(String name) {
+			deleted(EntityType.USER, name);
+			clusterManager.getCredentialCache().invalidate(name);
+		}
+	}
+
+	public RpcResponse applyMutation(Mutation mutation) {
+		if (mutation == null) {
+			return RpcResponse.BAD_REQUEST;
+		}
+
+		if (!revisions.begin(mutation.getOrigin(), mutation.getSequence())) {
+			// Already received with a state delta
+			return RpcResponse.OK;
+		}
+
+		try {
+			Method method = RpcListener.class.getMethod(mutation.getMethodName(), mutation.getTypes());
+			if (method.getReturnType() != RpcResponse.class || method.getName().equals("applyMutation")) {
+				return RpcResponse.BAD_REQUEST;
+			}
+
+			return (RpcResponse) method.invoke(this, mutation.getArgs());
+		} catch (NoSuchMethodException | IllegalArgumentException e) {
+			logger.error("Invalid mutation: {}", mutation);
+			return RpcResponse.BAD_REQUEST;
+		} catch (InvocationTargetException e) {
+			logger.error("Exception : ", e.getCause());
+			return RpcResponse.INTERNAL_ERROR;
+		} catch (Exception e) {
+			logger.error("Exception : ", e);
+			return RpcResponse.INTERNAL_ERROR;
+		} finally {
+			revisions.end();
+
+			String origin = revisions.takeTransferRequired();
+			if (origin != null) {
+				clusterManager.requestStateTransfer(origin);
+			}
+		}
+	}
+
+	public StateDelta getStateDelta(VersionVector versions) {
+		if (versions == null) {
+			return null;
+		}
+
+		StateDelta delta = clusterManager.createStateDelta(versions);
+		logger.info("Sending state delta: {}", delta != null ? delta : "full state transfer required");
+		return delta;
+	}
+
+	public AntiEntropy.Digest getStateDigest() {
+		return clusterManager.getAntiEntropy().createDigest();
+	}
+
+	public AntiEntropy.Repair getStateRepair(AntiEntropy.DigestRequest request) {
+		if (request == null) {
+			return null;
+		}
+
+		AntiEntropy.Repair repair = clusterManager.getAntiEntropy().createRepair(request);
+		logger.info("Sending state repair: {}", repair);
+		return repair;
 	}
 
 	private static void logResponse(String methodName, Object object, RpcResponse response) {
@@ -71,8 +247,9 @@ public class RpcListener {
 
 	// ### Call
 	// #########################################################################################################
-	public synchronized RpcResponse postCall(Call call) {
+	public RpcResponse postCall(Call call) {
 		RpcResponse response = null;
+		locks.lock(EntityType.CALL, null);
 		try {
 			// Check Arguments
 			if (call == null) {
@@ -85,12 +262,12 @@ public class RpcListener {
 			}
 
 			// Add new Object
+			journal(Operation.ADD_CALL, call);
 			State state = clusterManager.getState();
-			state.getCalls().add(call);
+			state.addCall(call);
+			revisions.callAdded(call);
 			state.getCoreStats().incrementCalls();
-			if (Settings.getModelSettings().isSavingImmediately()) {
-				state.writeToFile();
-			}
+			saveState();
 
 			// Transmit new Call
 			clusterManager.getTransmissionManager().handleCall(call);
@@ -100,14 +277,16 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlock(EntityType.CALL, null);
 			logResponse("PostCall", call, response);
 		}
 	}
 
 	// ### Activation
 	// ###################################################################################################
-	public synchronized RpcResponse postActivation(Activation activation) {
+	public RpcResponse postActivation(Activation activation) {
 		RpcResponse response = null;
+		locks.lock(EntityType.ACTIVATION, null);
 		try {
 			// Check Arguments
 			if (activation == null) {
@@ -127,14 +306,17 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlock(EntityType.ACTIVATION, null);
 			logResponse("PostActivation", activation, response);
 		}
 	}
 
 	// ### CallSign
 	// #####################################################################################################
-	public synchronized RpcResponse putCallSign(CallSign callSign) {
+	public RpcResponse putCallSign(CallSign callSign) {
 		RpcResponse response = null;
+		final String lockName = callSign != null ? callSign.getName() : null;
+		locks.lock(EntityType.CALL_SIGN, lockName);
 		try {
 			// Check for Quorum
 			if (!clusterManager.isQuorum()) {
@@ -152,22 +334,24 @@ public class RpcListener {
 			}
 
 			// Add new Object (will replace old one if present)
+			journal(Operation.PUT_CALL_SIGN, callSign);
 			clusterManager.getState().getCallSigns().put(callSign.getName(), callSign);
-			if (Settings.getModelSettings().isSavingImmediately()) {
-				clusterManager.getState().writeToFile();
-			}
+			changed(EntityType.CALL_SIGN, callSign.getName());
+			saveState();
 
 			return response = RpcResponse.OK;
 		} catch (Exception e) {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlock(EntityType.CALL_SIGN, lockName);
 			logResponse("PutCallSign", callSign, response);
 		}
 	}
 
-	public synchronized RpcResponse deleteCallSign(String callSign) {
+	public RpcResponse deleteCallSign(String callSign) {
 		RpcResponse response = null;
+		locks.lockExclusive();
 		try {
 			// Check for Quorum
 			if (!clusterManager.isQuorum()) {
@@ -179,30 +363,18 @@ public class RpcListener {
 				return response = RpcResponse.BAD_REQUEST;
 			}
 
-			// Delete depended Objects
-			// Delete Calls
-			ArrayList<Call> deleteCalls = new ArrayList<>();
-			clusterManager.getState().getCalls().stream().filter(call -> call.getCallSignNames().contains(callSign))
-					.forEach(call -> {
-						if (call.getCallSignNames().size() == 1) {
-							// Delete all Calls using only this CallSign
-							deleteCalls.add(call);
-						} else {
-							// Remove this CallSign from Calls using more than
-							// this CallSign
-							call.getCallSignNames().remove(callSign);
-						}
-					});
-			deleteCalls.stream().forEach(call -> clusterManager.getState().getCalls().remove(call));
+			// Delete Object with same Name and depended Objects, if existing
+			journal(Operation.DELETE_CALL_SIGN, callSign);
+			CallSign removed = clusterManager.getState().deleteCallSign(callSign, deletions);
 
-			// Delete Object with same Name, if existing
-			if (clusterManager.getState().getCallSigns().remove(callSign) == null) {
+			// Calls have been changed
+			barrier();
+
+			if (removed == null) {
 				// Object not found
 				return response = RpcResponse.BAD_REQUEST;
 			} else {
-				if (Settings.getModelSettings().isSavingImmediately()) {
-					clusterManager.getState().writeToFile();
-				}
+				saveState();
 
 				return response = RpcResponse.OK;
 			}
@@ -210,14 +382,17 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlockExclusive();
 			logResponse("DeleteCallSign", callSign, response);
 		}
 	}
 
 	// ### News
 	// #########################################################################################################
-	public synchronized RpcResponse postNews(News news) {
+	public RpcResponse postNews(News news) {
 		RpcResponse response = null;
+		final String lockName = news != null ? news.getRubricName() : null;
+		locks.lock(EntityType.NEWS, lockName);
 		try {
 			// Check Arguments
 			if (news == null) {
@@ -233,12 +408,12 @@ public class RpcListener {
 			State state = clusterManager.getState();
 			NewsList nl = state.getNews().get(news.getRubricName().toLowerCase());
 			if (nl != null) {
+				journal(Operation.ADD_NEWS, news);
 				nl.add(news);
+				changed(EntityType.NEWS, news.getRubricName().toLowerCase());
 				state.getCoreStats().incrementNews();
 
-				if (Settings.getModelSettings().isSavingImmediately()) {
-					state.writeToFile();
-				}
+				saveState();
 
 				return response = RpcResponse.OK;
 			} else {
@@ -248,6 +423,7 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlock(EntityType.NEWS, lockName);
 			logResponse("PostNews", news, response);
 		}
 	}
@@ -255,8 +431,9 @@ public class RpcListener {
 	// ### Node
 	// #########################################################################################################
 	// Now only used to inform other nodes that going to suspend mode
-	public synchronized RpcResponse updateNodeStatus(String nodeName, Node.Status status) {
+	public RpcResponse updateNodeStatus(String nodeName, Node.Status status) {
 		RpcResponse response = null;
+		locks.lockExclusive();
 		try {
 			// Check Arguments
 			Node node = clusterManager.getState().getNodes().get(nodeName);
@@ -266,9 +443,8 @@ public class RpcListener {
 
 			// Set Status
 			node.setStatus(status);
-			if (Settings.getModelSettings().isSavingImmediately()) {
-				clusterManager.getState().writeToFile();
-			}
+			changed(EntityType.NODE, nodeName);
+			saveState();
 
 			clusterManager.checkQuorum();
 
@@ -277,12 +453,14 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlockExclusive();
 			logResponse("UpdateNodeStatus", nodeName + " to " + status, response);
 		}
 	}
 
-	public synchronized RpcResponse putNode(Node node) {
+	public RpcResponse putNode(Node node) {
 		RpcResponse response = null;
+		locks.lockExclusive();
 		try {
 			// Check for Quorum
 			if (!clusterManager.isQuorum()) {
@@ -300,10 +478,10 @@ public class RpcListener {
 			}
 
 			// Replace object
+			journal(Operation.PUT_NODE, node);
 			clusterManager.getState().getNodes().put(node.getName(), node);
-			if (Settings.getModelSettings().isSavingImmediately()) {
-				clusterManager.getState().writeToFile();
-			}
+			changed(EntityType.NODE, node.getName());
+			saveState();
 
 			clusterManager.checkQuorum();
 
@@ -312,12 +490,14 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlockExclusive();
 			logResponse("PutNode", node, response);
 		}
 	}
 
-	public synchronized RpcResponse deleteNode(String node) {
+	public RpcResponse deleteNode(String node) {
 		RpcResponse response = null;
+		locks.lockExclusive();
 		try {
 			// Check for Quorum
 			if (!clusterManager.isQuorum()) {
@@ -340,13 +520,13 @@ public class RpcListener {
 			// clusterManager.getTransmitterManager().disconnectFrom(t));
 
 			// Delete Object with same Name, if existing
+			journal(Operation.DELETE_NODE, node);
 			if (clusterManager.getState().getNodes().remove(node) == null) {
 				// Object not found
 				return response = RpcResponse.BAD_REQUEST;
 			} else {
-				if (Settings.getModelSettings().isSavingImmediately()) {
-					clusterManager.getState().writeToFile();
-				}
+				deleted(EntityType.NODE, node);
+				saveState();
 
 				clusterManager.checkQuorum();
 
@@ -356,14 +536,17 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlockExclusive();
 			logResponse("DeleteNode", node, response);
 		}
 	}
 
 	// ### Rubric
 	// #######################################################################################################
-	public synchronized RpcResponse putRubric(Rubric rubric) {
+	public RpcResponse putRubric(Rubric rubric) {
 		RpcResponse response = null;
+		final String lockName = rubric != null ? rubric.getName() : null;
+		locks.lock(EntityType.RUBRIC, lockName);
 		try {
 			// Check for Quorum
 			if (!clusterManager.isQuorum()) {
@@ -381,8 +564,10 @@ public class RpcListener {
 			}
 
 			// Replace object
+			journal(Operation.PUT_RUBRIC, rubric);
 			final String rubricName = rubric.getName().toLowerCase();
-			clusterManager.getState().getRubrics().put(rubricName, rubric);
+			clusterManager.getState().putRubric(rubricName, rubric);
+			changed(EntityType.RUBRIC, rubricName);
 
 			// Register new news list if missing
 			if (!clusterManager.getState().getNews().containsKey(rubricName)) {
@@ -390,11 +575,10 @@ public class RpcListener {
 				nl.setHandler(clusterManager.getTransmissionManager()::handleNews);
 				nl.setAddHandler(clusterManager.getTransmissionManager()::handleNewsAsCall);
 				clusterManager.getState().getNews().put(rubricName, nl);
+				changed(EntityType.NEWS, rubricName);
 			}
 
-			if (Settings.getModelSettings().isSavingImmediately()) {
-				clusterManager.getState().writeToFile();
-			}
+			saveState();
 
 			// Transmit new Rubric
 			clusterManager.getTransmissionManager().handleRubric(rubric);
@@ -404,12 +588,14 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlock(EntityType.RUBRIC, lockName);
 			logResponse("PutRubric", rubric, response);
 		}
 	}
 
-	public synchronized RpcResponse deleteRubric(String rubric) {
+	public RpcResponse deleteRubric(String rubric) {
 		RpcResponse response = null;
+		locks.lockExclusive();
 		try {
 			// Check for Quorum
 			if (!clusterManager.isQuorum()) {
@@ -421,18 +607,13 @@ public class RpcListener {
 				return response = RpcResponse.BAD_REQUEST;
 			}
 
-			rubric = rubric.toLowerCase();
-			// Remove news list as well
-			clusterManager.getState().getNews().remove(rubric);
-
-			// Delete Object with same Name, if existing
-			if (clusterManager.getState().getRubrics().remove(rubric) == null) {
+			// Delete Object with same Name and its News, if existing
+			journal(Operation.DELETE_RUBRIC, rubric);
+			if (clusterManager.getState().deleteRubric(rubric, deletions) == null) {
 				// Object not found
 				return response = RpcResponse.BAD_REQUEST;
 			} else {
-				if (Settings.getModelSettings().isSavingImmediately()) {
-					clusterManager.getState().writeToFile();
-				}
+				saveState();
 
 				return response = RpcResponse.OK;
 			}
@@ -440,22 +621,25 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlockExclusive();
 			logResponse("DeleteRubric", rubric, response);
 		}
 	}
 
 	// ### Transmitter
 	// ##################################################################################################
-	public synchronized RpcResponse updateTransmitterStatus(Transmitter updated) {
+	public RpcResponse updateTransmitterStatus(Transmitter updated) {
 		RpcResponse response = null;
 		String name = updated != null ? updated.getName() : null;
 
+		locks.lock(EntityType.TRANSMITTER, name);
 		try {
 			Transmitter transmitter = clusterManager.getState().getTransmitters().get(name);
 			if (transmitter == null) {
 				return response = RpcResponse.BAD_REQUEST;
 			}
 
+			journal(Operation.UPDATE_TRANSMITTER_STATUS, updated);
 			transmitter.setNodeName(updated.getNodeName());
 			transmitter.setStatus(updated.getStatus());
 			transmitter.setConnectedSince(updated.getConnectedSince());
@@ -464,22 +648,24 @@ public class RpcListener {
 			transmitter.setDeviceType(updated.getDeviceType());
 			transmitter.setDeviceVersion(updated.getDeviceVersion());
 			// transmitter.setLastUpdate(updated.getLastUpdate());
+			changed(EntityType.TRANSMITTER, name);
 
-			if (Settings.getModelSettings().isSavingImmediately()) {
-				clusterManager.getState().writeToFile();
-			}
+			saveState();
 
 			return response = RpcResponse.OK;
 		} catch (Exception e) {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlock(EntityType.TRANSMITTER, name);
 			logResponse("UpdateTransmitterStatus", name, response);
 		}
 	}
 
-	public synchronized RpcResponse putTransmitter(Transmitter transmitter) {
+	public RpcResponse putTransmitter(Transmitter transmitter) {
 		RpcResponse response = null;
+		final String lockName = transmitter != null ? transmitter.getName() : null;
+		locks.lock(EntityType.TRANSMITTER, lockName);
 		try {
 			// Check for Quorum
 			if (!clusterManager.isQuorum()) {
@@ -497,28 +683,30 @@ public class RpcListener {
 			}
 
 			// Replace object
+			journal(Operation.PUT_TRANSMITTER, transmitter);
 			Transmitter oldTransmitter = clusterManager.getState().getTransmitters()
 					.put(transmitter.getName().toLowerCase(), transmitter);
+			changed(EntityType.TRANSMITTER, transmitter.getName().toLowerCase());
 			if (oldTransmitter != null) {
 				// Disconnect from old transmitter
 				clusterManager.getTransmitterManager().disconnectFrom(oldTransmitter);
 			}
 
-			if (Settings.getModelSettings().isSavingImmediately()) {
-				clusterManager.getState().writeToFile();
-			}
+			saveState();
 
 			return response = RpcResponse.OK;
 		} catch (Exception e) {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlock(EntityType.TRANSMITTER, lockName);
 			logResponse("PutTransmitter", transmitter, response);
 		}
 	}
 
-	public synchronized RpcResponse deleteTransmitter(String transmitterName) {
+	public RpcResponse deleteTransmitter(String transmitterName) {
 		RpcResponse response = null;
+		locks.lockExclusive();
 		try {
 			// Check for Quorum
 			if (!clusterManager.isQuorum()) {
@@ -530,35 +718,18 @@ public class RpcListener {
 				return response = RpcResponse.BAD_REQUEST;
 			}
 
-			// Delete depended Objects
-			// Delete TransmitterGroups
-			ArrayList<String> deleteTransmitterGroupNames = new ArrayList<>();
-			clusterManager.getState().getTransmitterGroups().values().stream()
-					.filter(transmitterGroup -> transmitterGroup.getTransmitterNames().contains(transmitterName))
-					.forEach(transmitterGroup -> {
-						if (transmitterGroup.getTransmitterNames().size() == 1) {
-							// Delete all TransmitterGroups using only this
-							// Transmitter
-							deleteTransmitterGroupNames.add(transmitterGroup.getName());
-						} else {
-							// Remove this Transmitter from TransmitterGroup
-							// using more than this Transmitter
-							transmitterGroup.getTransmitterNames().remove(transmitterName);
-						}
-					});
-			deleteTransmitterGroupNames.stream().forEach(name -> deleteTransmitterGroup(name));
-
-			Transmitter transmitter = clusterManager.getState().getTransmitters().remove(transmitterName);
-			if (transmitter == null) {
+			// Delete Object with same Name and depended Objects, if existing
+			journal(Operation.DELETE_TRANSMITTER, transmitterName);
+			Transmitter removed = clusterManager.getState().deleteTransmitter(transmitterName, deletions);
+
+			// Transmitter groups have been changed
+			barrier();
+
+			if (removed == null) {
 				// Object not found
 				return response = RpcResponse.BAD_REQUEST;
 			} else {
-				if (Settings.getModelSettings().isSavingImmediately()) {
-					clusterManager.getState().writeToFile();
-				}
-
-				// Disconnect from transmitter
-				clusterManager.getTransmitterManager().disconnectFrom(transmitter);
+				saveState();
 
 				return response = RpcResponse.OK;
 			}
@@ -566,14 +737,17 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlockExclusive();
 			logResponse("DeleteTransmitter", transmitterName, response);
 		}
 	}
 
 	// ### TransmitterGroup
 	// #############################################################################################
-	public synchronized RpcResponse putTransmitterGroup(TransmitterGroup transmitterGroup) {
+	public RpcResponse putTransmitterGroup(TransmitterGroup transmitterGroup) {
 		RpcResponse response = null;
+		final String lockName = transmitterGroup != null ? transmitterGroup.getName() : null;
+		locks.lock(EntityType.TRANSMITTER_GROUP, lockName);
 		try {
 			// Check for Quorum
 			if (!clusterManager.isQuorum()) {
@@ -591,22 +765,24 @@ public class RpcListener {
 			}
 
 			// Replace object
-			clusterManager.getState().getTransmitterGroups().put(transmitterGroup.getName(), transmitterGroup);
-			if (Settings.getModelSettings().isSavingImmediately()) {
-				clusterManager.getState().writeToFile();
-			}
+			journal(Operation.PUT_TRANSMITTER_GROUP, transmitterGroup);
+			clusterManager.getState().putTransmitterGroup(transmitterGroup.getName(), transmitterGroup);
+			changed(EntityType.TRANSMITTER_GROUP, transmitterGroup.getName());
+			saveState();
 
 			return response = RpcResponse.OK;
 		} catch (Exception e) {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlock(EntityType.TRANSMITTER_GROUP, lockName);
 			logResponse("PutTransmitterGroup", transmitterGroup, response);
 		}
 	}
 
-	public synchronized RpcResponse deleteTransmitterGroup(String transmitterGroup) {
+	public RpcResponse deleteTransmitterGroup(String transmitterGroup) {
 		RpcResponse response = null;
+		locks.lockExclusive();
 		try {
 			// Check for Quorum
 			if (!clusterManager.isQuorum()) {
@@ -618,46 +794,18 @@ public class RpcListener {
 				return response = RpcResponse.BAD_REQUEST;
 			}
 
-			// Delete depended Objects
-			// Delete Rubrics
-			ArrayList<String> deleteRubricNames = new ArrayList<>();
-			clusterManager.getState().getRubrics().values().stream()
-					.filter(rubric -> rubric.getTransmitterGroupNames().contains(transmitterGroup)).forEach(rubric -> {
-						if (rubric.getTransmitterGroupNames().size() == 1) {
-							// Delete all Rubrics using only this
-							// TransmitterGroup
-							deleteRubricNames.add(rubric.getName());
-						} else {
-							// Remove this TransmitterGroup from Rubrics using
-							// more than this TransmitterGroup
-							rubric.getTransmitterGroupNames().remove(transmitterGroup);
-						}
-					});
-			deleteRubricNames.stream().forEach(name -> deleteRubric(name));
-
-			// Delete Calls
-			ArrayList<Call> deleteCalls = new ArrayList<>();
-			clusterManager.getState().getCalls().stream()
-					.filter(call -> call.getTransmitterGroupNames().contains(transmitterGroup)).forEach(call -> {
-						if (call.getTransmitterGroupNames().size() == 1) {
-							// Delete all Calls using only this TransmitterGroup
-							deleteCalls.add(call);
-						} else {
-							// Remove this TransmitterGroup from Calls using
-							// more than this TransmitterGroup
-							call.getTransmitterGroupNames().remove(transmitterGroup);
-						}
-					});
-			deleteCalls.stream().forEach(call -> clusterManager.getState().getCalls().remove(call));
+			// Delete Object with same Name and depended Objects, if existing
+			journal(Operation.DELETE_TRANSMITTER_GROUP, transmitterGroup);
+			TransmitterGroup removed = clusterManager.getState().deleteTransmitterGroup(transmitterGroup, deletions);
 
-			// Delete Object with same Name, if existing
-			if (clusterManager.getState().getTransmitterGroups().remove(transmitterGroup) == null) {
+			// Rubrics and calls have been changed
+			barrier();
+
+			if (removed == null) {
 				// Object not found
 				return response = RpcResponse.BAD_REQUEST;
 			} else {
-				if (Settings.getModelSettings().isSavingImmediately()) {
-					clusterManager.getState().writeToFile();
-				}
+				saveState();
 
 				return response = RpcResponse.OK;
 			}
@@ -665,14 +813,17 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlockExclusive();
 			logResponse("DeleteTransmitterGroup", transmitterGroup, response);
 		}
 	}
 
 	// ### User
 	// #########################################################################################################
-	public synchronized RpcResponse putUser(User user) {
+	public RpcResponse putUser(User user) {
 		RpcResponse response = null;
+		final String lockName = user != null ? user.getName() : null;
+		locks.lock(EntityType.USER, lockName);
 		try {
 			// Check for Quorum
 			if (!clusterManager.isQuorum()) {
@@ -690,22 +841,25 @@ public class RpcListener {
 			}
 
 			// Add new Object
+			journal(Operation.PUT_USER, user);
 			clusterManager.getState().getUsers().put(user.getName(), user);
-			if (Settings.getModelSettings().isSavingImmediately()) {
-				clusterManager.getState().writeToFile();
-			}
+			changed(EntityType.USER, user.getName());
+			clusterManager.getCredentialCache().invalidate(user.getName());
+			saveState();
 
 			return response = RpcResponse.OK;
 		} catch (Exception e) {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlock(EntityType.USER, lockName);
 			logResponse("PutUser", user, response);
 		}
 	}
 
-	public synchronized RpcResponse deleteUser(String user) {
+	public RpcResponse deleteUser(String user) {
 		RpcResponse response = null;
+		locks.lockExclusive();
 		try {
 			// Check for Quorum
 			if (!clusterManager.isQuorum()) {
@@ -717,85 +871,18 @@ public class RpcListener {
 				return response = RpcResponse.BAD_REQUEST;
 			}
 
-			// Delete depended Objects
-			// Delete CallSigns
-			ArrayList<String> deleteCallSignNames = new ArrayList<>();
-			clusterManager.getState().getCallSigns().values().stream()
-					.filter(callSign -> callSign.getOwnerNames().contains(user)).forEach(callSign -> {
-						if (callSign.getOwnerNames().size() == 1) {
-							// Delete all CallSigns which have only this Owner
-							deleteCallSignNames.add(callSign.getName());
-						} else {
-							// Remove this Owner from Calls which have more than
-							// this Owner
-							callSign.getOwnerNames().remove(user);
-						}
-					});
-			deleteCallSignNames.stream().forEach(name -> deleteCallSign(name));
-
-			// Delete Calls
-			ArrayList<Call> deleteCalls = new ArrayList<>();
-			clusterManager.getState().getCalls().stream().filter(call -> call.getOwnerName().equalsIgnoreCase(user))
-					.forEach(call -> deleteCalls.add(call));
-			deleteCalls.stream().forEach(call -> clusterManager.getState().getCalls().remove(call));
-
-			// Delete Rubrics
-			ArrayList<String> deleteRubricNames = new ArrayList<>();
-			clusterManager.getState().getRubrics().values().stream()
-					.filter(rubric -> rubric.getOwnerNames().contains(user)).forEach(rubric -> {
-						if (rubric.getOwnerNames().size() == 1) {
-							// Delete all Rubrics which have only this Owner
-							deleteRubricNames.add(rubric.getName());
-						} else {
-							// Remove this Owner from Rubric which have more
-							// than this Owner
-							rubric.getOwnerNames().remove(user);
-						}
-					});
-			// Delete news first
-			deleteRubricNames.stream().forEach(name -> clusterManager.getState().getNews().remove(name));
-			deleteRubricNames.stream().forEach(name -> deleteRubric(name));
-
-			// Delete TransmitterGroups
-			ArrayList<String> deleteTransmitterGroupNames = new ArrayList<>();
-			clusterManager.getState().getTransmitterGroups().values().stream()
-					.filter(transmitterGroup -> transmitterGroup.getOwnerNames().contains(user))
-					.forEach(transmitterGroup -> {
-						if (transmitterGroup.getOwnerNames().size() == 1) {
-							// Delete all TransmitterGroups which have only this
-							// Owner
-							deleteTransmitterGroupNames.add(transmitterGroup.getName());
-						} else {
-							// Remove this Owner from TransmitterGroups which
-							// have more than this Owner
-							transmitterGroup.getOwnerNames().remove(user);
-						}
-					});
-			deleteTransmitterGroupNames.stream().forEach(name -> deleteTransmitterGroup(name));
-
-			// Delete Transmitter
-			ArrayList<String> deleteTransmitterNames = new ArrayList<>();
-			clusterManager.getState().getTransmitters().values().stream()
-					.filter(transmitter -> transmitter.getOwnerNames().contains(user)).forEach(transmitter -> {
-						if (transmitter.getOwnerNames().size() == 1) {
-							// Delete all Transmitter which have only this Owner
-							deleteTransmitterNames.add(transmitter.getName());
-						} else {
-							// Remove this Owner from Transmitters which have
-							// more than this Owner
-							transmitter.getOwnerNames().remove(user);
-						}
-					});
-			deleteTransmitterNames.stream().forEach(name -> deleteTransmitter(name));
+			// Delete Object with same Name and depended Objects, if existing
+			journal(Operation.DELETE_USER, user);
+			User removed = clusterManager.getState().deleteUser(user, deletions);
 
-			// Delete Object with same Name, if existing
-			if (clusterManager.getState().getUsers().remove(user) == null) {
+			// Owned objects and calls have been changed
+			barrier();
+
+			if (removed == null) {
 				// Object not found
 				return response = RpcResponse.BAD_REQUEST;
 			} else {
-				if (Settings.getModelSettings().isSavingImmediately()) {
-					clusterManager.getState().writeToFile();
-				}
+				saveState();
 
 				return response = RpcResponse.OK;
 			}
@@ -803,12 +890,14 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlockExclusive();
 			logResponse("DeleteUser", user, response);
 		}
 	}
 
-	public synchronized RpcResponse sendRubricNames(String transmitterName) {
+	public RpcResponse sendRubricNames(String transmitterName) {
 		RpcResponse response = null;
+		locks.lock(EntityType.TRANSMITTER, transmitterName);
 		try {
 			if (!clusterManager.getState().getTransmitters().containsKey(transmitterName)) {
 				return RpcResponse.BAD_REQUEST;
@@ -824,6 +913,7 @@ public class RpcListener {
 			logger.error("Exception : ", e);
 			return response = RpcResponse.INTERNAL_ERROR;
 		} finally {
+			locks.unlock(EntityType.TRANSMITTER, transmitterName);
 			logResponse("SendRubricNames", transmitterName, response);
 		}
 	}
@@ -0,0 +1,38 @@
+package org.dapnet.core.cluster;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.dapnet.core.cluster.StateRevisions.Changes;
+import org.dapnet.core.cluster.StateRevisions.EntityKey;
+
+/**
+ * Changes of the state a rejoining member is missing. Contains the current
+ * value of every changed entity, deleted entities and added calls.
+ */
+final class StateDelta implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	private final Changes changes;
+	private final HashMap<EntityKey, Object> entities = new HashMap<>();
+
+	public StateDelta(Changes changes) {
+		this.changes = changes;
+	}
+
+	public Changes getChanges() {
+		return changes;
+	}
+
+	public Map<EntityKey, Object> getEntities() {
+		return entities;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("StateDelta{changed=%d, deleted=%d, calls=%d}", entities.size(),
+				changes.getDeleted().size(), changes.getCalls().size());
+	}
+
+}
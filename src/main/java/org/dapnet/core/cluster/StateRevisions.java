@@ -0,0 +1,670 @@
+package org.dapnet.core.cluster;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dapnet.core.cluster.EntityLocks.EntityType;
+import org.dapnet.core.model.Call;
+
+/**
+ * Tracks the revisions of the state for delta state transfers.
+ * <p>
+ * Every state mutation is sent as a {@link Mutation} carrying a revision, i.e.
+ * the origin node and a sequence number assigned by the origin. The set of
+ * applied revisions forms the version vector of the local state. For every
+ * entity the revision of its last change or of its deletion is kept, added
+ * calls are kept in a bounded log.
+ * <p>
+ * A member rejoining the cluster advertises its version vector and receives
+ * only the entities and calls changed since. Mutations which cannot be
+ * expressed as a delta (cascading deletes, evicted log entries) are recorded as
+ * barriers, members missing them need a full state transfer.
+ */
+final class StateRevisions {
+
+	private static final Logger logger = LogManager.getLogger();
+	// Mutations received after a missing one until a state transfer is forced
+	private static final int MAX_PENDING = 1024;
+	private static final ThreadLocal<Revision> current = new ThreadLocal<>();
+	private final ReadWriteLock transferLock = new ReentrantReadWriteLock();
+	private final VersionVector versions = new VersionVector();
+	private final ConcurrentMap<String, Long> barriers = new ConcurrentHashMap<>();
+	private final ConcurrentMap<EntityKey, Revision> entities = new ConcurrentHashMap<>();
+	private final ConcurrentMap<EntityKey, Revision> deleted = new ConcurrentHashMap<>();
+	private final Deque<CallRevision> calls = new ArrayDeque<>();
+	private final AtomicReference<String> transferRequired = new AtomicReference<>();
+	private volatile boolean transferRequested;
+	private final int window;
+	private volatile boolean anchored;
+
+	/**
+	 * Creates a new revision tracker.
+	 *
+	 * @param window Maximum number of calls and deleted entities kept for delta
+	 *               transfers
+	 */
+	public StateRevisions(int window) {
+		this.window = window;
+	}
+
+	/**
+	 * Starts applying a mutation on the current thread.
+	 *
+	 * @param origin   Origin of the mutation
+	 * @param sequence Sequence number assigned by the origin
+	 * @return {@code false} if the mutation has already been applied, e.g. as
+	 *         part of a delta state transfer.
+	 */
+	public boolean begin(String origin, long sequence) {
+		transferLock.readLock().lock();
+		if (!versions.add(origin, sequence)) {
+			transferLock.readLock().unlock();
+			return false;
+		}
+
+		if (!transferRequested && versions.getPendingCount(origin) > MAX_PENDING
+				&& transferRequired.compareAndSet(null, origin)) {
+			logger.warn("Missed a mutation of {}, {} later mutations pending. State transfer required.", origin,
+					MAX_PENDING);
+		}
+
+		current.set(new Revision(origin, sequence));
+		return true;
+	}
+
+	/**
+	 * Returns and clears the origin whose missing mutation can no longer be
+	 * expected to arrive. Too many mutations of it have been received since, the
+	 * gap must be filled by a full state transfer. No further transfer is
+	 * required until the state has been replaced or the transfer has failed.
+	 *
+	 * @return Origin or {@code null} if no transfer is required
+	 */
+	public String takeTransferRequired() {
+		String origin = transferRequired.getAndSet(null);
+		if (origin != null) {
+			transferRequested = true;
+		}
+
+		return origin;
+	}
+
+	/**
+	 * Allows to require another state transfer after the requested one failed.
+	 */
+	public void transferFailed() {
+		transferRequested = false;
+	}
+
+	/**
+	 * Ends the mutation started by {@link #begin(String, long)}.
+	 */
+	public void end() {
+		current.remove();
+		transferLock.readLock().unlock();
+	}
+
+	/**
+	 * Records a changed entity.
+	 *
+	 * @param type Entity type
+	 * @param key  Key of the entity in its state map
+	 */
+	public void changed(EntityType type, String key) {
+		Revision rev = current.get();
+		if (rev != null && key != null) {
+			EntityKey entity = new EntityKey(type, key);
+			deleted.remove(entity);
+			entities.put(entity, rev);
+		}
+	}
+
+	/**
+	 * Records a deleted entity.
+	 *
+	 * @param type Entity type
+	 * @param key  Key of the entity in its state map
+	 */
+	public void deleted(EntityType type, String key) {
+		Revision rev = current.get();
+		if (rev != null && key != null) {
+			EntityKey entity = new EntityKey(type, key);
+			entities.remove(entity);
+			deleted.put(entity, rev);
+
+			if (deleted.size() > window) {
+				evictDeleted();
+			}
+		}
+	}
+
+	/**
+	 * Records an added call.
+	 *
+	 * @param call Call
+	 */
+	public void callAdded(Call call) {
+		Revision rev = current.get();
+		if (rev == null) {
+			return;
+		}
+
+		synchronized (calls) {
+			calls.addLast(new CallRevision(rev, call));
+			if (calls.size() > window) {
+				setBarrier(calls.removeFirst().revision);
+			}
+		}
+	}
+
+	/**
+	 * Records a mutation which cannot be transferred as a delta, e.g. a cascading
+	 * delete.
+	 */
+	public void barrier() {
+		Revision rev = current.get();
+		if (rev != null) {
+			setBarrier(rev);
+		}
+	}
+
+	/**
+	 * Returns whether the version vector describes the whole local state, i.e. the
+	 * state has been received by a state transfer or this node created the
+	 * cluster.
+	 *
+	 * @return {@code true} if delta transfers are possible.
+	 */
+	public boolean isAnchored() {
+		return anchored;
+	}
+
+	/**
+	 * Marks the local state as the origin of the cluster state.
+	 */
+	public void anchor() {
+		anchored = true;
+	}
+
+	/**
+	 * Returns a copy of the version vector.
+	 *
+	 * @return Version vector
+	 */
+	public VersionVector getVersions() {
+		return versions.copy();
+	}
+
+	/**
+	 * Returns the lock which must be held exclusively while the state and its
+	 * revisions are transferred or replaced. Applying mutations holds the shared
+	 * lock.
+	 *
+	 * @return Transfer lock
+	 */
+	public ReadWriteLock getTransferLock() {
+		return transferLock;
+	}
+
+	/**
+	 * Computes the revisions a member with the given version vector is missing.
+	 * The transfer lock must be held exclusively.
+	 *
+	 * @param remote Version vector of the remote member
+	 * @return Missing revisions or {@code null} if a full state transfer is
+	 *         required.
+	 */
+	public Changes getChangesSince(VersionVector remote) {
+		// Mutations of the remote member unknown here cannot be reverted
+		if (!versions.containsAll(remote)) {
+			return null;
+		}
+
+		for (Map.Entry<String, Long> e : barriers.entrySet()) {
+			if (!remote.containsPrefix(e.getKey(), e.getValue())) {
+				return null;
+			}
+		}
+
+		Changes changes = new Changes(versions.copy(), new HashMap<>(barriers));
+		entities.forEach((k, v) -> {
+			if (!remote.contains(v)) {
+				changes.changed.put(k, v);
+			}
+		});
+		deleted.forEach((k, v) -> {
+			if (!remote.contains(v)) {
+				changes.deleted.put(k, v);
+			}
+		});
+		synchronized (calls) {
+			for (CallRevision c : calls) {
+				if (!remote.contains(c.revision)) {
+					changes.calls.add(c);
+				}
+			}
+		}
+
+		return changes;
+	}
+
+	/**
+	 * Returns all revisions, sent with full state transfers. The transfer lock
+	 * must be held exclusively.
+	 *
+	 * @return All revisions
+	 */
+	public Changes getAll() {
+		Changes all = new Changes(versions.copy(), new HashMap<>(barriers));
+		all.changed.putAll(entities);
+		all.deleted.putAll(deleted);
+		synchronized (calls) {
+			all.calls.addAll(calls);
+		}
+
+		return all;
+	}
+
+	/**
+	 * Replaces all revisions after a full state transfer. The transfer lock must
+	 * be held exclusively.
+	 *
+	 * @param all Revisions received with the state
+	 */
+	public void reset(Changes all) {
+		versions.clear();
+		barriers.clear();
+		entities.clear();
+		deleted.clear();
+		synchronized (calls) {
+			calls.clear();
+		}
+
+		apply(all);
+		anchored = true;
+		transferRequired.set(null);
+		transferRequested = false;
+	}
+
+	/**
+	 * Checks if a local entity has been changed by a mutation the sender of a
+	 * delta did not know about. Such an entity must not be replaced by the delta.
+	 *
+	 * @param key    Entity key
+	 * @param remote Version vector of the delta
+	 * @return {@code true} if the local entity is newer.
+	 */
+	public boolean isNewer(EntityKey key, VersionVector remote) {
+		Revision rev = entities.get(key);
+		if (rev == null) {
+			rev = deleted.get(key);
+		}
+
+		return rev != null && !remote.contains(rev);
+	}
+
+	/**
+	 * Returns the revision of the last change or deletion of an entity.
+	 *
+	 * @param key Entity key
+	 * @return Revision or {@code null} if unknown
+	 */
+	public Revision getRevision(EntityKey key) {
+		Revision rev = entities.get(key);
+		return rev != null ? rev : deleted.get(key);
+	}
+
+	/**
+	 * Records an entity replaced by an anti-entropy repair. The version vector is
+	 * not changed since the mutation of the revision has not been applied.
+	 *
+	 * @param key      Entity key
+	 * @param revision Revision of the received entity, may be {@code null}
+	 * @param removed  {@code true} if the entity has been deleted
+	 */
+	public void repaired(EntityKey key, Revision revision, boolean removed) {
+		if (revision == null) {
+			entities.remove(key);
+			deleted.remove(key);
+		} else if (removed) {
+			entities.remove(key);
+			deleted.put(key, revision);
+		} else {
+			deleted.remove(key);
+			entities.put(key, revision);
+		}
+	}
+
+	/**
+	 * Checks if the mutation of the given revision has been applied.
+	 *
+	 * @param revision Revision
+	 * @return {@code true} if the mutation has been applied.
+	 */
+	public boolean contains(Revision revision) {
+		return versions.contains(revision);
+	}
+
+	/**
+	 * Applies the revisions of a delta state transfer. The transfer lock must be
+	 * held exclusively.
+	 *
+	 * @param changes Revisions received with the delta
+	 */
+	public void apply(Changes changes) {
+		changes.barriers.forEach((k, v) -> barriers.merge(k, v, Math::max));
+		changes.changed.forEach((k, v) -> {
+			if (!isNewer(k, changes.versions)) {
+				deleted.remove(k);
+				entities.put(k, v);
+			}
+		});
+		changes.deleted.forEach((k, v) -> {
+			if (!isNewer(k, changes.versions)) {
+				entities.remove(k);
+				deleted.put(k, v);
+			}
+		});
+
+		synchronized (calls) {
+			for (CallRevision c : changes.calls) {
+				if (!versions.contains(c.revision)) {
+					calls.addLast(c);
+				}
+			}
+
+			while (calls.size() > window) {
+				setBarrier(calls.removeFirst().revision);
+			}
+		}
+
+		versions.addAll(changes.versions);
+
+		while (deleted.size() > window) {
+			evictDeleted();
+		}
+	}
+
+	private void evictDeleted() {
+		// Evict the oldest tombstone of any origin
+		EntityKey oldestKey = null;
+		Revision oldest = null;
+		for (Map.Entry<EntityKey, Revision> e : deleted.entrySet()) {
+			if (oldest == null || e.getValue().sequence < oldest.sequence) {
+				oldestKey = e.getKey();
+				oldest = e.getValue();
+			}
+		}
+
+		if (oldestKey != null && deleted.remove(oldestKey, oldest)) {
+			setBarrier(oldest);
+		}
+	}
+
+	private void setBarrier(Revision rev) {
+		barriers.merge(rev.origin, rev.sequence, Math::max);
+	}
+
+	/**
+	 * Revision of a mutation.
+	 */
+	static final class Revision implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final String origin;
+		private final long sequence;
+
+		Revision(String origin, long sequence) {
+			this.origin = origin;
+			this.sequence = sequence;
+		}
+
+		/**
+		 * Orders revisions deterministically, the same on all members. Revisions of
+		 * the same origin are ordered by sequence number, otherwise by origin.
+		 */
+		static int compare(Revision a, Revision b) {
+			if (a == null || b == null) {
+				return a == b ? 0 : (a == null ? -1 : 1);
+			}
+
+			int result = a.origin.compareTo(b.origin);
+			return result != 0 ? result : Long.compare(a.sequence, b.sequence);
+		}
+
+		@Override
+		public String toString() {
+			return origin + ":" + sequence;
+		}
+	}
+
+	/**
+	 * Set of applied revisions. For each origin, the sequence numbers up to a
+	 * prefix have been applied plus the sequence numbers of mutations received
+	 * out of order, e.g. while a delta state transfer is in progress.
+	 * <p>
+	 * An origin only consumes a sequence number once the mutation has been sent,
+	 * so a missing sequence number is a mutation missed here. It is never
+	 * skipped: the prefix stays below it until a state transfer fills the gap,
+	 * so the transfer includes the missed mutation.
+	 */
+	static final class VersionVector implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final HashMap<String, Long> prefix = new HashMap<>();
+		private final HashMap<String, TreeSet<Long>> pending = new HashMap<>();
+
+		synchronized boolean add(String origin, long sequence) {
+			if (sequence <= prefix.getOrDefault(origin, 0L)) {
+				return false;
+			}
+
+			TreeSet<Long> set = pending.computeIfAbsent(origin, k -> new TreeSet<>());
+			if (!set.add(sequence)) {
+				return false;
+			}
+
+			advance(origin, prefix.getOrDefault(origin, 0L));
+			return true;
+		}
+
+		synchronized void addAll(VersionVector other) {
+			VersionVector copy = other.copy();
+			copy.prefix.forEach((origin, last) -> {
+				if (last > prefix.getOrDefault(origin, 0L)) {
+					TreeSet<Long> set = pending.get(origin);
+					if (set != null) {
+						set.headSet(last, true).clear();
+					}
+
+					advance(origin, last);
+				}
+			});
+
+			copy.pending.forEach((origin, set) -> set.forEach(s -> add(origin, s)));
+		}
+
+		private void advance(String origin, long last) {
+			// Advance the prefix over contiguous sequence numbers
+			TreeSet<Long> set = pending.get(origin);
+			while (set != null && !set.isEmpty() && set.first() == last + 1) {
+				last = set.pollFirst();
+			}
+
+			prefix.put(origin, last);
+			if (set != null && set.isEmpty()) {
+				pending.remove(origin);
+			}
+		}
+
+		synchronized int getPendingCount(String origin) {
+			TreeSet<Long> set = pending.get(origin);
+			return set != null ? set.size() : 0;
+		}
+
+		synchronized boolean contains(Revision rev) {
+			if (rev.sequence <= prefix.getOrDefault(rev.origin, 0L)) {
+				return true;
+			}
+
+			TreeSet<Long> set = pending.get(rev.origin);
+			return set != null && set.contains(rev.sequence);
+		}
+
+		synchronized boolean containsPrefix(String origin, long sequence) {
+			return prefix.getOrDefault(origin, 0L) >= sequence;
+		}
+
+		synchronized boolean containsAll(VersionVector other) {
+			VersionVector copy = other.copy();
+			for (Map.Entry<String, Long> e : copy.prefix.entrySet()) {
+				long last = prefix.getOrDefault(e.getKey(), 0L);
+				TreeSet<Long> set = pending.get(e.getKey());
+				for (long s = last + 1; s <= e.getValue(); ++s) {
+					if (set == null || !set.contains(s)) {
+						return false;
+					}
+				}
+			}
+
+			for (Map.Entry<String, TreeSet<Long>> e : copy.pending.entrySet()) {
+				for (Long s : e.getValue()) {
+					if (!contains(new Revision(e.getKey(), s))) {
+						return false;
+					}
+				}
+			}
+
+			return true;
+		}
+
+		synchronized VersionVector copy() {
+			VersionVector copy = new VersionVector();
+			copy.prefix.putAll(prefix);
+			pending.forEach((k, v) -> copy.pending.put(k, new TreeSet<>(v)));
+			return copy;
+		}
+
+		synchronized void clear() {
+			prefix.clear();
+			pending.clear();
+		}
+
+		@Override
+		public synchronized String toString() {
+			return prefix.toString();
+		}
+	}
+
+	/**
+	 * Key of an entity in the state.
+	 */
+	static final class EntityKey implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final EntityType type;
+		private final String key;
+
+		EntityKey(EntityType type, String key) {
+			this.type = type;
+			this.key = key;
+		}
+
+		EntityType getType() {
+			return type;
+		}
+
+		String getKey() {
+			return key;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(type, key);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof EntityKey)) {
+				return false;
+			}
+
+			EntityKey other = (EntityKey) obj;
+			return type == other.type && key.equals(other.key);
+		}
+
+		@Override
+		public String toString() {
+			return type + ":" + key;
+		}
+	}
+
+	/**
+	 * Revision of an added call.
+	 */
+	static final class CallRevision implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final Revision revision;
+		private final Call call;
+
+		CallRevision(Revision revision, Call call) {
+			this.revision = revision;
+			this.call = call;
+		}
+
+		Revision getRevision() {
+			return revision;
+		}
+
+		Call getCall() {
+			return call;
+		}
+	}
+
+	/**
+	 * Revisions sent with a state transfer.
+	 */
+	static final class Changes implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final VersionVector versions;
+		private final HashMap<String, Long> barriers;
+		private final HashMap<EntityKey, Revision> changed = new HashMap<>();
+		private final HashMap<EntityKey, Revision> deleted = new HashMap<>();
+		private final List<CallRevision> calls = new ArrayList<>();
+
+		Changes(VersionVector versions, HashMap<String, Long> barriers) {
+			this.versions = versions;
+			this.barriers = barriers;
+		}
+
+		VersionVector getVersions() {
+			return versions;
+		}
+
+		Map<EntityKey, Revision> getChanged() {
+			return changed;
+		}
+
+		Map<EntityKey, Revision> getDeleted() {
+			return deleted;
+		}
+
+		List<CallRevision> getCalls() {
+			return calls;
+		}
+	}
+
+}
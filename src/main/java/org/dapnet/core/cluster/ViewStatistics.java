@@ -0,0 +1,89 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.cluster;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class ViewStatistics {
+
+	private final AtomicLong viewsReceived = new AtomicLong();
+	private final AtomicLong viewsSkipped = new AtomicLong();
+	private final AtomicLong viewsHandled = new AtomicLong();
+	private final AtomicLong handlingTime = new AtomicLong();
+	private final AtomicLong maxHandlingTime = new AtomicLong();
+
+	/**
+	 * Gets the number of views received from the channel.
+	 * 
+	 * @return Number of received views
+	 */
+	public long getViewsReceived() {
+		return viewsReceived.get();
+	}
+
+	/**
+	 * Increments the number of received views.
+	 */
+	void incrementViewsReceived() {
+		viewsReceived.incrementAndGet();
+	}
+
+	/**
+	 * Gets the number of views replaced by a newer view before being handled.
+	 * 
+	 * @return Number of skipped views
+	 */
+	public long getViewsSkipped() {
+		return viewsSkipped.get();
+	}
+
+	/**
+	 * Increments the number of skipped views.
+	 */
+	void incrementViewsSkipped() {
+		viewsSkipped.incrementAndGet();
+	}
+
+	/**
+	 * Gets the number of handled views.
+	 * 
+	 * @return Number of handled views
+	 */
+	public long getViewsHandled() {
+		return viewsHandled.get();
+	}
+
+	/**
+	 * Gets the total time spent handling views.
+	 * 
+	 * @return Handling time in milliseconds
+	 */
+	public long getHandlingTime() {
+		return TimeUnit.NANOSECONDS.toMillis(handlingTime.get());
+	}
+
+	/**
+	 * Gets the longest time spent handling a single view.
+	 * 
+	 * @return Handling time in milliseconds
+	 */
+	public long getMaxHandlingTime() {
+		return TimeUnit.NANOSECONDS.toMillis(maxHandlingTime.get());
+	}
+
+	/**
+	 * Records a handled view.
+	 * 
+	 * @param nanos Handling time in nanoseconds
+	 */
+	void addHandled(long nanos) {
+		viewsHandled.incrementAndGet();
+		handlingTime.addAndGet(nanos);
+		maxHandlingTime.accumulateAndGet(nanos, Math::max);
+	}
+
+}
@@ -97,6 +97,10 @@ public class Call implements Serializable {
 		return emergency;
 	}
 
+	public void setEmergency(boolean emergency) {
+		this.emergency = emergency;
+	}
+
 	public static void setState(State statePar) {
 		state = statePar;
 	}
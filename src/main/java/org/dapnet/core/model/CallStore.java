@@ -0,0 +1,280 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.model;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Call store ordered by timestamp. Calls with equal timestamps are kept in
+ * insertion order. Calls are compared by identity, the same call may be stored
+ * once only.
+ * <p>
+ * Adding and removing calls does not block readers or other writers. Iterators
+ * are weakly consistent, they never throw a
+ * {@link java.util.ConcurrentModificationException} and do not require a lock.
+ */
+public final class CallStore extends AbstractCollection<Call> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	private transient ConcurrentSkipListMap<Key, Call> calls;
+	private transient ConcurrentMap<Call, Key> keys;
+	private transient AtomicLong sequence;
+	private transient AtomicInteger size;
+
+	/**
+	 * Creates a new empty call store.
+	 */
+	public CallStore() {
+		init();
+	}
+
+	/**
+	 * Creates a new call store containing the given calls.
+	 *
+	 * @param calls Calls to add
+	 */
+	public CallStore(Collection<Call> calls) {
+		init();
+		addAll(calls);
+	}
+
+	private void init() {
+		calls = new ConcurrentSkipListMap<>();
+		keys = new ConcurrentHashMap<>();
+		sequence = new AtomicLong();
+		size = new AtomicInteger();
+	}
+
+	@Override
+	public boolean add(Call call) {
+		if (call == null) {
+			throw new NullPointerException("call");
+		}
+
+		Key key = new Key(call.getTimestamp(), sequence.incrementAndGet());
+		if (keys.putIfAbsent(call, key) != null) {
+			return false;
+		}
+
+		calls.put(key, call);
+		size.incrementAndGet();
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		Key key = keys.remove(o);
+		if (key == null || calls.remove(key) == null) {
+			return false;
+		}
+
+		size.decrementAndGet();
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return keys.containsKey(o);
+	}
+
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public void clear() {
+		Iterator<Call> it = iterator();
+		while (it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+
+	@Override
+	public Iterator<Call> iterator() {
+		return new CallIterator(calls);
+	}
+
+	@Override
+	public Spliterator<Call> spliterator() {
+		return spliterator(calls);
+	}
+
+	/**
+	 * Returns a view of the calls with a timestamp in the given range. The view
+	 * is backed by the store and is not copied.
+	 *
+	 * @param from Start of the range (inclusive) or {@code null}
+	 * @param to   End of the range (exclusive) or {@code null}
+	 * @return Calls in timestamp order
+	 */
+	public Collection<Call> getRange(Instant from, Instant to) {
+		NavigableMap<Key, Call> range = calls;
+		if (from != null) {
+			range = range.tailMap(Key.first(from), true);
+		}
+
+		if (to != null) {
+			range = range.headMap(Key.first(to), false);
+		}
+
+		final NavigableMap<Key, Call> view = range;
+		return new AbstractCollection<Call>() {
+			@Override
+			public Iterator<Call> iterator() {
+				return new CallIterator(view);
+			}
+
+			@Override
+			public Spliterator<Call> spliterator() {
+				return CallStore.this.spliterator(view);
+			}
+
+			@Override
+			public int size() {
+				return view.size();
+			}
+		};
+	}
+
+	private Spliterator<Call> spliterator(NavigableMap<Key, Call> map) {
+		// The size of a view is not known without counting
+		return Spliterators.spliteratorUnknownSize(new CallIterator(map),
+				Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.CONCURRENT);
+	}
+
+	/**
+	 * Removes the oldest call if its timestamp is before the given instant.
+	 * Expired calls are removed in timestamp order, so this never scans calls
+	 * which are kept.
+	 *
+	 * @param before Expiration instant
+	 * @return Removed call or {@code null} if the oldest call is not expired
+	 */
+	public Call pollExpired(Instant before) {
+		Key limit = Key.first(before);
+		Map.Entry<Key, Call> e;
+		while ((e = calls.firstEntry()) != null && e.getKey().compareTo(limit) < 0) {
+			// Concurrently removed calls are skipped
+			if (calls.remove(e.getKey(), e.getValue())) {
+				keys.remove(e.getValue(), e.getKey());
+				size.decrementAndGet();
+				return e.getValue();
+			}
+		}
+
+		return null;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+
+		Object[] snapshot = toArray();
+		out.writeInt(snapshot.length);
+		for (Object call : snapshot) {
+			out.writeObject(call);
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		init();
+
+		int count = in.readInt();
+		for (int i = 0; i < count; ++i) {
+			add((Call) in.readObject());
+		}
+	}
+
+	/**
+	 * Iterator removing the key of a call as well.
+	 */
+	private final class CallIterator implements Iterator<Call> {
+		private final Iterator<Map.Entry<Key, Call>> it;
+		private Map.Entry<Key, Call> last;
+
+		CallIterator(NavigableMap<Key, Call> map) {
+			it = map.entrySet().iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return it.hasNext();
+		}
+
+		@Override
+		public Call next() {
+			last = it.next();
+			return last.getValue();
+		}
+
+		@Override
+		public void remove() {
+			if (last == null) {
+				throw new IllegalStateException();
+			}
+
+			if (calls.remove(last.getKey(), last.getValue())) {
+				keys.remove(last.getValue(), last.getKey());
+				size.decrementAndGet();
+			}
+
+			last = null;
+		}
+	}
+
+	/**
+	 * Ordering key of a call.
+	 */
+	private static final class Key implements Comparable<Key> {
+		private final long seconds;
+		private final int nanos;
+		private final long sequence;
+
+		Key(Instant timestamp, long sequence) {
+			// Calls without timestamp are ordered first
+			this.seconds = timestamp != null ? timestamp.getEpochSecond() : Long.MIN_VALUE;
+			this.nanos = timestamp != null ? timestamp.getNano() : 0;
+			this.sequence = sequence;
+		}
+
+		static Key first(Instant timestamp) {
+			return new Key(timestamp, Long.MIN_VALUE);
+		}
+
+		@Override
+		public int compareTo(Key o) {
+			int result = Long.compare(seconds, o.seconds);
+			if (result == 0) {
+				result = Integer.compare(nanos, o.nanos);
+			}
+
+			if (result == 0) {
+				result = Long.compare(sequence, o.sequence);
+			}
+
+			return result;
+		}
+	}
+
+}
@@ -10,6 +10,14 @@ public class CoreStatistics implements Serializable {
 	private AtomicLong calls = new AtomicLong();
 	private AtomicLong news = new AtomicLong();
 
+	public CoreStatistics() {
+	}
+
+	CoreStatistics(long calls, long news) {
+		this.calls.set(calls);
+		this.news.set(news);
+	}
+
 	public long getCalls() {
 		return calls.get();
 	}
@@ -17,9 +17,20 @@ package org.dapnet.core.model;
 import java.io.Serializable;
 
 public class ModelSettings implements Serializable {
+
+	/**
+	 * Format of state snapshots.
+	 */
+	public enum SnapshotFormat {
+		JSON, BINARY
+	}
+
 	private static final long serialVersionUID = 5048489519878548934L;
 	private String stateFile = "data/State.json";
 	private boolean savingImmediately = false;
+	private boolean journaling = true;
+	private int snapshotGenerations = 3;
+	private SnapshotFormat snapshotFormat = SnapshotFormat.JSON;
 	private long callExpirationTimeInMinutes = 24 * 60;
 	private long newsExpirationTimeInMinutes = 24 * 60;
 	private long transmitterExpirationDays = 60;
@@ -32,6 +43,36 @@ public class ModelSettings implements Serializable {
 		return savingImmediately;
 	}
 
+	/**
+	 * Returns whether state mutations are appended to a journal next to the state
+	 * file. If enabled, mutations are durable without rewriting the whole state
+	 * file, regardless of {@link #isSavingImmediately()}.
+	 * 
+	 * @return {@code true} if journaling is enabled.
+	 */
+	public boolean isJournaling() {
+		return journaling;
+	}
+
+	/**
+	 * Returns the number of previous state snapshots kept next to the state file.
+	 * 
+	 * @return Number of snapshot generations
+	 */
+	public int getSnapshotGenerations() {
+		return snapshotGenerations;
+	}
+
+	/**
+	 * Returns the format used to write state snapshots. Snapshots are read in
+	 * either format.
+	 * 
+	 * @return Snapshot format
+	 */
+	public SnapshotFormat getSnapshotFormat() {
+		return snapshotFormat != null ? snapshotFormat : SnapshotFormat.JSON;
+	}
+
 	public long getCallExpirationTimeInMinutes() {
 		return callExpirationTimeInMinutes;
 	}
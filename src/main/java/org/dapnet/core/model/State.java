@@ -14,15 +14,21 @@
 
 package org.dapnet.core.model;
 
-import java.io.File;
+import java.io.BufferedInputStream;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -32,10 +38,12 @@ import javax.validation.constraints.NotNull;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.dapnet.core.Settings;
+import org.dapnet.core.model.ModelSettings.SnapshotFormat;
 import org.dapnet.core.rest.GsonTypeAdapterFactory;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 
 public class State implements Serializable {
 
@@ -45,7 +53,6 @@ public class State implements Serializable {
 
 	static {
 		GsonBuilder builder = new GsonBuilder();
-		builder.setPrettyPrinting();
 		builder.registerTypeAdapterFactory(new GsonTypeAdapterFactory());
 		gson = builder.create();
 	}
@@ -64,7 +71,7 @@ public class State implements Serializable {
 
 	@NotNull(message = "nicht vorhanden")
 	@Valid
-	private Collection<Call> calls;
+	private CallStore calls;
 
 	@NotNull(message = "nicht vorhanden")
 	@Valid
@@ -86,12 +93,19 @@ public class State implements Serializable {
 	@Valid
 	private CoreStatistics stats = new CoreStatistics();
 
+	private transient volatile StateIndex index = new StateIndex();
+
 	public State() {
-		calls = Collections.synchronizedList(new ArrayList<>());
+		calls = new CallStore();
 
 		setModelReferences();
 	}
 
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		rebuildIndexes();
+	}
+
 	public void setModelReferences() {
 		// Setting reference to state in model for allow returning of reference
 		// instead of strings
@@ -105,35 +119,452 @@ public class State implements Serializable {
 		TransmitterGroup.setState(this);
 	}
 
+	/**
+	 * Reads the state from the state file. The file may be a JSON or a binary
+	 * snapshot.
+	 * 
+	 * @return State or {@code null} if the file is empty.
+	 * @throws Exception If the file could not be read.
+	 */
 	public static State readFromFile() throws Exception {
-		try (InputStreamReader reader = new InputStreamReader(
-				new FileInputStream(Settings.getModelSettings().getStateFile()), "UTF-8")) {
-			return gson.fromJson(reader, State.class);
+		try (BufferedInputStream in = new BufferedInputStream(
+				new FileInputStream(Settings.getModelSettings().getStateFile()), 64 * 1024)) {
+			return read(in);
 		}
 	}
 
-	public void writeToFile() {
-		File file = new File(Settings.getModelSettings().getStateFile());
-		try {
-			if (file.getParentFile() != null) {
-				file.getParentFile().mkdirs();
-			}
+	/**
+	 * Reads a JSON or binary snapshot of the state.
+	 * 
+	 * @param in Input stream, must support mark and reset
+	 * @return State or {@code null} if the stream is empty.
+	 * @throws IOException If the snapshot could not be read.
+	 */
+	static State read(InputStream in) throws IOException {
+		byte[] header = new byte[4];
+		in.mark(header.length);
+		int length = in.readNBytes(header, 0, header.length);
+		in.reset();
+
+		if (StateBinaryFormat.isBinary(header, length)) {
+			State state = StateBinaryFormat.read(gson, in);
+			state.setModelReferences();
+			state.rebuildIndexes();
+			return state;
+		}
 
-			try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
-				writer.write(gson.toJson(this));
-				writer.flush();
-			}
+		State state = gson.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), State.class);
+		if (state != null) {
+			state.rebuildIndexes();
+		}
 
+		return state;
+	}
+
+	/**
+	 * Writes a full snapshot of the state to the state file using the configured
+	 * format. The snapshot is written to a temporary file first and atomically
+	 * replaces the state file.
+	 * 
+	 * @return {@code true} if the state has been written successfully.
+	 */
+	public synchronized boolean writeToFile() {
+		ModelSettings settings = Settings.getModelSettings();
+		StateSnapshotWriter writer = new StateSnapshotWriter(Paths.get(settings.getStateFile()),
+				settings.getSnapshotGenerations());
+		try {
+			writer.write(out -> write(out, settings.getSnapshotFormat()));
 			logger.info("Successfully wrote state to file");
+			return true;
 		} catch (Exception e) {
 			logger.fatal("Failed to write state file: ", e);
+			return false;
 		}
 	}
 
-	public Collection<Call> getCalls() {
+	/**
+	 * Writes a full snapshot of the state.
+	 * 
+	 * @param out    Output stream
+	 * @param format Snapshot format
+	 * @throws IOException If the snapshot could not be written.
+	 */
+	synchronized void write(OutputStream out, SnapshotFormat format) throws IOException {
+		if (format == SnapshotFormat.BINARY) {
+			StateBinaryFormat.write(this, gson, out);
+		} else {
+			JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			gson.toJson(this, State.class, jsonWriter);
+			jsonWriter.flush();
+		}
+	}
+
+	/**
+	 * Rebuilds the secondary indexes from the entities. Required after entities
+	 * have been changed without using the methods of the state. Must not run
+	 * concurrently with other changes.
+	 */
+	public void rebuildIndexes() {
+		index = StateIndex.of(this);
+	}
+
+	/**
+	 * Returns the calls ordered by timestamp. Calls must be added and removed
+	 * using the methods of the state to keep the indexes up to date.
+	 * 
+	 * @return Calls
+	 */
+	public CallStore getCalls() {
 		return calls;
 	}
 
+	/**
+	 * Adds a call. The store and the index are not changed under a common lock,
+	 * calls may expire concurrently without holding the entity locks.
+	 * 
+	 * @param call Call to add
+	 */
+	public void addCall(Call call) {
+		if (calls.add(call)) {
+			index.addCall(call);
+			// Removed before it was indexed, e.g. by removeExpiredCalls()
+			if (!calls.contains(call)) {
+				index.removeCall(call);
+			}
+		}
+	}
+
+	public void removeCall(Call call) {
+		if (calls.remove(call)) {
+			index.removeCall(call);
+		}
+	}
+
+	/**
+	 * Removes all calls with a timestamp before the given instant. Calls added
+	 * concurrently are removed from the index by {@link #addCall(Call)} if they
+	 * expire before being indexed.
+	 * 
+	 * @param before Expiration instant
+	 * @return Number of removed calls
+	 */
+	public int removeExpiredCalls(Instant before) {
+		int count = 0;
+		Call call;
+		while ((call = calls.pollExpired(before)) != null) {
+			index.removeCall(call);
+			++count;
+		}
+
+		return count;
+	}
+
+	public List<Call> getCallsByOwner(String ownerName) {
+		return index.getCallsByOwner(ownerName);
+	}
+
+	public List<Call> getCallsByCallSign(String callSignName) {
+		return index.getCallsByCallSign(callSignName);
+	}
+
+	public List<Call> getCallsByTransmitterGroup(String transmitterGroupName) {
+		return index.getCallsByTransmitterGroup(transmitterGroupName);
+	}
+
+	/**
+	 * Removes a callsign. Calls still referring to it are kept, but are no longer
+	 * indexed by it.
+	 * 
+	 * @param name Callsign name
+	 * @return Removed callsign or {@code null}
+	 */
+	public CallSign removeCallSign(String name) {
+		index.removeCallSignReferences(name);
+		return callSigns.remove(name);
+	}
+
+	public Rubric putRubric(String name, Rubric rubric) {
+		Rubric previous = rubrics.put(name, rubric);
+		if (previous != null) {
+			index.removeRubric(name, previous);
+		}
+
+		index.addRubric(name, rubric);
+		return previous;
+	}
+
+	public Rubric removeRubric(String name) {
+		Rubric previous = rubrics.remove(name);
+		if (previous != null) {
+			index.removeRubric(name, previous);
+		}
+
+		return previous;
+	}
+
+	public Set<String> getRubricNamesByTransmitterGroup(String transmitterGroupName) {
+		return index.getRubricsByTransmitterGroup(transmitterGroupName);
+	}
+
+	/**
+	 * Removes a transmitter. Transmitter groups still referring to it are kept,
+	 * but are no longer indexed by it.
+	 * 
+	 * @param name Transmitter name
+	 * @return Removed transmitter or {@code null}
+	 */
+	public Transmitter removeTransmitter(String name) {
+		index.removeTransmitterReferences(name);
+		return transmitters.remove(name);
+	}
+
+	public TransmitterGroup putTransmitterGroup(String name, TransmitterGroup transmitterGroup) {
+		TransmitterGroup previous = transmitterGroups.put(name, transmitterGroup);
+		if (previous != null) {
+			index.removeTransmitterGroup(name, previous);
+		}
+
+		index.addTransmitterGroup(name, transmitterGroup);
+		return previous;
+	}
+
+	/**
+	 * Removes a transmitter group. Rubrics and calls still referring to it are
+	 * kept, but are no longer indexed by it.
+	 * 
+	 * @param name Transmitter group name
+	 * @return Removed transmitter group or {@code null}
+	 */
+	public TransmitterGroup removeTransmitterGroup(String name) {
+		index.removeTransmitterGroupReferences(name);
+		TransmitterGroup previous = transmitterGroups.remove(name);
+		if (previous != null) {
+			index.removeTransmitterGroup(name, previous);
+		}
+
+		return previous;
+	}
+
+	public Set<String> getTransmitterGroupNamesByTransmitter(String transmitterName) {
+		return index.getTransmitterGroupsByTransmitter(transmitterName);
+	}
+
+	/**
+	 * Deletes a callsign. Calls using only this callsign are deleted, other calls
+	 * no longer refer to it.
+	 * 
+	 * @param callSign Callsign name
+	 * @param listener Listener for deleted entities or {@code null}
+	 * @return Deleted callsign or {@code null} if it does not exist
+	 */
+	public CallSign deleteCallSign(String callSign, DeleteListener listener) {
+		// Delete depended Objects
+		// Delete Calls
+		for (Call call : getCallsByCallSign(callSign)) {
+			if (call.getCallSignNames().size() == 1) {
+				// Delete all Calls using only this CallSign
+				removeCall(call);
+			} else {
+				// Remove this CallSign from Calls using more than
+				// this CallSign
+				call.getCallSignNames().removeIf(name -> name.equalsIgnoreCase(callSign));
+			}
+		}
+
+		CallSign removed = removeCallSign(callSign);
+		if (removed != null && listener != null) {
+			listener.callSignDeleted(callSign);
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Deletes a rubric and its news.
+	 * 
+	 * @param rubric   Rubric name
+	 * @param listener Listener for deleted entities or {@code null}
+	 * @return Deleted rubric or {@code null} if it does not exist
+	 */
+	public Rubric deleteRubric(String rubric, DeleteListener listener) {
+		final String name = rubric.toLowerCase();
+		// Remove news list as well
+		news.remove(name);
+
+		Rubric removed = removeRubric(name);
+		if (removed != null && listener != null) {
+			listener.rubricDeleted(name);
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Deletes a transmitter group. Rubrics and calls using only this group are
+	 * deleted, others no longer refer to it.
+	 * 
+	 * @param transmitterGroup Transmitter group name
+	 * @param listener         Listener for deleted entities or {@code null}
+	 * @return Deleted transmitter group or {@code null} if it does not exist
+	 */
+	public TransmitterGroup deleteTransmitterGroup(String transmitterGroup, DeleteListener listener) {
+		// Delete depended Objects
+		// Delete Rubrics
+		ArrayList<String> deleteRubricNames = new ArrayList<>();
+		for (String name : getRubricNamesByTransmitterGroup(transmitterGroup)) {
+			Rubric rubric = rubrics.get(name);
+			if (rubric == null) {
+				continue;
+			} else if (rubric.getTransmitterGroupNames().size() == 1) {
+				// Delete all Rubrics using only this
+				// TransmitterGroup
+				deleteRubricNames.add(rubric.getName());
+			} else {
+				// Remove this TransmitterGroup from Rubrics using
+				// more than this TransmitterGroup
+				rubric.getTransmitterGroupNames().removeIf(n -> n.equalsIgnoreCase(transmitterGroup));
+			}
+		}
+		deleteRubricNames.forEach(name -> deleteRubric(name, listener));
+
+		// Delete Calls
+		for (Call call : getCallsByTransmitterGroup(transmitterGroup)) {
+			if (call.getTransmitterGroupNames().size() == 1) {
+				// Delete all Calls using only this TransmitterGroup
+				removeCall(call);
+			} else {
+				// Remove this TransmitterGroup from Calls using
+				// more than this TransmitterGroup
+				call.getTransmitterGroupNames().removeIf(n -> n.equalsIgnoreCase(transmitterGroup));
+			}
+		}
+
+		TransmitterGroup removed = removeTransmitterGroup(transmitterGroup);
+		if (removed != null && listener != null) {
+			listener.transmitterGroupDeleted(transmitterGroup);
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Deletes a transmitter. Transmitter groups using only this transmitter are
+	 * deleted, others no longer refer to it.
+	 * 
+	 * @param transmitterName Transmitter name
+	 * @param listener        Listener for deleted entities or {@code null}
+	 * @return Deleted transmitter or {@code null} if it does not exist
+	 */
+	public Transmitter deleteTransmitter(String transmitterName, DeleteListener listener) {
+		// Delete depended Objects
+		// Delete TransmitterGroups
+		ArrayList<String> deleteTransmitterGroupNames = new ArrayList<>();
+		for (String name : getTransmitterGroupNamesByTransmitter(transmitterName)) {
+			TransmitterGroup transmitterGroup = transmitterGroups.get(name);
+			if (transmitterGroup == null) {
+				continue;
+			} else if (transmitterGroup.getTransmitterNames().size() == 1) {
+				// Delete all TransmitterGroups using only this
+				// Transmitter
+				deleteTransmitterGroupNames.add(transmitterGroup.getName());
+			} else {
+				// Remove this Transmitter from TransmitterGroup
+				// using more than this Transmitter
+				transmitterGroup.getTransmitterNames().removeIf(n -> n.equalsIgnoreCase(transmitterName));
+			}
+		}
+		deleteTransmitterGroupNames.forEach(name -> deleteTransmitterGroup(name, listener));
+
+		Transmitter removed = removeTransmitter(transmitterName);
+		if (removed != null && listener != null) {
+			listener.transmitterDeleted(transmitterName, removed);
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Deletes a user. Callsigns, rubrics, transmitter groups and transmitters
+	 * owned by this user only are deleted, others no longer refer to the user.
+	 * Calls of the user are deleted.
+	 * 
+	 * @param user     User name
+	 * @param listener Listener for deleted entities or {@code null}
+	 * @return Deleted user or {@code null} if it does not exist
+	 */
+	public User deleteUser(String user, DeleteListener listener) {
+		// Delete depended Objects
+		// Delete CallSigns
+		ArrayList<String> deleteCallSignNames = new ArrayList<>();
+		callSigns.values().stream().filter(callSign -> callSign.getOwnerNames().contains(user))
+				.forEach(callSign -> {
+					if (callSign.getOwnerNames().size() == 1) {
+						// Delete all CallSigns which have only this Owner
+						deleteCallSignNames.add(callSign.getName());
+					} else {
+						// Remove this Owner from Calls which have more than
+						// this Owner
+						callSign.getOwnerNames().remove(user);
+					}
+				});
+		deleteCallSignNames.forEach(name -> deleteCallSign(name, listener));
+
+		// Delete Calls
+		getCallsByOwner(user).forEach(this::removeCall);
+
+		// Delete Rubrics
+		ArrayList<String> deleteRubricNames = new ArrayList<>();
+		rubrics.values().stream().filter(rubric -> rubric.getOwnerNames().contains(user)).forEach(rubric -> {
+			if (rubric.getOwnerNames().size() == 1) {
+				// Delete all Rubrics which have only this Owner
+				deleteRubricNames.add(rubric.getName());
+			} else {
+				// Remove this Owner from Rubric which have more
+				// than this Owner
+				rubric.getOwnerNames().remove(user);
+			}
+		});
+		deleteRubricNames.forEach(name -> deleteRubric(name, listener));
+
+		// Delete TransmitterGroups
+		ArrayList<String> deleteTransmitterGroupNames = new ArrayList<>();
+		transmitterGroups.values().stream().filter(transmitterGroup -> transmitterGroup.getOwnerNames().contains(user))
+				.forEach(transmitterGroup -> {
+					if (transmitterGroup.getOwnerNames().size() == 1) {
+						// Delete all TransmitterGroups which have only this
+						// Owner
+						deleteTransmitterGroupNames.add(transmitterGroup.getName());
+					} else {
+						// Remove this Owner from TransmitterGroups which
+						// have more than this Owner
+						transmitterGroup.getOwnerNames().remove(user);
+					}
+				});
+		deleteTransmitterGroupNames.forEach(name -> deleteTransmitterGroup(name, listener));
+
+		// Delete Transmitter
+		ArrayList<String> deleteTransmitterNames = new ArrayList<>();
+		transmitters.values().stream().filter(transmitter -> transmitter.getOwnerNames().contains(user))
+				.forEach(transmitter -> {
+					if (transmitter.getOwnerNames().size() == 1) {
+						// Delete all Transmitter which have only this Owner
+						deleteTransmitterNames.add(transmitter.getName());
+					} else {
+						// Remove this Owner from Transmitters which have
+						// more than this Owner
+						transmitter.getOwnerNames().remove(user);
+					}
+				});
+		deleteTransmitterNames.forEach(name -> deleteTransmitter(name, listener));
+
+		User removed = users.remove(user);
+		if (removed != null && listener != null) {
+			listener.userDeleted(user);
+		}
+
+		return removed;
+	}
+
 	public ConcurrentMap<String, CallSign> getCallSigns() {
 		return callSigns;
 	}
@@ -166,4 +597,56 @@ public class State implements Serializable {
 		return stats;
 	}
 
+	void setCalls(CallStore calls) {
+		this.calls = calls;
+	}
+
+	void setCallSigns(ConcurrentMap<String, CallSign> callSigns) {
+		this.callSigns = callSigns;
+	}
+
+	void setNodes(ConcurrentMap<String, Node> nodes) {
+		this.nodes = nodes;
+	}
+
+	void setUsers(ConcurrentMap<String, User> users) {
+		this.users = users;
+	}
+
+	void setTransmitters(ConcurrentMap<String, Transmitter> transmitters) {
+		this.transmitters = transmitters;
+	}
+
+	void setTransmitterGroups(ConcurrentMap<String, TransmitterGroup> transmitterGroups) {
+		this.transmitterGroups = transmitterGroups;
+	}
+
+	void setRubrics(ConcurrentMap<String, Rubric> rubrics) {
+		this.rubrics = rubrics;
+	}
+
+	void setNews(ConcurrentMap<String, NewsList> news) {
+		this.news = news;
+	}
+
+	void setCoreStats(CoreStatistics stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Receives the entities removed by a cascading delete, including the deleted
+	 * entity itself.
+	 */
+	public interface DeleteListener {
+		void callSignDeleted(String name);
+
+		void rubricDeleted(String name);
+
+		void transmitterGroupDeleted(String name);
+
+		void transmitterDeleted(String name, Transmitter transmitter);
+
+		void userDeleted(String name);
+	}
+
 }
@@ -0,0 +1,492 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.gson.Gson;
+
+/**
+ * Compact binary snapshot format of the state.
+ * <p>
+ * A snapshot starts with the magic number {@code DAPS} and the format version,
+ * followed by sections. Each section starts with a tag and the number of
+ * records, the records are prefixed by their length. The last section is the
+ * end tag, so a truncated snapshot is detected. All numbers are big-endian.
+ * <p>
+ * Calls and news, which make up most of the state, are encoded field by field.
+ * Names in these records (call signs, transmitter groups, owners, rubrics) are
+ * interned: the first occurrence is written with a new index, subsequent
+ * occurrences only refer to the index, and the reader shares one string
+ * instance. The remaining entities are stored as compact JSON records, they
+ * are few and change their layout more often. The maps are created with the
+ * record count of their section, so they never have to be resized while
+ * loading.
+ * <p>
+ * {@code util/state-binary.py} converts between this format and JSON.
+ */
+final class StateBinaryFormat {
+
+	static final int MAGIC = 0x44415053;
+	static final int VERSION = 1;
+	private static final int SECTION_END = 0;
+	private static final int SECTION_CALL_SIGNS = 1;
+	private static final int SECTION_NODES = 2;
+	private static final int SECTION_USERS = 3;
+	private static final int SECTION_TRANSMITTERS = 4;
+	private static final int SECTION_TRANSMITTER_GROUPS = 5;
+	private static final int SECTION_RUBRICS = 6;
+	private static final int SECTION_CALLS = 7;
+	private static final int SECTION_NEWS = 8;
+	private static final int SECTION_STATS = 9;
+	private static final int NEWS_SLOTS = 10;
+
+	private StateBinaryFormat() {
+	}
+
+	/**
+	 * Checks if the given bytes start a binary snapshot.
+	 *
+	 * @param header First four bytes of the file
+	 * @param length Number of bytes read
+	 * @return {@code true} if the bytes are the magic number.
+	 */
+	public static boolean isBinary(byte[] header, int length) {
+		if (length < 4) {
+			return false;
+		}
+
+		int magic = ((header[0] & 0xFF) << 24) | ((header[1] & 0xFF) << 16) | ((header[2] & 0xFF) << 8)
+				| (header[3] & 0xFF);
+		return magic == MAGIC;
+	}
+
+	/**
+	 * Writes a snapshot. The caller must prevent concurrent modifications of the
+	 * state.
+	 *
+	 * @param state State to write
+	 * @param gson  Gson instance used for JSON records
+	 * @param out   Output stream, should be buffered
+	 * @throws IOException If the snapshot could not be written.
+	 */
+	public static void write(State state, Gson gson, OutputStream out) throws IOException {
+		Writer writer = new Writer(out, gson);
+		writer.writeHeader();
+		writer.writeEntities(SECTION_CALL_SIGNS, state.getCallSigns(), CallSign.class);
+		writer.writeEntities(SECTION_NODES, state.getNodes(), Node.class);
+		writer.writeEntities(SECTION_USERS, state.getUsers(), User.class);
+		writer.writeEntities(SECTION_TRANSMITTERS, state.getTransmitters(), Transmitter.class);
+		writer.writeEntities(SECTION_TRANSMITTER_GROUPS, state.getTransmitterGroups(), TransmitterGroup.class);
+		writer.writeEntities(SECTION_RUBRICS, state.getRubrics(), Rubric.class);
+		writer.writeCalls(state.getCalls());
+		writer.writeNews(state.getNews());
+		writer.writeStats(state.getCoreStats());
+		writer.writeEnd();
+	}
+
+	/**
+	 * Reads a snapshot.
+	 *
+	 * @param gson Gson instance used for JSON records
+	 * @param in   Input stream, should be buffered
+	 * @return State
+	 * @throws IOException If the snapshot is invalid or could not be read.
+	 */
+	public static State read(Gson gson, InputStream in) throws IOException {
+		return new Reader(in, gson).read();
+	}
+
+	private static int getCapacity(int count) {
+		// Keep the load factor below 0.75
+		return Math.max(16, (int) (count / 0.75f) + 1);
+	}
+
+	private static final class Writer {
+
+		private final DataOutputStream out;
+		private final Gson gson;
+		private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(256);
+		private final DataOutputStream record = new DataOutputStream(recordBuffer);
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		Writer(OutputStream out, Gson gson) {
+			this.out = new DataOutputStream(out);
+			this.gson = gson;
+		}
+
+		void writeHeader() throws IOException {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+		}
+
+		<T> void writeEntities(int section, Map<String, T> entities, Class<T> type) throws IOException {
+			// Copy first, the record count must match
+			List<Map.Entry<String, T>> entries = new ArrayList<>(entities.entrySet());
+			beginSection(section, entries.size());
+			for (Map.Entry<String, T> e : entries) {
+				writeInterned(e.getKey());
+				writeString(gson.toJson(e.getValue(), type));
+				endRecord();
+			}
+		}
+
+		void writeCalls(Collection<Call> calls) throws IOException {
+			// Calls may be added concurrently, the count must match the records
+			List<Call> copy = new ArrayList<>(calls);
+
+			beginSection(SECTION_CALLS, copy.size());
+			for (Call call : copy) {
+				writeString(call.getText());
+				writeInternedList(call.getCallSignNames());
+				writeInternedList(call.getTransmitterGroupNames());
+				record.writeBoolean(call.isEmergency());
+				writeInstant(call.getTimestamp());
+				writeInterned(call.getOwnerName());
+				endRecord();
+			}
+		}
+
+		void writeNews(Map<String, NewsList> news) throws IOException {
+			List<Map.Entry<String, NewsList>> entries = new ArrayList<>(news.entrySet());
+			beginSection(SECTION_NEWS, entries.size());
+			for (Map.Entry<String, NewsList> e : entries) {
+				writeInterned(e.getKey());
+
+				List<News> slots = new ArrayList<>(NEWS_SLOTS);
+				e.getValue().forEach(slots::add);
+				record.writeByte(slots.size());
+				for (News n : slots) {
+					record.writeBoolean(n != null);
+					if (n != null) {
+						writeString(n.getText());
+						writeInterned(n.getRubricName());
+						record.writeInt(n.getNumber());
+						writeInstant(n.getTimestamp());
+						writeInterned(n.getOwnerName());
+					}
+				}
+
+				endRecord();
+			}
+		}
+
+		void writeStats(CoreStatistics stats) throws IOException {
+			beginSection(SECTION_STATS, 1);
+			record.writeLong(stats.getCalls());
+			record.writeLong(stats.getNews());
+			endRecord();
+		}
+
+		void writeEnd() throws IOException {
+			out.writeByte(SECTION_END);
+			out.flush();
+		}
+
+		private void beginSection(int section, int count) throws IOException {
+			out.writeByte(section);
+			out.writeInt(count);
+		}
+
+		private void endRecord() throws IOException {
+			out.writeInt(recordBuffer.size());
+			recordBuffer.writeTo(out);
+			recordBuffer.reset();
+		}
+
+		private void writeString(String value) throws IOException {
+			if (value == null) {
+				record.writeInt(-1);
+			} else {
+				byte[] data = value.getBytes(StandardCharsets.UTF_8);
+				record.writeInt(data.length);
+				record.write(data);
+			}
+		}
+
+		private void writeInterned(String value) throws IOException {
+			if (value == null) {
+				record.writeInt(-1);
+				return;
+			}
+
+			Integer index = strings.get(value);
+			if (index != null) {
+				record.writeInt(index);
+			} else {
+				index = strings.size();
+				strings.put(value, index);
+				record.writeInt(index);
+				writeString(value);
+			}
+		}
+
+		private void writeInternedList(Collection<String> values) throws IOException {
+			if (values == null) {
+				record.writeInt(-1);
+				return;
+			}
+
+			record.writeInt(values.size());
+			for (String v : values) {
+				writeInterned(v);
+			}
+		}
+
+		private void writeInstant(Instant value) throws IOException {
+			record.writeBoolean(value != null);
+			if (value != null) {
+				record.writeLong(value.getEpochSecond());
+				record.writeInt(value.getNano());
+			}
+		}
+
+	}
+
+	private static final class Reader {
+
+		private final DataInputStream in;
+		private final Gson gson;
+		private final List<String> strings = new ArrayList<>();
+		private byte[] buffer = new byte[256];
+		private int position;
+		private int limit;
+
+		Reader(InputStream in, Gson gson) {
+			this.in = new DataInputStream(in);
+			this.gson = gson;
+		}
+
+		State read() throws IOException {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a binary state snapshot.");
+			}
+
+			int version = in.readUnsignedShort();
+			if (version != VERSION) {
+				throw new IOException("Unsupported state snapshot version: " + version);
+			}
+
+			State state = new State();
+			int section;
+			while ((section = in.readUnsignedByte()) != SECTION_END) {
+				int count = in.readInt();
+				if (count < 0) {
+					throw new IOException("Invalid record count: " + count);
+				}
+
+				switch (section) {
+				case SECTION_CALL_SIGNS:
+					state.setCallSigns(readEntities(count, CallSign.class));
+					break;
+				case SECTION_NODES:
+					state.setNodes(readEntities(count, Node.class));
+					break;
+				case SECTION_USERS:
+					state.setUsers(readEntities(count, User.class));
+					break;
+				case SECTION_TRANSMITTERS:
+					state.setTransmitters(readEntities(count, Transmitter.class));
+					break;
+				case SECTION_TRANSMITTER_GROUPS:
+					state.setTransmitterGroups(readEntities(count, TransmitterGroup.class));
+					break;
+				case SECTION_RUBRICS:
+					state.setRubrics(readEntities(count, Rubric.class));
+					break;
+				case SECTION_CALLS:
+					state.setCalls(readCalls(count));
+					break;
+				case SECTION_NEWS:
+					state.setNews(readNews(count));
+					break;
+				case SECTION_STATS:
+					for (int i = 0; i < count; ++i) {
+						nextRecord();
+						state.setCoreStats(new CoreStatistics(readLong(), readLong()));
+					}
+					break;
+				default:
+					throw new IOException("Unknown state snapshot section: " + section);
+				}
+			}
+
+			return state;
+		}
+
+		private <T> ConcurrentMap<String, T> readEntities(int count, Class<T> type) throws IOException {
+			ConcurrentMap<String, T> entities = new ConcurrentHashMap<>(getCapacity(count));
+			for (int i = 0; i < count; ++i) {
+				nextRecord();
+				String key = readInterned();
+				T value = gson.fromJson(readString(), type);
+				if (key != null && value != null) {
+					entities.put(key, value);
+				}
+			}
+
+			return entities;
+		}
+
+		private CallStore readCalls(int count) throws IOException {
+			CallStore calls = new CallStore();
+			for (int i = 0; i < count; ++i) {
+				nextRecord();
+				Call call = new Call();
+				call.setText(readString());
+				call.setCallSignNames(readInternedList());
+				call.setTransmitterGroupNames(readInternedList());
+				call.setEmergency(readBoolean());
+				call.setTimestamp(readInstant());
+				call.setOwnerName(readInterned());
+				calls.add(call);
+			}
+
+			return calls;
+		}
+
+		private ConcurrentMap<String, NewsList> readNews(int count) throws IOException {
+			ConcurrentMap<String, NewsList> news = new ConcurrentHashMap<>(getCapacity(count));
+			for (int i = 0; i < count; ++i) {
+				nextRecord();
+				String key = readInterned();
+				int slots = readByte();
+				List<News> list = new ArrayList<>(slots);
+				for (int s = 0; s < slots; ++s) {
+					if (!readBoolean()) {
+						continue;
+					}
+
+					News n = new News();
+					n.setText(readString());
+					n.setRubricName(readInterned());
+					n.setNumber(readInt());
+					n.setTimestamp(readInstant());
+					n.setOwnerName(readInterned());
+					list.add(n);
+				}
+
+				if (key != null) {
+					news.put(key, new NewsList(list));
+				}
+			}
+
+			return news;
+		}
+
+		private void nextRecord() throws IOException {
+			int length = in.readInt();
+			if (length < 0) {
+				throw new IOException("Invalid record length: " + length);
+			}
+
+			if (buffer.length < length) {
+				buffer = new byte[Math.max(length, buffer.length * 2)];
+			}
+
+			in.readFully(buffer, 0, length);
+			position = 0;
+			limit = length;
+		}
+
+		private void require(int count) throws IOException {
+			if (limit - position < count) {
+				throw new EOFException("Record too short.");
+			}
+		}
+
+		private int readByte() throws IOException {
+			require(1);
+			return buffer[position++] & 0xFF;
+		}
+
+		private boolean readBoolean() throws IOException {
+			return readByte() != 0;
+		}
+
+		private int readInt() throws IOException {
+			require(4);
+			int value = ((buffer[position] & 0xFF) << 24) | ((buffer[position + 1] & 0xFF) << 16)
+					| ((buffer[position + 2] & 0xFF) << 8) | (buffer[position + 3] & 0xFF);
+			position += 4;
+			return value;
+		}
+
+		private long readLong() throws IOException {
+			long high = readInt() & 0xFFFFFFFFL;
+			long low = readInt() & 0xFFFFFFFFL;
+			return (high << 32) | low;
+		}
+
+		private String readString() throws IOException {
+			int length = readInt();
+			if (length < 0) {
+				return null;
+			}
+
+			require(length);
+			String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+			position += length;
+			return value;
+		}
+
+		private String readInterned() throws IOException {
+			int index = readInt();
+			if (index < 0) {
+				return null;
+			} else if (index < strings.size()) {
+				return strings.get(index);
+			} else if (index == strings.size()) {
+				String value = readString();
+				strings.add(value);
+				return value;
+			} else {
+				throw new IOException("Invalid string index: " + index);
+			}
+		}
+
+		private Collection<String> readInternedList() throws IOException {
+			int count = readInt();
+			if (count < 0) {
+				return null;
+			}
+
+			List<String> values = new ArrayList<>(Math.min(count, limit - position));
+			for (int i = 0; i < count; ++i) {
+				values.add(readInterned());
+			}
+
+			return values;
+		}
+
+		private Instant readInstant() throws IOException {
+			if (!readBoolean()) {
+				return null;
+			}
+
+			long seconds = readLong();
+			int nanos = readInt();
+			return Instant.ofEpochSecond(seconds, nanos);
+		}
+
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Secondary indexes of the state. Names are indexed in lower case, calls are
+ * indexed by identity in insertion order.
+ * <p>
+ * The index is maintained by the state. Entities changed in place have to be
+ * re-indexed by the caller, references to a removed entity are dropped
+ * together with it.
+ */
+final class StateIndex {
+
+	private final Map<String, Set<Call>> callsByOwner = new HashMap<>();
+	private final Map<String, Set<Call>> callsByCallSign = new HashMap<>();
+	private final Map<String, Set<Call>> callsByTransmitterGroup = new HashMap<>();
+	private final Map<String, Set<String>> rubricsByTransmitterGroup = new HashMap<>();
+	private final Map<String, Set<String>> transmitterGroupsByTransmitter = new HashMap<>();
+
+	/**
+	 * Creates a new index of the given state.
+	 *
+	 * @param state State to index, must not be changed concurrently.
+	 * @return Index
+	 */
+	static StateIndex of(State state) {
+		StateIndex index = new StateIndex();
+		state.getCalls().forEach(index::addCall);
+		state.getRubrics().forEach(index::addRubric);
+		state.getTransmitterGroups().forEach(index::addTransmitterGroup);
+		return index;
+	}
+
+	synchronized void addCall(Call call) {
+		add(callsByOwner, call.getOwnerName(), call);
+		addAll(callsByCallSign, call.getCallSignNames(), call);
+		addAll(callsByTransmitterGroup, call.getTransmitterGroupNames(), call);
+	}
+
+	synchronized void removeCall(Call call) {
+		remove(callsByOwner, call.getOwnerName(), call);
+		removeAll(callsByCallSign, call.getCallSignNames(), call);
+		removeAll(callsByTransmitterGroup, call.getTransmitterGroupNames(), call);
+	}
+
+	synchronized void addRubric(String name, Rubric rubric) {
+		addAll(rubricsByTransmitterGroup, rubric.getTransmitterGroupNames(), name);
+	}
+
+	synchronized void removeRubric(String name, Rubric rubric) {
+		removeAll(rubricsByTransmitterGroup, rubric.getTransmitterGroupNames(), name);
+	}
+
+	synchronized void addTransmitterGroup(String name, TransmitterGroup group) {
+		addAll(transmitterGroupsByTransmitter, group.getTransmitterNames(), name);
+	}
+
+	synchronized void removeTransmitterGroup(String name, TransmitterGroup group) {
+		removeAll(transmitterGroupsByTransmitter, group.getTransmitterNames(), name);
+	}
+
+	synchronized void removeCallSignReferences(String name) {
+		callsByCallSign.remove(key(name));
+	}
+
+	synchronized void removeTransmitterReferences(String name) {
+		transmitterGroupsByTransmitter.remove(key(name));
+	}
+
+	synchronized void removeTransmitterGroupReferences(String name) {
+		callsByTransmitterGroup.remove(key(name));
+		rubricsByTransmitterGroup.remove(key(name));
+	}
+
+	synchronized List<Call> getCallsByOwner(String owner) {
+		return copy(callsByOwner.get(key(owner)));
+	}
+
+	synchronized List<Call> getCallsByCallSign(String callSign) {
+		return copy(callsByCallSign.get(key(callSign)));
+	}
+
+	synchronized List<Call> getCallsByTransmitterGroup(String group) {
+		return copy(callsByTransmitterGroup.get(key(group)));
+	}
+
+	synchronized Set<String> getRubricsByTransmitterGroup(String group) {
+		Set<String> names = rubricsByTransmitterGroup.get(key(group));
+		return names != null ? new HashSet<>(names) : Collections.emptySet();
+	}
+
+	synchronized Set<String> getTransmitterGroupsByTransmitter(String transmitter) {
+		Set<String> names = transmitterGroupsByTransmitter.get(key(transmitter));
+		return names != null ? new HashSet<>(names) : Collections.emptySet();
+	}
+
+	private static String key(String name) {
+		return name != null ? name.toLowerCase() : null;
+	}
+
+	private static <T> List<T> copy(Set<T> values) {
+		return values != null ? new ArrayList<>(values) : new ArrayList<>();
+	}
+
+	private static <T> void add(Map<String, Set<T>> index, String name, T value) {
+		if (name != null) {
+			index.computeIfAbsent(key(name), k -> new LinkedHashSet<>()).add(value);
+		}
+	}
+
+	private static <T> void addAll(Map<String, Set<T>> index, Collection<String> names, T value) {
+		if (names != null) {
+			names.forEach(name -> add(index, name, value));
+		}
+	}
+
+	private static <T> void remove(Map<String, Set<T>> index, String name, T value) {
+		if (name != null) {
+			index.computeIfPresent(key(name), (k, values) -> values.remove(value) && values.isEmpty() ? null : values);
+		}
+	}
+
+	private static <T> void removeAll(Map<String, Set<T>> index, Collection<String> names, T value) {
+		if (names != null) {
+			names.forEach(name -> remove(index, name, value));
+		}
+	}
+
+}
@@ -0,0 +1,356 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dapnet.core.rest.GsonTypeAdapterFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Append-only write-ahead journal of state mutations. Each mutation is written
+ * as a single compact JSON line before it is applied to the state. Records of
+ * concurrent writers are written and fsynced in groups by a background thread.
+ * The journal is truncated once a full snapshot of the state has been written.
+ * On startup the journal is replayed on top of the last snapshot.
+ * <p>
+ * Deletes are journaled by name only. Replaying a delete runs the same cascade
+ * as the original mutation, so all depended objects are deleted again.
+ */
+public final class StateJournal implements AutoCloseable {
+
+	/**
+	 * Journaled operations.
+	 */
+	public enum Operation {
+		ADD_CALL(Call.class), ADD_NEWS(News.class), PUT_CALL_SIGN(CallSign.class), PUT_NODE(Node.class),
+		PUT_RUBRIC(Rubric.class), PUT_TRANSMITTER(Transmitter.class), UPDATE_TRANSMITTER_STATUS(Transmitter.class),
+		PUT_TRANSMITTER_GROUP(TransmitterGroup.class), PUT_USER(User.class), DELETE_CALL_SIGN(String.class),
+		DELETE_NODE(String.class), DELETE_RUBRIC(String.class), DELETE_TRANSMITTER(String.class),
+		DELETE_TRANSMITTER_GROUP(String.class), DELETE_USER(String.class);
+
+		private final Class<?> type;
+
+		private Operation(Class<?> type) {
+			this.type = type;
+		}
+	}
+
+	private static final Logger logger = LogManager.getLogger();
+	private static final int MAX_GROUP_SIZE = 256;
+	private static final Gson gson;
+	private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+	private final AtomicLong recordsWritten = new AtomicLong();
+	private final AtomicLong groupsWritten = new AtomicLong();
+	private final Object channelLock = new Object();
+	private final Path path;
+	private final FileChannel channel;
+	private final Thread writerThread;
+	private volatile boolean closed;
+
+	static {
+		GsonBuilder builder = new GsonBuilder();
+		builder.registerTypeAdapterFactory(new GsonTypeAdapterFactory());
+		gson = builder.create();
+	}
+
+	/**
+	 * Opens the journal. The file is created if it does not exist.
+	 *
+	 * @param path Journal file
+	 * @throws IOException If the file cannot be opened.
+	 */
+	public StateJournal(Path path) throws IOException {
+		this.path = path;
+
+		Path parent = path.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+
+		writerThread = new Thread(this::writeLoop, "StateJournal");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	/**
+	 * Appends a record and waits until it has been written to disk.
+	 *
+	 * @param op   Operation
+	 * @param data Operation argument
+	 * @throws IOException If the record could not be written.
+	 */
+	public void append(Operation op, Object data) throws IOException {
+		if (closed) {
+			throw new IOException("Journal is closed.");
+		}
+
+		JsonObject record = new JsonObject();
+		record.addProperty("op", op.name());
+		record.add("data", gson.toJsonTree(data, op.type));
+
+		byte[] line = (gson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8);
+		PendingRecord pending = new PendingRecord(line);
+		queue.add(pending);
+
+		try {
+			pending.future.get();
+		} catch (ExecutionException ex) {
+			throw new IOException("Failed to write journal record.", ex.getCause());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while writing journal record.");
+		}
+	}
+
+	/**
+	 * Discards all records. Must only be called after a snapshot containing all
+	 * journaled mutations has been written and while no mutations are in
+	 * progress.
+	 *
+	 * @throws IOException If the journal could not be truncated.
+	 */
+	public void reset() throws IOException {
+		synchronized (channelLock) {
+			channel.truncate(0);
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * Replays all records on the given state. A truncated last record, e.g. after
+	 * a crash, is ignored.
+	 *
+	 * @param state State to update
+	 * @return Number of applied records
+	 * @throws IOException If the journal could not be read.
+	 */
+	public int replay(State state) throws IOException {
+		int count = 0;
+
+		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+
+				try {
+					JsonObject record = JsonParser.parseString(line).getAsJsonObject();
+					Operation op = Operation.valueOf(record.get("op").getAsString());
+					apply(state, op, gson.fromJson(record.get("data"), op.type));
+					++count;
+				} catch (RuntimeException ex) {
+					// Most likely a partially written record after a crash
+					logger.warn("Stopping journal replay at invalid record {}: {}", count + 1, ex.getMessage());
+					break;
+				}
+			}
+		} catch (NoSuchFileException ex) {
+			return 0;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns the number of records written since the journal was opened.
+	 *
+	 * @return Number of records
+	 */
+	public long getRecordsWritten() {
+		return recordsWritten.get();
+	}
+
+	/**
+	 * Returns the number of fsynced groups of records written since the journal
+	 * was opened.
+	 *
+	 * @return Number of groups
+	 */
+	public long getGroupsWritten() {
+		return groupsWritten.get();
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+
+		try {
+			writerThread.join();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
+		// Fail records added while closing
+		PendingRecord r;
+		while ((r = queue.poll()) != null) {
+			r.future.completeExceptionally(new IOException("Journal is closed."));
+		}
+
+		synchronized (channelLock) {
+			channel.close();
+		}
+	}
+
+	private static void apply(State state, Operation op, Object data) {
+		switch (op) {
+		case ADD_CALL:
+			state.addCall((Call) data);
+			state.getCoreStats().incrementCalls();
+			break;
+		case ADD_NEWS: {
+			News news = (News) data;
+			NewsList nl = state.getNews().get(news.getRubricName().toLowerCase());
+			if (nl != null) {
+				nl.add(news);
+				state.getCoreStats().incrementNews();
+			}
+			break;
+		}
+		case PUT_CALL_SIGN: {
+			CallSign callSign = (CallSign) data;
+			state.getCallSigns().put(callSign.getName(), callSign);
+			break;
+		}
+		case PUT_NODE: {
+			Node node = (Node) data;
+			state.getNodes().put(node.getName(), node);
+			break;
+		}
+		case PUT_RUBRIC: {
+			Rubric rubric = (Rubric) data;
+			String rubricName = rubric.getName().toLowerCase();
+			state.putRubric(rubricName, rubric);
+			state.getNews().putIfAbsent(rubricName, new NewsList());
+			break;
+		}
+		case PUT_TRANSMITTER: {
+			Transmitter transmitter = (Transmitter) data;
+			state.getTransmitters().put(transmitter.getName().toLowerCase(), transmitter);
+			break;
+		}
+		case UPDATE_TRANSMITTER_STATUS: {
+			Transmitter updated = (Transmitter) data;
+			Transmitter transmitter = state.getTransmitters().get(updated.getName());
+			if (transmitter != null) {
+				transmitter.setNodeName(updated.getNodeName());
+				transmitter.setStatus(updated.getStatus());
+				transmitter.setConnectedSince(updated.getConnectedSince());
+				transmitter.setLastConnected(updated.getLastConnected());
+				transmitter.setAddress(updated.getAddress());
+				transmitter.setDeviceType(updated.getDeviceType());
+				transmitter.setDeviceVersion(updated.getDeviceVersion());
+			}
+			break;
+		}
+		case PUT_TRANSMITTER_GROUP: {
+			TransmitterGroup group = (TransmitterGroup) data;
+			state.putTransmitterGroup(group.getName(), group);
+			break;
+		}
+		case PUT_USER: {
+			User user = (User) data;
+			state.getUsers().put(user.getName(), user);
+			break;
+		}
+		case DELETE_CALL_SIGN:
+			state.deleteCallSign((String) data, null);
+			break;
+		case DELETE_NODE:
+			state.getNodes().remove((String) data);
+			break;
+		case DELETE_RUBRIC:
+			state.deleteRubric((String) data, null);
+			break;
+		case DELETE_TRANSMITTER:
+			state.deleteTransmitter((String) data, null);
+			break;
+		case DELETE_TRANSMITTER_GROUP:
+			state.deleteTransmitterGroup((String) data, null);
+			break;
+		case DELETE_USER:
+			state.deleteUser((String) data, null);
+			break;
+		}
+	}
+
+	private void writeLoop() {
+		List<PendingRecord> group = new ArrayList<>();
+
+		while (!closed || !queue.isEmpty()) {
+			try {
+				PendingRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+
+				group.add(first);
+				queue.drainTo(group, MAX_GROUP_SIZE - 1);
+			} catch (InterruptedException ex) {
+				continue;
+			}
+
+			try {
+				synchronized (channelLock) {
+					for (PendingRecord r : group) {
+						ByteBuffer buffer = ByteBuffer.wrap(r.line);
+						while (buffer.hasRemaining()) {
+							channel.write(buffer);
+						}
+					}
+
+					channel.force(false);
+				}
+
+				recordsWritten.addAndGet(group.size());
+				groupsWritten.incrementAndGet();
+				group.forEach(r -> r.future.complete(null));
+			} catch (Throwable t) {
+				logger.error("Failed to write journal records.", t);
+				group.forEach(r -> r.future.completeExceptionally(t));
+			}
+
+			group.clear();
+		}
+	}
+
+	private static final class PendingRecord {
+		private final byte[] line;
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		PendingRecord(byte[] line) {
+			this.line = line;
+		}
+	}
+
+}
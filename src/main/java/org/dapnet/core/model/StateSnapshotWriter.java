@@ -0,0 +1,132 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.model;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes state snapshots crash-safe. The state is serialized directly to a
+ * temporary file in the same directory, which is fsynced and then atomically
+ * renamed to the state file. A crash at any point leaves either the old or the
+ * new snapshot in place, never a partially written one.
+ * <p>
+ * The previous snapshots are kept as {@code <stateFile>.1} (newest) to
+ * {@code <stateFile>.<n>} (oldest) and can be copied back manually to roll back
+ * the state.
+ */
+final class StateSnapshotWriter {
+
+	/**
+	 * Serializes the snapshot content.
+	 */
+	@FunctionalInterface
+	public interface Serializer {
+		void write(OutputStream out) throws IOException;
+	}
+
+	private static final Logger logger = LogManager.getLogger();
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private final Path path;
+	private final int generations;
+
+	/**
+	 * Creates a new snapshot writer.
+	 *
+	 * @param path        State file
+	 * @param generations Number of previous snapshots to keep
+	 */
+	public StateSnapshotWriter(Path path, int generations) {
+		this.path = path.toAbsolutePath();
+		this.generations = Math.max(0, generations);
+	}
+
+	/**
+	 * Writes a snapshot.
+	 *
+	 * @param serializer Serializer writing the snapshot content
+	 * @throws IOException If the snapshot could not be written. The current state
+	 *                     file is left untouched in this case.
+	 */
+	public void write(Serializer serializer) throws IOException {
+		Path dir = path.getParent();
+		Files.createDirectories(dir);
+
+		Path temp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				// Do not close the stream yet, the channel must be forced first
+				OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+				serializer.write(out);
+				out.flush();
+				channel.force(true);
+			}
+
+			rotateGenerations();
+			moveAtomic(temp, path);
+			syncDirectory(dir);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private void rotateGenerations() throws IOException {
+		if (generations == 0 || !Files.exists(path)) {
+			return;
+		}
+
+		for (int i = generations - 1; i > 0; --i) {
+			Path from = getGeneration(i);
+			if (Files.exists(from)) {
+				Files.move(from, getGeneration(i + 1), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+
+		// Keep the current snapshot in place until the new one replaces it
+		Path first = getGeneration(1);
+		Files.deleteIfExists(first);
+		try {
+			Files.createLink(first, path);
+		} catch (UnsupportedOperationException | FileSystemException ex) {
+			Files.copy(path, first, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private Path getGeneration(int generation) {
+		return path.resolveSibling(path.getFileName() + "." + generation);
+	}
+
+	private static void moveAtomic(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException ex) {
+			logger.warn("Atomic rename not supported, state file is replaced non-atomically.");
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static void syncDirectory(Path dir) {
+		// Persists the rename, not supported on all platforms
+		try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException ex) {
+			logger.debug("Could not sync state directory: {}", ex.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,221 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.rest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Cache of verified credentials, so the password hash has not to be computed
+ * for every request of a client.
+ * <p>
+ * Credentials are identified by a HMAC of the user name and password with a
+ * random key created per process, the password itself is never stored. Each
+ * entry remembers the password hash of the user it has been verified against
+ * and is valid for a limited time only. An entry is ignored if the hash of the
+ * user has been changed since, even if the invalidation has been missed.
+ */
+public final class CredentialCache {
+
+	private static final String MAC_ALGORITHM = "HmacSHA256";
+	private final SecretKeySpec secret;
+	private final ThreadLocal<Mac> macs;
+	private final Map<Key, Credential> entries;
+	private final int maxSize;
+	private final long ttlNanos;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Creates a new empty cache.
+	 *
+	 * @param maxSize   Maximum number of cached credentials, 0 disables the cache
+	 * @param ttlMillis Time in milliseconds a verified credential is kept
+	 */
+	public CredentialCache(int maxSize, long ttlMillis) {
+		if (maxSize < 0) {
+			throw new IllegalArgumentException("Negative cache size.");
+		}
+
+		this.maxSize = maxSize;
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+
+		byte[] key = new byte[32];
+		new SecureRandom().nextBytes(key);
+		secret = new SecretKeySpec(key, MAC_ALGORITHM);
+		macs = ThreadLocal.withInitial(this::createMac);
+
+		// Least recently used entries are evicted first
+		entries = new LinkedHashMap<Key, Credential>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Credential> eldest) {
+				return size() > CredentialCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Checks whether the credentials have been verified against the given
+	 * password hash recently.
+	 *
+	 * @param username     User name
+	 * @param password     Password
+	 * @param passwordHash Current password hash of the user
+	 * @return {@code true} if the credentials are valid
+	 */
+	public boolean isVerified(String username, String password, String passwordHash) {
+		if (maxSize == 0) {
+			return false;
+		}
+
+		Key key = key(username, password);
+		Credential credential;
+		synchronized (entries) {
+			credential = entries.get(key);
+			if (credential != null && System.nanoTime() - credential.created >= ttlNanos) {
+				entries.remove(key);
+				credential = null;
+			}
+		}
+
+		if (credential != null && credential.passwordHash.equals(passwordHash)) {
+			hits.incrementAndGet();
+			return true;
+		}
+
+		misses.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Adds credentials which have been verified against the given password hash.
+	 *
+	 * @param username     User name
+	 * @param password     Password
+	 * @param passwordHash Password hash of the user
+	 */
+	public void put(String username, String password, String passwordHash) {
+		if (maxSize == 0) {
+			return;
+		}
+
+		Credential credential = new Credential(username.toLowerCase(), passwordHash, System.nanoTime());
+		Key key = key(username, password);
+		synchronized (entries) {
+			entries.put(key, credential);
+		}
+	}
+
+	/**
+	 * Invalidates all credentials of a user, e.g. after the user has been changed
+	 * or deleted.
+	 *
+	 * @param username User name
+	 */
+	public void invalidate(String username) {
+		if (username == null) {
+			return;
+		}
+
+		final String name = username.toLowerCase();
+		synchronized (entries) {
+			entries.values().removeIf(e -> e.username.equals(name));
+		}
+	}
+
+	/**
+	 * Invalidates all cached credentials, e.g. after the state has been replaced.
+	 */
+	public void invalidateAll() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * Gets the number of credentials found in the cache.
+	 *
+	 * @return Number of hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of credentials which had to be verified.
+	 *
+	 * @return Number of misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	private Key key(String username, String password) {
+		Mac mac = macs.get();
+		// User names are case insensitive, the separator is not part of a name
+		mac.update(username.toLowerCase().getBytes(StandardCharsets.UTF_8));
+		mac.update((byte) 0);
+		return new Key(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private Mac createMac() {
+		try {
+			Mac mac = Mac.getInstance(MAC_ALGORITHM);
+			mac.init(secret);
+			return mac;
+		} catch (GeneralSecurityException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static final class Credential {
+		private final String username;
+		private final String passwordHash;
+		private final long created;
+
+		Credential(String username, String passwordHash, long created) {
+			this.username = username;
+			this.passwordHash = passwordHash;
+			this.created = created;
+		}
+	}
+
+	private static final class Key {
+		private final byte[] hash;
+
+		Key(byte[] hash) {
+			this.hash = hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(hash);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof Key)) {
+				return false;
+			}
+
+			return Arrays.equals(hash, ((Key) obj).hash);
+		}
+	}
+
+}
@@ -0,0 +1,222 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of serialized collection responses. A collection is serialized once
+ * per security view and kept until the collection is changed. Each entry
+ * holds the JSON body, its gzip compressed form and strong entity tags for
+ * both.
+ * <p>
+ * Entries are tagged with the generation of their collection at the time the
+ * serialization started. Invalidating a collection increments its generation,
+ * so a response serialized concurrently with a change is never served
+ * afterwards.
+ */
+public final class ResponseCache {
+
+	/**
+	 * Cached collections.
+	 */
+	public enum CachedCollection {
+		NODES, RUBRICS, TRANSMITTERS, TRANSMITTER_GROUPS
+	}
+
+	/**
+	 * Security views, each view uses a different exclusion strategy.
+	 */
+	public enum View {
+		ADMIN, USER
+	}
+
+	private final Map<CachedCollection, AtomicLong> generations = new EnumMap<>(CachedCollection.class);
+	private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Creates a new empty cache.
+	 */
+	public ResponseCache() {
+		for (CachedCollection collection : CachedCollection.values()) {
+			generations.put(collection, new AtomicLong());
+		}
+	}
+
+	/**
+	 * Returns the cached response or serializes the collection if it has been
+	 * changed since.
+	 *
+	 * @param collection Collection
+	 * @param view       Security view
+	 * @param serializer Serializes the collection
+	 * @return Cache entry
+	 */
+	public Entry get(CachedCollection collection, View view, Supplier<String> serializer) {
+		final long generation = generations.get(collection).get();
+		final Key key = new Key(collection, view);
+
+		Entry entry = entries.get(key);
+		if (entry != null && entry.generation == generation) {
+			hits.incrementAndGet();
+			return entry;
+		}
+
+		misses.incrementAndGet();
+		Entry created = new Entry(generation, serializer.get().getBytes(StandardCharsets.UTF_8));
+
+		// Keep a newer entry stored concurrently
+		entries.merge(key, created, (old, e) -> old.generation > e.generation ? old : e);
+		return created;
+	}
+
+	/**
+	 * Invalidates the cached responses of a collection.
+	 *
+	 * @param collection Changed collection
+	 */
+	public void invalidate(CachedCollection collection) {
+		generations.get(collection).incrementAndGet();
+	}
+
+	/**
+	 * Invalidates all cached responses, e.g. after the state has been replaced.
+	 */
+	public void invalidateAll() {
+		generations.values().forEach(AtomicLong::incrementAndGet);
+	}
+
+	/**
+	 * Gets the number of responses served from the cache.
+	 *
+	 * @return Number of hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of responses which had to be serialized.
+	 *
+	 * @return Number of misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Serialized response.
+	 */
+	public static final class Entry {
+		private final long generation;
+		private final byte[] body;
+		private final byte[] gzipBody;
+		private final String tag;
+
+		private Entry(long generation, byte[] body) {
+			this.generation = generation;
+			this.body = body;
+			this.gzipBody = gzip(body);
+			this.tag = digest(body);
+		}
+
+		/**
+		 * Returns the JSON body.
+		 *
+		 * @return UTF-8 encoded body
+		 */
+		public byte[] getBody() {
+			return body;
+		}
+
+		/**
+		 * Returns the gzip compressed JSON body.
+		 *
+		 * @return Compressed body
+		 */
+		public byte[] getGzipBody() {
+			return gzipBody;
+		}
+
+		/**
+		 * Returns the strong entity tag of the body.
+		 *
+		 * @param gzip {@code true} for the tag of the compressed body
+		 * @return Entity tag value without quotes
+		 */
+		public String getTag(boolean gzip) {
+			return gzip ? tag + "-gzip" : tag;
+		}
+
+		private static byte[] gzip(byte[] data) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+			try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+				gz.write(data);
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+
+			return out.toByteArray();
+		}
+
+		private static String digest(byte[] data) {
+			try {
+				// The tag depends on the content only
+				byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+				StringBuilder sb = new StringBuilder(32);
+				for (int i = 0; i < 16; ++i) {
+					sb.append(String.format("%02x", hash[i]));
+				}
+
+				return sb.toString();
+			} catch (NoSuchAlgorithmException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+	}
+
+	private static final class Key {
+		private final CachedCollection collection;
+		private final View view;
+
+		Key(CachedCollection collection, View view) {
+			this.collection = collection;
+			this.view = view;
+		}
+
+		@Override
+		public int hashCode() {
+			return collection.hashCode() * 31 + view.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof Key)) {
+				return false;
+			}
+
+			Key other = (Key) obj;
+			return collection == other.collection && view == other.view;
+		}
+	}
+
+}
@@ -15,19 +15,43 @@
 package org.dapnet.core.rest;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
+import org.dapnet.core.cluster.AntiEntropyStatistics;
+import org.dapnet.core.cluster.ViewStatistics;
 import org.dapnet.core.model.State;
+import org.dapnet.core.transmission.TransmitterManager;
 import org.jgroups.Address;
 
 public interface RestListener {
 	// Give (ReadOnly) Access to the State
 	State getState();
 
+	// Give (ReadOnly) Access to the connected transmitters
+	TransmitterManager getTransmitterManager();
+
+	// Give Access to the anti-entropy statistics
+	AntiEntropyStatistics getAntiEntropyStatistics();
+
+	// Give Access to the view handling statistics
+	ViewStatistics getViewStatistics();
+
+	// Give Access to the cache of serialized responses
+	ResponseCache getResponseCache();
+
+	// Give Access to the cache of verified credentials
+	CredentialCache getCredentialCache();
+
 	// Handler for WriteOnly Operations on State
 	// Add here parameters for rollback
 	@SuppressWarnings("rawtypes")
 	boolean handleStateOperation(Collection<Address> destination, String methodName, Object[] args, Class[] types);
 
+	// Same as handleStateOperation, but completes when all responses are received
+	@SuppressWarnings("rawtypes")
+	CompletableFuture<Boolean> handleStateOperationAsync(Collection<Address> destination, String methodName,
+			Object[] args, Class[] types);
+
 	// For pretest whether WriteOperation legal
 	boolean isQuorum();
 }
@@ -54,17 +54,23 @@ public class RestSecurity {
 			logger.info("No User with such name");
 			return SecurityStatus.UNAUTHORIZED;
 		}
-		// ValidatePassword
-		boolean authenticated = false;
-		try {
-			authenticated = HashUtil.validatePassword(loginData.getPassword(), user.getHash());
-		} catch (Exception e) {
-			logger.error("Error while validating password", e);
-			return SecurityStatus.INTERNAL_ERROR;
-		}
-		if (!authenticated) {
-			logger.info("Wrong Password");
-			return SecurityStatus.UNAUTHORIZED;
+		// ValidatePassword, recently verified credentials are taken from the cache
+		CredentialCache cache = restListener.getCredentialCache();
+		if (cache == null || !cache.isVerified(loginData.getUsername(), loginData.getPassword(), user.getHash())) {
+			boolean authenticated = false;
+			try {
+				authenticated = HashUtil.validatePassword(loginData.getPassword(), user.getHash());
+			} catch (Exception e) {
+				logger.error("Error while validating password", e);
+				return SecurityStatus.INTERNAL_ERROR;
+			}
+			if (!authenticated) {
+				logger.info("Wrong Password");
+				return SecurityStatus.UNAUTHORIZED;
+			}
+			if (cache != null) {
+				cache.put(loginData.getUsername(), loginData.getPassword(), user.getHash());
+			}
 		}
 
 		// Check if admin
@@ -26,6 +26,10 @@ public class RestSettings implements Serializable {
 	private String hostname = "localhost";
 	private int port = 8080;
 	private String path = "/";
+	private int maxPendingOperations = 64;
+	private boolean responseCache = true;
+	private int credentialCacheSize = 1024;
+	private long credentialCacheTtl = 300000;
 
 	/**
 	 * Returns the host name to listen on.
@@ -54,4 +58,43 @@ public class RestSettings implements Serializable {
 		return path;
 	}
 
+	/**
+	 * Returns the maximum number of cluster operations waiting for responses.
+	 * Further write requests are rejected with 503 Service Unavailable.
+	 * 
+	 * @return Maximum number of pending operations
+	 */
+	public int getMaxPendingOperations() {
+		return maxPendingOperations;
+	}
+
+	/**
+	 * Returns whether serialized collection responses are cached until the
+	 * collection is changed.
+	 * 
+	 * @return {@code true} if responses are cached
+	 */
+	public boolean isResponseCache() {
+		return responseCache;
+	}
+
+	/**
+	 * Returns the maximum number of verified credentials kept in the cache. A
+	 * size of 0 disables the cache.
+	 * 
+	 * @return Maximum number of cached credentials
+	 */
+	public int getCredentialCacheSize() {
+		return credentialCacheSize;
+	}
+
+	/**
+	 * Returns the time a verified credential is kept in the cache.
+	 * 
+	 * @return Time in milliseconds
+	 */
+	public long getCredentialCacheTtl() {
+		return credentialCacheTtl;
+	}
+
 }
@@ -0,0 +1,13 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.rest.exceptionHandling;
+
+/**
+ * Thrown if too many cluster operations are pending to accept another one.
+ */
+public class ClusterBusyException extends Exception {
+	private static final long serialVersionUID = -3960727232733934409L;
+}
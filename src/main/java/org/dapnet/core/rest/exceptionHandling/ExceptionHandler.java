@@ -25,6 +25,7 @@ import javax.ws.rs.NotFoundException;
 import javax.ws.rs.NotSupportedException;
 import javax.ws.rs.ServiceUnavailableException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
@@ -91,6 +92,9 @@ public class ExceptionHandler implements ExceptionMapper<Exception> {
 		} else if (e instanceof NoQuorumException) {
 			descriptor = new ExceptionDescriptor(5031, "No Quorum",
 					"Method temporarily not available, because only a minority of nodes could be contacted");
+		} else if (e instanceof ClusterBusyException) {
+			descriptor = new ExceptionDescriptor(5032, "Cluster Busy",
+					"Too many pending cluster operations, please retry later");
 		} else if (e instanceof ServiceUnavailableException) {
 			descriptor = new ExceptionDescriptor(5030, "Service Unavailable",
 					"A server-side error occurred while executing the request");
@@ -103,7 +107,12 @@ public class ExceptionHandler implements ExceptionMapper<Exception> {
 			logger.error(request.getMethod() + " " + uri.getPath() + " - " + descriptor.getLogMessage(), e);
 		}
 
-		return Response.status(descriptor.getCode() / 10).entity(descriptor.toJson()).type(MediaType.APPLICATION_JSON)
-				.build();
+		Response.ResponseBuilder builder = Response.status(descriptor.getCode() / 10).entity(descriptor.toJson())
+				.type(MediaType.APPLICATION_JSON);
+		if (e instanceof ClusterBusyException) {
+			builder.header(HttpHeaders.RETRY_AFTER, 1);
+		}
+
+		return builder.build();
 	}
 }
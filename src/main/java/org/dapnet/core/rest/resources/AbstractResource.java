@@ -14,38 +14,67 @@
 
 package org.dapnet.core.rest.resources;
 
+import java.io.OutputStreamWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.Validation;
 import javax.validation.Validator;
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.ForbiddenException;
 import javax.ws.rs.InternalServerErrorException;
 import javax.ws.rs.NotAuthorizedException;
 import javax.ws.rs.NotFoundException;
+import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
+import org.dapnet.core.Settings;
 import org.dapnet.core.model.Searchable;
 import org.dapnet.core.rest.ExclusionStrategies;
 import org.dapnet.core.rest.GsonTypeAdapterFactory;
+import org.dapnet.core.rest.ResponseCache;
+import org.dapnet.core.rest.ResponseCache.CachedCollection;
 import org.dapnet.core.rest.RestAuthorizable;
 import org.dapnet.core.rest.RestListener;
 import org.dapnet.core.rest.RestSecurity;
+import org.dapnet.core.rest.exceptionHandling.ClusterBusyException;
 import org.dapnet.core.rest.exceptionHandling.EmptyBodyException;
 import org.dapnet.core.rest.exceptionHandling.NoQuorumException;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 
 public abstract class AbstractResource {
+	/**
+	 * Response header containing the cursor of the next page.
+	 */
+	protected static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
 	@Context
 	UriInfo uriInfo;
 	@Context
 	HttpHeaders httpHeaders;
+	@Context
+	Request request;
 
 	protected static final Gson gson;
 	protected static final Gson userGson;
@@ -53,6 +82,9 @@ public abstract class AbstractResource {
 	// instead static attributes
 	protected static volatile RestListener restListener;
 	protected static volatile RestSecurity restSecurity;
+	// Limits the cluster operations waiting for responses
+	private static final Semaphore pendingOperations = new Semaphore(
+			Settings.getRestSettings().getMaxPendingOperations());
 
 	static {
 		gson = createBuilder().addSerializationExclusionStrategy(ExclusionStrategies.ADMIN).create();
@@ -131,8 +163,197 @@ public abstract class AbstractResource {
 		return Response.ok(getExclusionGson(status).toJson(object)).build();
 	}
 
-	public Response handleObject(Object object, String methodName, boolean creation, boolean quorumNeeded)
-			throws Exception {
+	/**
+	 * Sends a collection using the response cache. Conditional requests with a
+	 * matching entity tag are answered with 304 Not Modified, the body is sent gzip
+	 * compressed if the client accepts it.
+	 * 
+	 * @param collection Cached collection
+	 * @param object     Supplies the collection if it has to be serialized
+	 * @param status     Security status
+	 * @return Response
+	 * @throws Exception If the response could not be created.
+	 */
+	protected Response getCachedObject(CachedCollection collection, Supplier<?> object,
+			RestSecurity.SecurityStatus status) throws Exception {
+		ResponseCache cache = restListener.getResponseCache();
+		if (cache == null || !Settings.getRestSettings().isResponseCache()) {
+			return getObject(object.get(), status);
+		}
+
+		final Gson exclusionGson = getExclusionGson(status);
+		ResponseCache.View view = exclusionGson == gson ? ResponseCache.View.ADMIN : ResponseCache.View.USER;
+		ResponseCache.Entry entry = cache.get(collection, view, () -> exclusionGson.toJson(object.get()));
+
+		boolean gzip = acceptsGzip();
+		EntityTag tag = new EntityTag(entry.getTag(gzip));
+		Response.ResponseBuilder builder = request.evaluatePreconditions(tag);
+		if (builder == null) {
+			builder = Response.ok(gzip ? entry.getGzipBody() : entry.getBody());
+			if (gzip) {
+				builder.encoding("gzip");
+			}
+		}
+
+		return builder.tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+	}
+
+	private boolean acceptsGzip() {
+		String header = httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING);
+		if (header == null) {
+			return false;
+		}
+
+		for (String coding : header.split(",")) {
+			String[] params = coding.split(";");
+			if (params[0].trim().equalsIgnoreCase("gzip")) {
+				// Refused with a quality value of zero
+				return params.length < 2 || !params[1].trim().matches("q=0(\\.0*)?");
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Streams objects as a JSON array. The objects are serialized one by one while
+	 * the response is written, the stream is consumed after this method returns.
+	 * 
+	 * @param objects Objects to send
+	 * @param status  Security status
+	 * @return Response
+	 */
+	protected Response getObjects(Stream<?> objects, RestSecurity.SecurityStatus status) {
+		return getObjects(objects, null, status);
+	}
+
+	private Response getObjects(Stream<?> objects, String nextCursor, RestSecurity.SecurityStatus status) {
+		final Gson exclusionGson = getExclusionGson(status);
+		StreamingOutput output = out -> {
+			JsonWriter writer = exclusionGson.newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			writer.beginArray();
+
+			Iterator<?> it = objects.iterator();
+			while (it.hasNext()) {
+				Object object = it.next();
+				if (object != null) {
+					exclusionGson.toJson(object, object.getClass(), writer);
+				} else {
+					writer.nullValue();
+				}
+			}
+
+			writer.endArray();
+			writer.flush();
+		};
+
+		Response.ResponseBuilder builder = Response.ok(output);
+		if (nextCursor != null) {
+			builder.header(NEXT_CURSOR_HEADER, nextCursor);
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Sends a page of objects. The cursor of the next page is only sent if there
+	 * are more objects than the limit.
+	 * 
+	 * @param objects    Objects starting at the current page
+	 * @param limit      Maximum number of objects or {@code null} to send all
+	 *                   objects
+	 * @param nextCursor Creates the cursor of the next page from the objects sent
+	 * @param status     Security status
+	 * @return Response
+	 */
+	protected <T> Response getPage(Stream<T> objects, Integer limit, Function<List<T>, String> nextCursor,
+			RestSecurity.SecurityStatus status) {
+		return getPage(objects, limit, nextCursor, Function.identity(), status);
+	}
+
+	private <T> Response getPage(Stream<T> objects, Integer limit, Function<List<T>, String> nextCursor,
+			Function<T, ?> mapper, RestSecurity.SecurityStatus status) {
+		if (limit == null) {
+			return getObjects(objects.map(mapper), status);
+		} else if (limit < 1) {
+			throw new BadRequestException("Invalid limit.");
+		}
+
+		// Fetch one more object to find out if there is a next page
+		List<T> page = objects.limit(limit + 1L).collect(Collectors.toList());
+		String cursor = null;
+		if (page.size() > limit) {
+			page = page.subList(0, limit);
+			cursor = nextCursor.apply(page);
+		}
+
+		return getObjects(page.stream().map(mapper), cursor, status);
+	}
+
+	/**
+	 * Sends the entities of a state map. If a cursor or limit is given, the
+	 * entities are sent in the order of their names and the cursor is the name of
+	 * the last entity of the previous page.
+	 * 
+	 * @param entities Entities by name
+	 * @param filter   Filter or {@code null}
+	 * @param cursor   Cursor or {@code null} to start at the first entity
+	 * @param limit    Maximum number of entities or {@code null}
+	 * @param status   Security status
+	 * @return Response
+	 */
+	protected <T> Response getEntities(Map<String, T> entities, Predicate<? super T> filter, String cursor,
+			Integer limit, RestSecurity.SecurityStatus status) {
+		final Predicate<? super T> accept = filter != null ? filter : e -> true;
+		if (cursor == null && limit == null) {
+			return getObjects(entities.values().stream().filter(accept), status);
+		}
+
+		// Entities removed concurrently are skipped
+		Stream<Map.Entry<String, T>> sorted = entities.entrySet().stream()
+				.filter(e -> cursor == null || e.getKey().compareTo(cursor) > 0).sorted(Map.Entry.comparingByKey())
+				.filter(e -> accept.test(e.getValue()));
+		return getPage(sorted, limit, page -> page.get(page.size() - 1).getKey(), Map.Entry::getValue, status);
+	}
+
+	/**
+	 * Sends an operation to the cluster without blocking the calling thread. The
+	 * response is resumed once all members have answered.
+	 * 
+	 * @param asyncResponse Response to resume
+	 * @param methodName    RPC method name
+	 * @param args          RPC arguments
+	 * @param types         RPC argument types
+	 * @param onSuccess     Creates the response if the operation succeeded
+	 * @throws ClusterBusyException If too many operations are already pending.
+	 */
+	@SuppressWarnings("rawtypes")
+	protected void executeOperation(AsyncResponse asyncResponse, String methodName, Object[] args, Class[] types,
+			Supplier<Response> onSuccess) throws ClusterBusyException {
+		if (!pendingOperations.tryAcquire()) {
+			throw new ClusterBusyException();
+		}
+
+		try {
+			restListener.handleStateOperationAsync(null, methodName, args, types).whenComplete((success, ex) -> {
+				pendingOperations.release();
+
+				if (ex != null) {
+					asyncResponse.resume(ex);
+				} else if (success) {
+					asyncResponse.resume(onSuccess.get());
+				} else {
+					asyncResponse.resume(new InternalServerErrorException());
+				}
+			});
+		} catch (RuntimeException ex) {
+			pendingOperations.release();
+			throw ex;
+		}
+	}
+
+	public void handleObject(AsyncResponse asyncResponse, Object object, String methodName, boolean creation,
+			boolean quorumNeeded) throws Exception {
 		// Check Quorum
 		if (quorumNeeded && !restListener.isQuorum()) {
 			throw new NoQuorumException();
@@ -145,20 +366,21 @@ public abstract class AbstractResource {
 
 		validateObject(object);
 
+		// Request scoped, not available in the completion callback
+		URI location = uriInfo.getAbsolutePath();
+
 		// Send to Cluster
-		if (restListener.handleStateOperation(null, methodName, new Object[] { object },
-				new Class[] { object.getClass() })) {
+		executeOperation(asyncResponse, methodName, new Object[] { object }, new Class[] { object.getClass() }, () -> {
 			if (creation) {
-				return Response.created(uriInfo.getAbsolutePath()).entity(gson.toJson(object)).build();
+				return Response.created(location).entity(gson.toJson(object)).build();
 			} else {
 				return Response.ok(gson.toJson(object)).build();
 			}
-		} else {
-			throw new InternalServerErrorException();
-		}
+		});
 	}
 
-	protected Response deleteObject(Searchable object, String methodName, boolean quorumNeeded) throws Exception {
+	protected void deleteObject(AsyncResponse asyncResponse, Searchable object, String methodName,
+			boolean quorumNeeded) throws Exception {
 		// Check Quorum
 		if (quorumNeeded && !restListener.isQuorum()) {
 			throw new NoQuorumException();
@@ -170,12 +392,8 @@ public abstract class AbstractResource {
 		}
 
 		// Send to Cluster
-		if (restListener.handleStateOperation(null, methodName, new Object[] { object.getName() },
-				new Class[] { String.class })) {
-			// TODO Why do we return the deleted object here?
-			return Response.ok(gson.toJson(object)).build();
-		} else {
-			throw new InternalServerErrorException();
-		}
+		// TODO Why do we return the deleted object here?
+		executeOperation(asyncResponse, methodName, new Object[] { object.getName() }, new Class[] { String.class },
+				() -> Response.ok(gson.toJson(object)).build());
 	}
 }
@@ -20,8 +20,9 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
 
 import org.dapnet.core.model.Activation;
 import org.dapnet.core.rest.RestSecurity;
@@ -32,7 +33,7 @@ import org.dapnet.core.rest.exceptionHandling.EmptyBodyException;
 public class ActivationResource extends AbstractResource {
 	@POST
 	@Consumes(MediaType.APPLICATION_JSON)
-	public Response postCall(String activationJSON) throws Exception {
+	public void postCall(@Suspended AsyncResponse asyncResponse, String activationJSON) throws Exception {
 		checkAuthorization(RestSecurity.SecurityLevel.USER_ONLY);
 
 		// Create Activation
@@ -43,6 +44,6 @@ public class ActivationResource extends AbstractResource {
 			throw new EmptyBodyException();
 		}
 
-		return handleObject(activation, "postActivation", false, true);
+		handleObject(asyncResponse, activation, "postActivation", false, true);
 	}
 }
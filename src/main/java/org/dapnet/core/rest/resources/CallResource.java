@@ -15,19 +15,28 @@
 package org.dapnet.core.rest.resources;
 
 import java.time.Instant;
-import java.util.ArrayList;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.dapnet.core.model.Call;
+import org.dapnet.core.model.State;
 import org.dapnet.core.rest.LoginData;
 import org.dapnet.core.rest.RestSecurity;
 import org.dapnet.core.rest.exceptionHandling.EmptyBodyException;
@@ -35,29 +44,116 @@ import org.dapnet.core.rest.exceptionHandling.EmptyBodyException;
 @Path("/calls")
 @Produces(MediaType.APPLICATION_JSON)
 public class CallResource extends AbstractResource {
+	/**
+	 * Returns the calls ordered by timestamp. The cursor of the next page is
+	 * {@code <timestamp>~<n>}, the timestamp of the last call sent and the number
+	 * of calls sent with this timestamp.
+	 */
 	@GET
-	public Response getCalls(@QueryParam("ownerName") String ownerName) throws Exception {
+	public Response getCalls(@QueryParam("ownerName") String ownerName,
+			@QueryParam("callSignName") String callSignName,
+			@QueryParam("transmitterGroupName") String transmitterGroupName, @QueryParam("since") String since,
+			@QueryParam("cursor") String cursor, @QueryParam("limit") Integer limit) throws Exception {
 		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.USER_ONLY);
-		
-		if (ownerName == null || ownerName.isEmpty()) {
-			return getObject(restListener.getState().getCalls(), status);
+
+		Instant from = since != null ? parseInstant(since) : null;
+		Instant cursorTimestamp = null;
+		long cursorSkip = 0;
+		if (cursor != null) {
+			int pos = cursor.lastIndexOf('~');
+			try {
+				cursorTimestamp = Instant.parse(cursor.substring(0, Math.max(pos, 0)));
+				cursorSkip = Long.parseLong(cursor.substring(pos + 1));
+			} catch (DateTimeParseException | NumberFormatException ex) {
+				throw new BadRequestException("Invalid cursor.");
+			}
+
+			if (from == null || cursorTimestamp.isAfter(from)) {
+				from = cursorTimestamp;
+			}
+		}
+
+		// Use the most selective index available
+		State state = restListener.getState();
+		Stream<Call> calls;
+		if (!isEmpty(ownerName)) {
+			calls = getIndexed(state.getCallsByOwner(ownerName), from);
+		} else if (!isEmpty(callSignName)) {
+			calls = getIndexed(state.getCallsByCallSign(callSignName), from);
+		} else if (!isEmpty(transmitterGroupName)) {
+			calls = getIndexed(state.getCallsByTransmitterGroup(transmitterGroupName), from);
 		} else {
-			ownerName = ownerName.toLowerCase();
+			calls = state.getCalls().getRange(from, null).stream();
+		}
+
+		calls = calls.filter(call -> isEmpty(ownerName) || ownerName.equalsIgnoreCase(call.getOwnerName()))
+				.filter(matches(callSignName, Call::getCallSignNames))
+				.filter(matches(transmitterGroupName, Call::getTransmitterGroupNames));
 
-			List<Call> calls = new ArrayList<>();
-			for (Call call : restListener.getState().getCalls()) {
-				if (call.getOwnerName().equalsIgnoreCase(ownerName)) {
-					calls.add(call);
+		if (cursorTimestamp != null && cursorTimestamp.equals(from)) {
+			// Skip the calls with the cursor timestamp sent before
+			final Instant skipTimestamp = cursorTimestamp;
+			final long[] remaining = { cursorSkip };
+			calls = calls.filter(call -> {
+				if (remaining[0] > 0 && skipTimestamp.equals(call.getTimestamp())) {
+					--remaining[0];
+					return false;
 				}
+
+				return true;
+			});
+		}
+
+		final Instant previousTimestamp = cursorTimestamp;
+		final long previousSkip = cursorSkip;
+		return getPage(calls, limit, page -> {
+			Instant last = page.get(page.size() - 1).getTimestamp();
+			long count = page.stream().filter(call -> last.equals(call.getTimestamp())).count();
+			if (last.equals(previousTimestamp)) {
+				count += previousSkip;
 			}
 
-			return getObject(calls, status);
+			return last + "~" + count;
+		}, status);
+	}
+
+	private static Stream<Call> getIndexed(List<Call> calls, Instant from) {
+		// Indexed calls are in insertion order
+		calls.sort(Comparator.comparing(Call::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder())));
+		Stream<Call> stream = calls.stream();
+		if (from != null) {
+			stream = stream.filter(call -> call.getTimestamp() != null && !call.getTimestamp().isBefore(from));
+		}
+
+		return stream;
+	}
+
+	private static Predicate<Call> matches(String name, Function<Call, Collection<String>> names) {
+		if (isEmpty(name)) {
+			return call -> true;
+		}
+
+		return call -> {
+			Collection<String> values = names.apply(call);
+			return values != null && values.stream().anyMatch(name::equalsIgnoreCase);
+		};
+	}
+
+	private static boolean isEmpty(String value) {
+		return value == null || value.isEmpty();
+	}
+
+	private static Instant parseInstant(String value) {
+		try {
+			return Instant.parse(value);
+		} catch (DateTimeParseException ex) {
+			throw new BadRequestException("Invalid timestamp.");
 		}
 	}
 
 	@POST
 	@Consumes(MediaType.APPLICATION_JSON)
-	public Response postCall(String callJSON) throws Exception {
+	public void postCall(@Suspended AsyncResponse asyncResponse, String callJSON) throws Exception {
 		checkAuthorization(RestSecurity.SecurityLevel.USER_ONLY);
 
 		// Create Call
@@ -69,6 +165,6 @@ public class CallResource extends AbstractResource {
 			throw new EmptyBodyException();
 		}
 
-		return handleObject(call, "postCall", true, false);
+		handleObject(asyncResponse, call, "postCall", true, false);
 	}
 }
@@ -14,6 +14,8 @@
 
 package org.dapnet.core.rest.resources;
 
+import java.util.function.Predicate;
+
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -21,6 +23,9 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -32,9 +37,16 @@ import org.dapnet.core.rest.exceptionHandling.EmptyBodyException;
 @Produces(MediaType.APPLICATION_JSON)
 public class CallSignResource extends AbstractResource {
 	@GET
-	public Response getCallSigns() throws Exception {
+	public Response getCallSigns(@QueryParam("ownerName") String ownerName, @QueryParam("cursor") String cursor,
+			@QueryParam("limit") Integer limit) throws Exception {
 		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.USER_ONLY);
-		return getObject(restListener.getState().getCallSigns().values(), status);
+
+		Predicate<CallSign> filter = null;
+		if (ownerName != null && !ownerName.isEmpty()) {
+			filter = c -> c.getOwnerNames() != null && c.getOwnerNames().stream().anyMatch(ownerName::equalsIgnoreCase);
+		}
+
+		return getEntities(restListener.getState().getCallSigns(), filter, cursor, limit, status);
 	}
 
 	@GET
@@ -52,7 +64,8 @@ public class CallSignResource extends AbstractResource {
 	@PUT
 	@Path("{callSign}")
 	@Consumes(MediaType.APPLICATION_JSON)
-	public Response putCallSign(@PathParam("callSign") String callSignName, String callSignJSON) throws Exception {
+	public void putCallSign(@Suspended AsyncResponse asyncResponse, @PathParam("callSign") String callSignName,
+			String callSignJSON) throws Exception {
 		if (callSignName != null) {
 			callSignName = callSignName.toLowerCase();
 		}
@@ -73,12 +86,13 @@ public class CallSignResource extends AbstractResource {
 			throw new EmptyBodyException();
 		}
 
-		return handleObject(callSign, "putCallSign", oldCallSign == null, true);
+		handleObject(asyncResponse, callSign, "putCallSign", oldCallSign == null, true);
 	}
 
 	@DELETE
 	@Path("{callSign}")
-	public Response deleteCallSign(@PathParam("callSign") String callSign) throws Exception {
+	public void deleteCallSign(@Suspended AsyncResponse asyncResponse, @PathParam("callSign") String callSign)
+			throws Exception {
 		if (callSign != null) {
 			callSign = callSign.toLowerCase();
 		}
@@ -92,6 +106,6 @@ public class CallSignResource extends AbstractResource {
 			checkAuthorization(RestSecurity.SecurityLevel.ADMIN_ONLY);
 		}
 
-		return deleteObject(oldCallSign, "deleteCallSign", true);
+		deleteObject(asyncResponse, oldCallSign, "deleteCallSign", true);
 	}
 }
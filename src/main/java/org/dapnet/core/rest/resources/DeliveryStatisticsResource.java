@@ -0,0 +1,36 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.rest.resources;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.dapnet.core.rest.RestSecurity;
+import org.dapnet.core.transmission.DeliveryStatistics;
+
+@Path("/stats/delivery")
+@Produces(MediaType.APPLICATION_JSON)
+public class DeliveryStatisticsResource extends AbstractResource {
+
+	@GET
+	public Response get() throws Exception {
+		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.EVERYBODY);
+		DeliveryStatistics stats = restListener.getTransmitterManager().getStatistics().getDelivery();
+		return getObject(stats.getSnapshot(), status);
+	}
+
+	@GET
+	@Path("{transmitter}")
+	public Response getTransmitter(@PathParam("transmitter") String transmitterName) throws Exception {
+		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.EVERYBODY);
+		return getObject(restListener.getTransmitterManager().getDeliveryStatistics(transmitterName), status);
+	}
+
+}
@@ -22,6 +22,8 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -48,7 +50,7 @@ public class NewsResource extends AbstractResource {
 
 	@POST
 	@Consumes(MediaType.APPLICATION_JSON)
-	public Response postNews(String newsJSON) throws Exception {
+	public void postNews(@Suspended AsyncResponse asyncResponse, String newsJSON) throws Exception {
 		// Start request processing only if at least USER
 		checkAuthorization(RestSecurity.SecurityLevel.USER_ONLY);
 
@@ -65,6 +67,6 @@ public class NewsResource extends AbstractResource {
 		checkAuthorization(RestSecurity.SecurityLevel.OWNER_ONLY,
 				restListener.getState().getRubrics().get(news.getRubricName()));
 
-		return handleObject(news, "postNews", true, false);
+		handleObject(asyncResponse, news, "postNews", true, false);
 	}
 }
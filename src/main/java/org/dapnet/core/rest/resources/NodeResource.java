@@ -21,11 +21,14 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.dapnet.core.model.Node;
 import org.dapnet.core.model.Node.Status;
+import org.dapnet.core.rest.ResponseCache.CachedCollection;
 import org.dapnet.core.rest.RestSecurity;
 import org.dapnet.core.rest.exceptionHandling.EmptyBodyException;
 
@@ -35,7 +38,7 @@ public class NodeResource extends AbstractResource {
 	@GET
 	public Response getNodes() throws Exception {
 		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.USER_ONLY);
-		return getObject(restListener.getState().getNodes().values(), status);
+		return getCachedObject(CachedCollection.NODES, () -> restListener.getState().getNodes().values(), status);
 	}
 
 	@GET
@@ -52,7 +55,8 @@ public class NodeResource extends AbstractResource {
 	@PUT
 	@Path("{node}")
 	@Consumes(MediaType.APPLICATION_JSON)
-	public Response putNode(@PathParam("node") String nodeName, String nodeJSON) throws Exception {
+	public void putNode(@Suspended AsyncResponse asyncResponse, @PathParam("node") String nodeName, String nodeJSON)
+			throws Exception {
 		if (nodeName != null) {
 			nodeName = nodeName.toLowerCase();
 		}
@@ -74,17 +78,17 @@ public class NodeResource extends AbstractResource {
 			node.setAddress(oldNode.getAddress());
 		}
 
-		return handleObject(node, "putNode", oldNode == null, true);
+		handleObject(asyncResponse, node, "putNode", oldNode == null, true);
 	}
 
 	@DELETE
 	@Path("{node}")
-	public Response deleteNode(@PathParam("node") String node) throws Exception {
+	public void deleteNode(@Suspended AsyncResponse asyncResponse, @PathParam("node") String node) throws Exception {
 		if (node != null) {
 			node = node.toLowerCase();
 		}
 
 		checkAuthorization(RestSecurity.SecurityLevel.ADMIN_ONLY);
-		return deleteObject(restListener.getState().getNodes().get(node), "deleteNode", true);
+		deleteObject(asyncResponse, restListener.getState().getNodes().get(node), "deleteNode", true);
 	}
 }
\ No newline at end of file
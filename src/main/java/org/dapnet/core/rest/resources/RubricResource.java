@@ -21,9 +21,12 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Response;
 
 import org.dapnet.core.model.Rubric;
+import org.dapnet.core.rest.ResponseCache.CachedCollection;
 import org.dapnet.core.rest.RestSecurity;
 import org.dapnet.core.rest.exceptionHandling.EmptyBodyException;
 
@@ -33,7 +36,7 @@ public class RubricResource extends AbstractResource {
 	@GET
 	public Response getRubrics() throws Exception {
 		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.USER_ONLY);
-		return getObject(restListener.getState().getRubrics().values(), status);
+		return getCachedObject(CachedCollection.RUBRICS, () -> restListener.getState().getRubrics().values(), status);
 	}
 
 	@GET
@@ -51,7 +54,8 @@ public class RubricResource extends AbstractResource {
 	@PUT
 	@Path("{rubric}")
 	@Consumes("application/json")
-	public Response putRubric(@PathParam("rubric") String rubricName, String rubricJSON) throws Exception {
+	public void putRubric(@Suspended AsyncResponse asyncResponse, @PathParam("rubric") String rubricName,
+			String rubricJSON) throws Exception {
 		if (rubricName != null) {
 			rubricName = rubricName.toLowerCase();
 		}
@@ -73,12 +77,13 @@ public class RubricResource extends AbstractResource {
 			throw new EmptyBodyException();
 		}
 
-		return handleObject(rubric, "putRubric", oldRubric == null, true);
+		handleObject(asyncResponse, rubric, "putRubric", oldRubric == null, true);
 	}
 
 	@DELETE
 	@Path("{rubric}")
-	public Response deleteRubric(@PathParam("rubric") String rubric) throws Exception {
+	public void deleteRubric(@Suspended AsyncResponse asyncResponse, @PathParam("rubric") String rubric)
+			throws Exception {
 		if (rubric != null) {
 			rubric = rubric.toLowerCase();
 		}
@@ -92,6 +97,6 @@ public class RubricResource extends AbstractResource {
 			checkAuthorization(RestSecurity.SecurityLevel.USER_ONLY);
 		}
 
-		return deleteObject(oldRubric, "deleteRubric", true);
+		deleteObject(asyncResponse, oldRubric, "deleteRubric", true);
 	}
 }
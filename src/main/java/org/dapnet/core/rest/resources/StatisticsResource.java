@@ -12,10 +12,15 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.dapnet.core.model.NewsList;
+import org.dapnet.core.cluster.AntiEntropyStatistics;
+import org.dapnet.core.cluster.ViewStatistics;
 import org.dapnet.core.model.Node;
 import org.dapnet.core.model.State;
 import org.dapnet.core.model.Transmitter;
+import org.dapnet.core.rest.CredentialCache;
+import org.dapnet.core.rest.ResponseCache;
 import org.dapnet.core.rest.RestSecurity;
+import org.dapnet.core.transmission.TransmissionStatistics;
 
 @Path("/stats")
 @Produces(MediaType.APPLICATION_JSON)
@@ -27,6 +32,35 @@ public class StatisticsResource extends AbstractResource {
 		return getObject(new ObjectCounts(restListener.getState()), status);
 	}
 
+	@GET
+	@Path("transmission")
+	public Response getTransmission() throws Exception {
+		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.EVERYBODY);
+		return getObject(new TransmissionCounts(restListener.getTransmitterManager().getStatistics()), status);
+	}
+
+	@GET
+	@Path("transmitters")
+	public Response getTransmitters() throws Exception {
+		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.EVERYBODY);
+		return getObject(restListener.getTransmitterManager().getClientStatistics(), status);
+	}
+
+	@GET
+	@Path("cluster")
+	public Response getCluster() throws Exception {
+		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.EVERYBODY);
+		return getObject(
+				new ClusterCounts(restListener.getAntiEntropyStatistics(), restListener.getViewStatistics()), status);
+	}
+
+	@GET
+	@Path("rest")
+	public Response getRest() throws Exception {
+		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.EVERYBODY);
+		return getObject(new RestCounts(restListener.getResponseCache(), restListener.getCredentialCache()), status);
+	}
+
 	public static final class ObjectCounts {
 		private final int users;
 		private final int calls;
@@ -102,4 +136,133 @@ public class StatisticsResource extends AbstractResource {
 
 	}
 
+	public static final class TransmissionCounts {
+		private final long flushesRequested;
+		private final long flushesWritten;
+		private final long flushesSaved;
+		private final long droppedMessages;
+
+		public TransmissionCounts(TransmissionStatistics stats) {
+			flushesRequested = stats.getFlushesRequested();
+			flushesWritten = stats.getFlushesWritten();
+			flushesSaved = stats.getFlushesSaved();
+			droppedMessages = stats.getDroppedMessages();
+		}
+
+		public long getFlushesRequested() {
+			return flushesRequested;
+		}
+
+		public long getFlushesWritten() {
+			return flushesWritten;
+		}
+
+		public long getFlushesSaved() {
+			return flushesSaved;
+		}
+
+		public long getDroppedMessages() {
+			return droppedMessages;
+		}
+
+	}
+
+	public static final class ClusterCounts {
+		private final long viewsReceived;
+		private final long viewsSkipped;
+		private final long viewsHandled;
+		private final long viewHandlingTime;
+		private final long maxViewHandlingTime;
+		private final long runs;
+		private final long failedRuns;
+		private final long divergentRuns;
+		private final long divergentBuckets;
+		private final long repairedEntities;
+
+		public ClusterCounts(AntiEntropyStatistics stats, ViewStatistics viewStats) {
+			viewsReceived = viewStats.getViewsReceived();
+			viewsSkipped = viewStats.getViewsSkipped();
+			viewsHandled = viewStats.getViewsHandled();
+			viewHandlingTime = viewStats.getHandlingTime();
+			maxViewHandlingTime = viewStats.getMaxHandlingTime();
+			runs = stats.getRuns();
+			failedRuns = stats.getFailedRuns();
+			divergentRuns = stats.getDivergentRuns();
+			divergentBuckets = stats.getDivergentBuckets();
+			repairedEntities = stats.getRepairedEntities();
+		}
+
+		public long getViewsReceived() {
+			return viewsReceived;
+		}
+
+		public long getViewsSkipped() {
+			return viewsSkipped;
+		}
+
+		public long getViewsHandled() {
+			return viewsHandled;
+		}
+
+		public long getViewHandlingTime() {
+			return viewHandlingTime;
+		}
+
+		public long getMaxViewHandlingTime() {
+			return maxViewHandlingTime;
+		}
+
+		public long getRuns() {
+			return runs;
+		}
+
+		public long getFailedRuns() {
+			return failedRuns;
+		}
+
+		public long getDivergentRuns() {
+			return divergentRuns;
+		}
+
+		public long getDivergentBuckets() {
+			return divergentBuckets;
+		}
+
+		public long getRepairedEntities() {
+			return repairedEntities;
+		}
+
+	}
+
+	public static final class RestCounts {
+		private final long responseCacheHits;
+		private final long responseCacheMisses;
+		private final long credentialCacheHits;
+		private final long credentialCacheMisses;
+
+		public RestCounts(ResponseCache responseCache, CredentialCache credentialCache) {
+			responseCacheHits = responseCache.getHits();
+			responseCacheMisses = responseCache.getMisses();
+			credentialCacheHits = credentialCache.getHits();
+			credentialCacheMisses = credentialCache.getMisses();
+		}
+
+		public long getResponseCacheHits() {
+			return responseCacheHits;
+		}
+
+		public long getResponseCacheMisses() {
+			return responseCacheMisses;
+		}
+
+		public long getCredentialCacheHits() {
+			return credentialCacheHits;
+		}
+
+		public long getCredentialCacheMisses() {
+			return credentialCacheMisses;
+		}
+
+	}
+
 }
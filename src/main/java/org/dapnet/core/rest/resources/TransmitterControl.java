@@ -1,9 +1,10 @@
 package org.dapnet.core.rest.resources;
 
 import javax.ws.rs.GET;
-import javax.ws.rs.InternalServerErrorException;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Response;
 
 import org.dapnet.core.model.Transmitter;
@@ -15,7 +16,8 @@ public class TransmitterControl extends AbstractResource {
 
 	@Path("sendRubricNames/{transmitter}")
 	@GET
-	public Response sendRubricNames(@PathParam("transmitter") String transmitterName) throws Exception {
+	public void sendRubricNames(@Suspended AsyncResponse asyncResponse,
+			@PathParam("transmitter") String transmitterName) throws Exception {
 		final Transmitter transmitter = restListener.getState().getTransmitters().get(transmitterName);
 		if (transmitter != null) {
 			checkAuthorization(RestSecurity.SecurityLevel.OWNER_ONLY, transmitter);
@@ -23,11 +25,7 @@ public class TransmitterControl extends AbstractResource {
 			throw new EmptyBodyException();
 		}
 
-		if (restListener.handleStateOperation(null, "sendRubricNames", new Object[] { transmitterName },
-				new Class[] { String.class })) {
-			return Response.ok().build();
-		} else {
-			throw new InternalServerErrorException();
-		}
+		executeOperation(asyncResponse, "sendRubricNames", new Object[] { transmitterName },
+				new Class[] { String.class }, () -> Response.ok().build());
 	}
 }
@@ -22,10 +22,13 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.dapnet.core.model.TransmitterGroup;
+import org.dapnet.core.rest.ResponseCache.CachedCollection;
 import org.dapnet.core.rest.RestSecurity;
 import org.dapnet.core.rest.exceptionHandling.EmptyBodyException;
 
@@ -35,7 +38,8 @@ public class TransmitterGroupResource extends AbstractResource {
 	@GET
 	public Response getTransmitterGroups() throws Exception {
 		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.USER_ONLY);
-		return getObject(restListener.getState().getTransmitterGroups().values(), status);
+		return getCachedObject(CachedCollection.TRANSMITTER_GROUPS,
+				() -> restListener.getState().getTransmitterGroups().values(), status);
 	}
 
 	@GET
@@ -53,8 +57,8 @@ public class TransmitterGroupResource extends AbstractResource {
 	@PUT
 	@Path("{transmitterGroup}")
 	@Consumes(MediaType.APPLICATION_JSON)
-	public Response putTransmitterGroup(@PathParam("transmitterGroup") String transmitterGroupName,
-			String transmitterGroupJSON) throws Exception {
+	public void putTransmitterGroup(@Suspended AsyncResponse asyncResponse,
+			@PathParam("transmitterGroup") String transmitterGroupName, String transmitterGroupJSON) throws Exception {
 		if (transmitterGroupName != null) {
 			transmitterGroupName = transmitterGroupName.toLowerCase();
 		}
@@ -76,12 +80,13 @@ public class TransmitterGroupResource extends AbstractResource {
 			throw new EmptyBodyException();
 		}
 
-		return handleObject(transmitterGroup, "putTransmitterGroup", oldGroup == null, true);
+		handleObject(asyncResponse, transmitterGroup, "putTransmitterGroup", oldGroup == null, true);
 	}
 
 	@DELETE
 	@Path("{transmitterGroup}")
-	public Response deleteTransmitterGroup(@PathParam("transmitterGroup") String transmitterGroup) throws Exception {
+	public void deleteTransmitterGroup(@Suspended AsyncResponse asyncResponse,
+			@PathParam("transmitterGroup") String transmitterGroup) throws Exception {
 		if (transmitterGroup != null) {
 			transmitterGroup = transmitterGroup.toLowerCase();
 		}
@@ -90,7 +95,7 @@ public class TransmitterGroupResource extends AbstractResource {
 				.get(transmitterGroup);
 		if (oldTransmitterGroup != null) {
 			checkAuthorization(RestSecurity.SecurityLevel.OWNER_ONLY, oldTransmitterGroup);
-			return deleteObject(oldTransmitterGroup, "deleteTransmitterGroup", true);
+			deleteObject(asyncResponse, oldTransmitterGroup, "deleteTransmitterGroup", true);
 		} else {
 			checkAuthorization(RestSecurity.SecurityLevel.ADMIN_ONLY);
 			throw new NotFoundException();
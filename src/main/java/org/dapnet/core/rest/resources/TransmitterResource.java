@@ -15,9 +15,13 @@
 package org.dapnet.core.rest.resources;
 
 import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -26,10 +30,15 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.dapnet.core.model.Transmitter;
+import org.dapnet.core.model.TransmitterGroup;
+import org.dapnet.core.rest.ResponseCache.CachedCollection;
 import org.dapnet.core.rest.RestSecurity;
 import org.dapnet.core.rest.exceptionHandling.EmptyBodyException;
 
@@ -39,9 +48,44 @@ public class TransmitterResource extends AbstractResource {
 	private static final Pattern authKeyPattern = Pattern.compile("\\p{Alnum}+");
 
 	@GET
-	public Response getTransmitters() throws Exception {
-		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.EVERYBODY);
-		return getObject(restListener.getState().getTransmitters().values(), status);
+	public Response getTransmitters(@QueryParam("ownerName") String ownerName, @QueryParam("status") String status,
+			@QueryParam("transmitterGroupName") String transmitterGroupName, @QueryParam("cursor") String cursor,
+			@QueryParam("limit") Integer limit) throws Exception {
+		RestSecurity.SecurityStatus securityStatus = checkAuthorization(RestSecurity.SecurityLevel.EVERYBODY);
+		if (ownerName == null && status == null && transmitterGroupName == null && cursor == null && limit == null) {
+			return getCachedObject(CachedCollection.TRANSMITTERS,
+					() -> restListener.getState().getTransmitters().values(), securityStatus);
+		}
+
+		Predicate<Transmitter> filter = t -> true;
+		if (ownerName != null && !ownerName.isEmpty()) {
+			filter = filter.and(t -> t.getOwnerNames() != null
+					&& t.getOwnerNames().stream().anyMatch(ownerName::equalsIgnoreCase));
+		}
+
+		if (status != null && !status.isEmpty()) {
+			final Transmitter.Status value;
+			try {
+				value = Transmitter.Status.valueOf(status.toUpperCase());
+			} catch (IllegalArgumentException ex) {
+				throw new BadRequestException("Invalid status.");
+			}
+
+			filter = filter.and(t -> t.getStatus() == value);
+		}
+
+		if (transmitterGroupName != null && !transmitterGroupName.isEmpty()) {
+			TransmitterGroup group = restListener.getState().getTransmitterGroups()
+					.get(transmitterGroupName.toLowerCase());
+			Set<String> names = new HashSet<>();
+			if (group != null && group.getTransmitterNames() != null) {
+				group.getTransmitterNames().forEach(name -> names.add(name.toLowerCase()));
+			}
+
+			filter = filter.and(t -> names.contains(t.getName().toLowerCase()));
+		}
+
+		return getEntities(restListener.getState().getTransmitters(), filter, cursor, limit, securityStatus);
 	}
 
 	@GET
@@ -59,8 +103,8 @@ public class TransmitterResource extends AbstractResource {
 	@PUT
 	@Path("{transmitter}")
 	@Consumes(MediaType.APPLICATION_JSON)
-	public Response putTransmitter(@PathParam("transmitter") String transmitterName, String transmitterJSON)
-			throws Exception {
+	public void putTransmitter(@Suspended AsyncResponse asyncResponse, @PathParam("transmitter") String transmitterName,
+			String transmitterJSON) throws Exception {
 		if (transmitterName != null) {
 			transmitterName = transmitterName.toLowerCase();
 		}
@@ -94,12 +138,13 @@ public class TransmitterResource extends AbstractResource {
 			throw new NotAcceptableException("Auth key contains invalid characters.");
 		}
 
-		return handleObject(transmitter, "putTransmitter", oldTransmitter == null, true);
+		handleObject(asyncResponse, transmitter, "putTransmitter", oldTransmitter == null, true);
 	}
 
 	@DELETE
 	@Path("{transmitter}")
-	public Response deleteTransmitter(@PathParam("transmitter") String transmitter) throws Exception {
+	public void deleteTransmitter(@Suspended AsyncResponse asyncResponse, @PathParam("transmitter") String transmitter)
+			throws Exception {
 		if (transmitter != null) {
 			transmitter = transmitter.toLowerCase();
 		}
@@ -111,6 +156,6 @@ public class TransmitterResource extends AbstractResource {
 			checkAuthorization(RestSecurity.SecurityLevel.ADMIN_ONLY);
 		}
 
-		return deleteObject(oldTransmitter, "deleteTransmitter", true);
+		deleteObject(asyncResponse, oldTransmitter, "deleteTransmitter", true);
 	}
 }
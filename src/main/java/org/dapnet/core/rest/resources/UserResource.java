@@ -21,6 +21,9 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -33,9 +36,10 @@ import org.dapnet.core.rest.exceptionHandling.EmptyBodyException;
 @Produces(MediaType.APPLICATION_JSON)
 public class UserResource extends AbstractResource {
 	@GET
-	public Response getUsers() throws Exception {
+	public Response getUsers(@QueryParam("cursor") String cursor, @QueryParam("limit") Integer limit)
+			throws Exception {
 		RestSecurity.SecurityStatus status = checkAuthorization(RestSecurity.SecurityLevel.USER_ONLY);
-		return getObject(restListener.getState().getUsers().values(), status);
+		return getEntities(restListener.getState().getUsers(), null, cursor, limit, status);
 	}
 
 	@GET
@@ -53,7 +57,8 @@ public class UserResource extends AbstractResource {
 	@PUT
 	@Path("{user}")
 	@Consumes(MediaType.APPLICATION_JSON)
-	public Response putUser(@PathParam("user") String userName, String userJSON) throws Exception {
+	public void putUser(@Suspended AsyncResponse asyncResponse, @PathParam("user") String userName, String userJSON)
+			throws Exception {
 		// Start request processing only if at least USER
 		checkAuthorization(RestSecurity.SecurityLevel.USER_ONLY);
 
@@ -88,12 +93,12 @@ public class UserResource extends AbstractResource {
 			}
 		}
 
-		return handleObject(user, "putUser", oldUser == null, true);
+		handleObject(asyncResponse, user, "putUser", oldUser == null, true);
 	}
 
 	@DELETE
 	@Path("{user}")
-	public Response deleteUser(@PathParam("user") String user) throws Exception {
+	public void deleteUser(@Suspended AsyncResponse asyncResponse, @PathParam("user") String user) throws Exception {
 		if (user != null) {
 			user = user.toLowerCase();
 		}
@@ -107,6 +112,6 @@ public class UserResource extends AbstractResource {
 			checkAuthorization(RestSecurity.SecurityLevel.ADMIN_ONLY);
 		}
 
-		return deleteObject(oldUser, "deleteUser", true);
+		deleteObject(asyncResponse, oldUser, "deleteUser", true);
 	}
 }
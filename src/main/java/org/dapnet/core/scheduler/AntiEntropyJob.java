@@ -0,0 +1,34 @@
+/*
+ * DAPNET CORE PROJECT
+ * Copyright (C) 2017
+ */
+
+package org.dapnet.core.scheduler;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dapnet.core.cluster.ClusterManager;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.SchedulerContext;
+import org.quartz.SchedulerException;
+
+@DisallowConcurrentExecution
+public class AntiEntropyJob implements Job {
+	private static final Logger logger = LogManager.getLogger();
+
+	@Override
+	public void execute(JobExecutionContext context) throws JobExecutionException {
+		SchedulerContext schedulerContext = null;
+		try {
+			schedulerContext = context.getScheduler().getContext();
+			ClusterManager clusterManager = (ClusterManager) schedulerContext.get("clusterManager");
+
+			clusterManager.runAntiEntropy();
+		} catch (SchedulerException e) {
+			logger.fatal("Failed to execute AntiEntropyJob", e);
+		}
+	}
+}
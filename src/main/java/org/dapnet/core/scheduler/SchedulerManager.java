@@ -48,6 +48,7 @@ public class SchedulerManager {
 		registerStateSavingJob();
 		registerStateCleaningJob();
 		registerTransmitterIdentificationJob();
+		registerAntiEntropyJob();
 
 		logger.info("SchedulerManager successfully started");
 	}
@@ -104,6 +105,13 @@ public class SchedulerManager {
 		scheduler.scheduleJob(job, trigger);
 	}
 
+	private void registerAntiEntropyJob() throws SchedulerException {
+		JobDetail job = newJob(AntiEntropyJob.class).withIdentity("antiEntropyJob", "main").build();
+		CronTrigger trigger = newTrigger().withIdentity("antiEntropyTrigger", "main")
+				.withSchedule(cronSchedule(Settings.getSchedulerSettings().getAntiEntropyCron())).build();
+		scheduler.scheduleJob(job, trigger);
+	}
+
 	public void stop() {
 		try {
 			scheduler.shutdown();
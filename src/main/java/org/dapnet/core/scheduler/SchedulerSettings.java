@@ -25,6 +25,7 @@ public class SchedulerSettings implements Serializable {
 	private String stateSavingCron = "30 0/10 * * * ?";
 	private String stateCleaningCron = "0 0 0 * * ?";
 	private String transmitterIdentificationCron = "0 0/10 * * * ?";
+	private String antiEntropyCron = "40 0/5 * * * ?";
 
 	public String getTimeTransmissionCron() {
 		return timeTransmissionCron;
@@ -53,4 +54,8 @@ public class SchedulerSettings implements Serializable {
 	public String getTransmitterIdentificationCron() {
 		return transmitterIdentificationCron;
 	}
+
+	public String getAntiEntropyCron() {
+		return antiEntropyCron;
+	}
 }
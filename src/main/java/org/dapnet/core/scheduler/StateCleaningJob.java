@@ -18,13 +18,11 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.dapnet.core.Settings;
 import org.dapnet.core.cluster.ClusterManager;
-import org.dapnet.core.model.Call;
 import org.dapnet.core.model.State;
 import org.dapnet.core.model.Transmitter;
 import org.quartz.Job;
@@ -50,7 +48,7 @@ public class StateCleaningJob implements Job {
 			// FIXME This is broken
 			// cleanTransmitters(clusterManager, now);
 
-			state.writeToFile();
+			clusterManager.writeState();
 		} catch (SchedulerException e) {
 			logger.error("Failed to execute StateCleaningJob", e);
 		}
@@ -58,13 +56,8 @@ public class StateCleaningJob implements Job {
 
 	private static void cleanCalls(State state, Instant now) {
 		Duration exp = Duration.ofMinutes(Settings.getModelSettings().getCallExpirationTimeInMinutes());
-		Iterator<Call> it = state.getCalls().iterator();
-		while (it.hasNext()) {
-			Call call = it.next();
-			if (now.isAfter(call.getTimestamp().plus(exp))) {
-				it.remove();
-			}
-		}
+		int removed = state.removeExpiredCalls(now.minus(exp));
+		logger.debug("Removed {} expired calls.", removed);
 	}
 
 	private static void cleanNews(State state, Instant now) {
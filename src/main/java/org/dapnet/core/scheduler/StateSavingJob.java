@@ -33,7 +33,7 @@ public class StateSavingJob implements Job {
 			schedulerContext = context.getScheduler().getContext();
 			ClusterManager clusterManager = (ClusterManager) schedulerContext.get("clusterManager");
 
-			clusterManager.getState().writeToFile();
+			clusterManager.writeState();
 		} catch (SchedulerException e) {
 			logger.fatal("Failed to execute StateSavingJob", e);
 		}
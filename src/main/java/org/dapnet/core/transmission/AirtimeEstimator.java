@@ -0,0 +1,163 @@
+package org.dapnet.core.transmission;
+
+import org.dapnet.core.transmission.PagerMessage.FunctionalBits;
+
+/**
+ * Computes the number of POCSAG codewords and the resulting airtime of pager
+ * messages.
+ * <p>
+ * A transmission starts with a preamble of 576 bits followed by batches of 17
+ * codewords: one sync codeword and 8 frames of two codewords each. The address
+ * codeword of a message must be sent in the frame selected by the lowest three
+ * bits of the address, the message codewords follow immediately and may span
+ * several frames and batches. The last batch is filled with idle codewords.
+ * <p>
+ * Messages are packed by their position, i.e. the number of codewords (without
+ * sync codewords) used in the current transmission so far. All methods are
+ * allocation free, this class is immutable and thread-safe.
+ */
+public final class AirtimeEstimator {
+
+	public static final int PREAMBLE_BITS = 576;
+	public static final int CODEWORD_BITS = 32;
+	public static final int FRAMES_PER_BATCH = 8;
+	private static final int CODEWORDS_PER_BATCH = FRAMES_PER_BATCH * 2;
+	private static final int DATA_BITS_PER_CODEWORD = 20;
+	private final int bitRate;
+
+	/**
+	 * Creates a new estimator.
+	 *
+	 * @param sendSpeed Send speed index (0: 512, 1: 1200, 2: 2400 bps)
+	 */
+	public AirtimeEstimator(int sendSpeed) {
+		this.bitRate = getBitRate(sendSpeed);
+	}
+
+	/**
+	 * Returns the bit rate for a send speed index.
+	 *
+	 * @param sendSpeed Send speed index (0: 512, 1: 1200, 2: 2400 bps)
+	 * @return Bit rate in bps
+	 */
+	public static int getBitRate(int sendSpeed) {
+		switch (sendSpeed) {
+		case 0:
+			return 512;
+		case 2:
+			return 2400;
+		default:
+			return 1200;
+		}
+	}
+
+	/**
+	 * Returns the bit rate used by this estimator.
+	 *
+	 * @return Bit rate in bps
+	 */
+	public int getBitRate() {
+		return bitRate;
+	}
+
+	/**
+	 * Returns the number of message codewords following the address codeword.
+	 * Numeric messages use 4 bits per character, all other messages are sent as
+	 * alphanumeric messages using 7 bits per character.
+	 *
+	 * @param functionalBits Functional bits
+	 * @param textLength     Length of the encoded text
+	 * @return Number of message codewords
+	 */
+	public static int getMessageCodewords(FunctionalBits functionalBits, int textLength) {
+		int bitsPerChar = functionalBits == FunctionalBits.NUMERIC ? 4 : 7;
+		return (textLength * bitsPerChar + DATA_BITS_PER_CODEWORD - 1) / DATA_BITS_PER_CODEWORD;
+	}
+
+	/**
+	 * Appends a message to a transmission.
+	 *
+	 * @param position       Current position in the transmission
+	 * @param address        Pager address (RIC)
+	 * @param functionalBits Functional bits
+	 * @param textLength     Length of the encoded text
+	 * @return Position after the message
+	 */
+	public static int append(int position, int address, FunctionalBits functionalBits, int textLength) {
+		int current = position % CODEWORDS_PER_BATCH;
+		int target = (address & (FRAMES_PER_BATCH - 1)) * 2;
+		if (current > target) {
+			// The frame has passed, use the next batch
+			target += CODEWORDS_PER_BATCH;
+		}
+
+		return position - current + target + 1 + getMessageCodewords(functionalBits, textLength);
+	}
+
+	/**
+	 * Appends a message to a transmission.
+	 *
+	 * @param position Current position in the transmission
+	 * @param msg      Message to append
+	 * @return Position after the message
+	 */
+	public static int append(int position, PagerMessage msg) {
+		return append(position, msg.getAddress(), msg.getFunctionalBits(), msg.getTextLength());
+	}
+
+	/**
+	 * Returns the number of codewords sent for a transmission, including sync
+	 * codewords and idle codewords filling up the last batch but without the
+	 * preamble.
+	 *
+	 * @param position Position at the end of the transmission
+	 * @return Number of codewords
+	 */
+	public static int getTransmittedCodewords(int position) {
+		int batches = (position + CODEWORDS_PER_BATCH - 1) / CODEWORDS_PER_BATCH;
+		return batches * (CODEWORDS_PER_BATCH + 1);
+	}
+
+	/**
+	 * Returns the number of codewords sent for a single message, including sync
+	 * and idle codewords but without the preamble.
+	 *
+	 * @param msg Message
+	 * @return Number of codewords
+	 */
+	public static int getCodewords(PagerMessage msg) {
+		return getTransmittedCodewords(append(0, msg));
+	}
+
+	/**
+	 * Returns the airtime of the given number of codewords.
+	 *
+	 * @param codewords Number of codewords
+	 * @return Airtime in microseconds
+	 */
+	public long getCodewordAirtime(int codewords) {
+		return getBitAirtime(codewords * CODEWORD_BITS);
+	}
+
+	/**
+	 * Returns the airtime of the given number of bits.
+	 *
+	 * @param bits Number of bits
+	 * @return Airtime in microseconds
+	 */
+	public long getBitAirtime(long bits) {
+		return bits * 1_000_000L / bitRate;
+	}
+
+	/**
+	 * Returns the airtime of a transmission containing only the given message,
+	 * including the preamble.
+	 *
+	 * @param msg Message
+	 * @return Airtime in microseconds
+	 */
+	public long getAirtime(PagerMessage msg) {
+		return getBitAirtime(PREAMBLE_BITS + (long) getCodewords(msg) * CODEWORD_BITS);
+	}
+
+}
@@ -0,0 +1,86 @@
+package org.dapnet.core.transmission;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.dapnet.core.model.Transmitter;
+import org.dapnet.core.transmission.PagerMessage.MessagePriority;
+
+/**
+ * Snapshot of the statistics of a connected transmitter.
+ */
+public final class ClientStatistics {
+
+	private final String name;
+	private final int pendingMessages;
+	private final int windowSize;
+	private final boolean saturated;
+	private final long droppedMessagesTotal;
+	private final Map<MessagePriority, Long> droppedMessages = new EnumMap<>(MessagePriority.class);
+	private final DeliveryStatistics.Snapshot delivery;
+	private final double airtime;
+	private final double airtimeUtilization;
+
+	ClientStatistics(TransmitterClient client) {
+		name = client.getName();
+		pendingMessages = client.getPendingMessageCount();
+		windowSize = client.getWindowSize();
+		saturated = client.isSaturated();
+
+		long total = 0;
+		for (MessagePriority p : MessagePriority.values()) {
+			long count = client.getDroppedMessageCount(p);
+			droppedMessages.put(p, count);
+			total += count;
+		}
+
+		droppedMessagesTotal = total;
+		delivery = client.getDeliveryStatistics().getSnapshot();
+
+		// Utilization of the slot time available since the client connected
+		long airtimeMicros = client.getAirtime();
+		airtime = airtimeMicros / 1_000_000.0;
+
+		Transmitter t = client.getTransmitter();
+		int slots = t != null && t.getTimeSlot() != null ? t.getTimeSlot().length() : 0;
+		long available = client.getConnectedTime() * slots / 16;
+		airtimeUtilization = available > 0 ? (double) airtimeMicros / available : 0.0;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getPendingMessages() {
+		return pendingMessages;
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	public boolean isSaturated() {
+		return saturated;
+	}
+
+	public long getDroppedMessagesTotal() {
+		return droppedMessagesTotal;
+	}
+
+	public Map<MessagePriority, Long> getDroppedMessages() {
+		return droppedMessages;
+	}
+
+	public DeliveryStatistics.Snapshot getDelivery() {
+		return delivery;
+	}
+
+	public double getAirtime() {
+		return airtime;
+	}
+
+	public double getAirtimeUtilization() {
+		return airtimeUtilization;
+	}
+
+}
@@ -0,0 +1,143 @@
+package org.dapnet.core.transmission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class holds the delivery statistics of pager messages, either for a
+ * single transmitter or aggregated over all transmitters. Values recorded in a
+ * per-transmitter instance are also recorded in its parent. This
+ * implementation is thread-safe.
+ */
+public final class DeliveryStatistics {
+
+	private final DeliveryStatistics parent;
+	private final LatencyHistogram queueWait = new LatencyHistogram();
+	private final LatencyHistogram roundTrip = new LatencyHistogram();
+	private final LatencyHistogram endToEnd = new LatencyHistogram();
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong discards = new AtomicLong();
+
+	/**
+	 * Creates new aggregated delivery statistics.
+	 */
+	public DeliveryStatistics() {
+		this(null);
+	}
+
+	/**
+	 * Creates new delivery statistics.
+	 * 
+	 * @param parent Aggregated statistics to update as well or {@code null}.
+	 */
+	public DeliveryStatistics(DeliveryStatistics parent) {
+		this.parent = parent;
+	}
+
+	/**
+	 * Records the time a message waited in the queue before it was written.
+	 * 
+	 * @param micros Queue wait time in microseconds
+	 */
+	void recordQueueWait(long micros) {
+		queueWait.record(micros);
+		if (parent != null) {
+			parent.recordQueueWait(micros);
+		}
+	}
+
+	/**
+	 * Records the time between writing a message and receiving its ack.
+	 * 
+	 * @param micros Round trip time in microseconds
+	 */
+	void recordRoundTrip(long micros) {
+		roundTrip.record(micros);
+		if (parent != null) {
+			parent.recordRoundTrip(micros);
+		}
+	}
+
+	/**
+	 * Records the time between the creation of a message and receiving its ack.
+	 * 
+	 * @param micros End-to-end delay in microseconds
+	 */
+	void recordEndToEnd(long micros) {
+		endToEnd.record(micros);
+		if (parent != null) {
+			parent.recordEndToEnd(micros);
+		}
+	}
+
+	/**
+	 * Increments the number of retransmitted messages.
+	 */
+	void incrementRetries() {
+		retries.incrementAndGet();
+		if (parent != null) {
+			parent.incrementRetries();
+		}
+	}
+
+	/**
+	 * Increments the number of messages discarded after being sent, i.e. negative
+	 * acks, too many retries or lost acks.
+	 */
+	void incrementDiscards() {
+		discards.incrementAndGet();
+		if (parent != null) {
+			parent.incrementDiscards();
+		}
+	}
+
+	/**
+	 * Creates a snapshot of the current values.
+	 * 
+	 * @return Statistics snapshot
+	 */
+	public Snapshot getSnapshot() {
+		return new Snapshot(this);
+	}
+
+	/**
+	 * Immutable snapshot of the delivery statistics. All latencies are in
+	 * milliseconds.
+	 */
+	public static final class Snapshot {
+		private final LatencyHistogram.Snapshot queueWait;
+		private final LatencyHistogram.Snapshot roundTrip;
+		private final LatencyHistogram.Snapshot endToEnd;
+		private final long retries;
+		private final long discards;
+
+		private Snapshot(DeliveryStatistics stats) {
+			queueWait = stats.queueWait.getSnapshot();
+			roundTrip = stats.roundTrip.getSnapshot();
+			endToEnd = stats.endToEnd.getSnapshot();
+			retries = stats.retries.get();
+			discards = stats.discards.get();
+		}
+
+		public LatencyHistogram.Snapshot getQueueWait() {
+			return queueWait;
+		}
+
+		public LatencyHistogram.Snapshot getRoundTrip() {
+			return roundTrip;
+		}
+
+		public LatencyHistogram.Snapshot getEndToEnd() {
+			return endToEnd;
+		}
+
+		public long getRetries() {
+			return retries;
+		}
+
+		public long getDiscards() {
+			return discards;
+		}
+
+	}
+
+}
@@ -0,0 +1,37 @@
+package org.dapnet.core.transmission;
+
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.handler.flush.FlushConsolidationHandler;
+
+/**
+ * Counts the flush operations passing through the pipeline. One instance is
+ * placed in front of the {@link FlushConsolidationHandler} to count requested
+ * flushes and one behind it to count the flushes reaching the socket.
+ */
+@Sharable
+class FlushCounter extends ChannelOutboundHandlerAdapter {
+
+	private final Runnable counter;
+
+	/**
+	 * Creates a new flush counter.
+	 * 
+	 * @param counter Callback invoked for each flush operation.
+	 */
+	public FlushCounter(Runnable counter) {
+		if (counter == null) {
+			throw new NullPointerException("counter");
+		}
+
+		this.counter = counter;
+	}
+
+	@Override
+	public void flush(ChannelHandlerContext ctx) throws Exception {
+		counter.run();
+		ctx.flush();
+	}
+
+}
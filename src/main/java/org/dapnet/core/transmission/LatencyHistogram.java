@@ -0,0 +1,147 @@
+package org.dapnet.core.transmission;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets. Each power of two is
+ * split into 16 linear sub-buckets, so recorded values keep a relative
+ * precision of about 6 % up to the maximum trackable value of one hour. Values
+ * are recorded in microseconds and reported in milliseconds. This
+ * implementation is thread-safe.
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final long MAX_VALUE = 3_600_000_000L;
+	private static final int BUCKET_COUNT = getIndex(MAX_VALUE) + 1;
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a value.
+	 * 
+	 * @param micros Value in microseconds, negative values are recorded as 0.
+	 */
+	public void record(long micros) {
+		long value = Math.max(0, Math.min(micros, MAX_VALUE));
+		counts.incrementAndGet(getIndex(value));
+		sum.addAndGet(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * Creates a snapshot of the current values. Values recorded concurrently may
+	 * or may not be included.
+	 * 
+	 * @return Histogram snapshot
+	 */
+	public Snapshot getSnapshot() {
+		long[] values = new long[BUCKET_COUNT];
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; ++i) {
+			values[i] = counts.get(i);
+			count += values[i];
+		}
+
+		return new Snapshot(values, count, sum.get(), max.get());
+	}
+
+	private static int getIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int sub = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+		return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + sub;
+	}
+
+	private static long getHighestValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+
+		int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+		int sub = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+		long lowest = (long) (SUB_BUCKET_COUNT + sub) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * Immutable histogram snapshot. All latencies are in milliseconds.
+	 */
+	public static final class Snapshot {
+		private final long count;
+		private final double mean;
+		private final double max;
+		private final double p50;
+		private final double p90;
+		private final double p99;
+		private final double p999;
+
+		private Snapshot(long[] values, long count, long sum, long max) {
+			this.count = count;
+			this.mean = count > 0 ? toMillis(sum) / count : 0.0;
+			this.max = toMillis(max);
+			this.p50 = getPercentile(values, count, 0.5);
+			this.p90 = getPercentile(values, count, 0.9);
+			this.p99 = getPercentile(values, count, 0.99);
+			this.p999 = getPercentile(values, count, 0.999);
+		}
+
+		private double getPercentile(long[] values, long count, double quantile) {
+			if (count == 0) {
+				return 0.0;
+			}
+
+			long target = Math.max(1, (long) Math.ceil(count * quantile));
+			long seen = 0;
+			for (int i = 0; i < values.length; ++i) {
+				seen += values[i];
+				if (seen >= target) {
+					// Do not report more than the largest recorded value
+					return Math.min(toMillis(getHighestValue(i)), max);
+				}
+			}
+
+			return max;
+		}
+
+		private static double toMillis(long micros) {
+			return micros / 1000.0;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public double getMean() {
+			return mean;
+		}
+
+		public double getMax() {
+			return max;
+		}
+
+		public double getP50() {
+			return p50;
+		}
+
+		public double getP90() {
+			return p90;
+		}
+
+		public double getP99() {
+			return p99;
+		}
+
+		public double getP999() {
+			return p999;
+		}
+
+	}
+
+}
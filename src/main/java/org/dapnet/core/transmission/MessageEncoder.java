@@ -1,22 +1,25 @@
 package org.dapnet.core.transmission;
 
-import java.util.List;
-
 import org.dapnet.core.Settings;
 import org.dapnet.core.transmission.TransmissionSettings.PagingProtocolSettings;
 import org.dapnet.core.transmission.TransmitterClient.Message;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.handler.codec.MessageToByteEncoder;
 
 /**
- * Encodes a {@link PagerMessage} into string.
+ * Encodes a {@link PagerMessage} into its ASCII frame. The frame is written
+ * directly into a (pooled) buffer without any intermediate string. The frame
+ * body is shared between all transmitters the message is sent to.
  * 
  * @author Philipp Thiel
  */
 @Sharable
-class MessageEncoder extends MessageToMessageEncoder<Message> {
+class MessageEncoder extends MessageToByteEncoder<Message> {
 
 	public static final int MT_SYNCREQUEST = 2;
 	public static final int MT_SYNCORDER = 3;
@@ -26,11 +29,51 @@ class MessageEncoder extends MessageToMessageEncoder<Message> {
 
 	private static final PagingProtocolSettings settings = Settings.getTransmissionSettings()
 			.getPagingProtocolSettings();
+	private static final byte[] HEX_DIGITS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D',
+			'E', 'F' };
+	// " t:s:aaaaaaaa:f:" + "\n"
+	private static final int MAX_BODY_OVERHEAD = 24;
+	// "#xx"
+	private static final int HEADER_LENGTH = 3;
 
 	@Override
-	protected void encode(ChannelHandlerContext ctx, Message msg, List<Object> out) throws Exception {
-		PagerMessage pm = msg.getMessage();
+	protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, Message msg, boolean preferDirect) throws Exception {
+		int size = HEADER_LENGTH + getBody(msg.getMessage()).length;
+		if (preferDirect) {
+			return ctx.alloc().ioBuffer(size);
+		} else {
+			return ctx.alloc().heapBuffer(size);
+		}
+	}
 
+	@Override
+	protected void encode(ChannelHandlerContext ctx, Message msg, ByteBuf out) throws Exception {
+		// Only the sequence number differs between transmitters
+		out.writeByte('#');
+		writeHexByte(out, msg.getSequenceNumber());
+		out.writeBytes(getBody(msg.getMessage()));
+	}
+
+	/**
+	 * Returns the encoded frame body following the sequence number. The body is
+	 * encoded once and cached in the message, so sending the same message to many
+	 * transmitters does not encode it again.
+	 * 
+	 * @param pm Pager message
+	 * @return Encoded frame body
+	 */
+	private static byte[] getBody(PagerMessage pm) {
+		byte[] body = pm.getEncodedBody();
+		if (body == null) {
+			body = encodeBody(pm);
+			// Concurrent encoders may race here but produce the same result
+			pm.setEncodedBody(body);
+		}
+
+		return body;
+	}
+
+	private static byte[] encodeBody(PagerMessage pm) {
 		// Mostly adapted from Sven Jung
 		// See Diplomarbeit Jansen Page 30
 		int type = 0;
@@ -45,10 +88,49 @@ class MessageEncoder extends MessageToMessageEncoder<Message> {
 			break;
 		}
 
-		String encoded = String.format("#%02X %s:%X:%X:%s:%s\n", msg.getSequenceNumber(), type, settings.getSendSpeed(),
-				pm.getAddress(), pm.getFunctionalBits().getValue(), pm.getText());
+		// " %s:%X:%X:%s:%s\n"
+		ByteBuf out = Unpooled.buffer(MAX_BODY_OVERHEAD + pm.getTextLength());
+		out.writeByte(' ');
+		writeHex(out, type);
+		out.writeByte(':');
+		writeHex(out, settings.getSendSpeed());
+		out.writeByte(':');
+		writeHex(out, pm.getAddress());
+		out.writeByte(':');
+		writeHex(out, pm.getFunctionalBits().getValue());
+		out.writeByte(':');
+		out.writeBytes(pm.getTextBytes());
+		out.writeByte('\n');
+
+		return ByteBufUtil.getBytes(out);
+	}
+
+	/**
+	 * Writes the lower 8 bits of the value as two upper case hex digits.
+	 * 
+	 * @param out   Buffer to write to
+	 * @param value Value to write
+	 */
+	static void writeHexByte(ByteBuf out, int value) {
+		out.writeByte(HEX_DIGITS[(value >> 4) & 0xF]);
+		out.writeByte(HEX_DIGITS[value & 0xF]);
+	}
+
+	/**
+	 * Writes the value as upper case hex digits without leading zeros.
+	 * 
+	 * @param out   Buffer to write to
+	 * @param value Value to write
+	 */
+	static void writeHex(ByteBuf out, int value) {
+		int shift = 28;
+		while (shift > 0 && ((value >>> shift) & 0xF) == 0) {
+			shift -= 4;
+		}
 
-		out.add(encoded);
+		for (; shift >= 0; shift -= 4) {
+			out.writeByte(HEX_DIGITS[(value >>> shift) & 0xF]);
+		}
 	}
 
 }
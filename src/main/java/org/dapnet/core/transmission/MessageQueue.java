@@ -0,0 +1,164 @@
+package org.dapnet.core.transmission;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.dapnet.core.transmission.PagerMessage.MessagePriority;
+import org.dapnet.core.transmission.TransmitterClient.Message;
+
+/**
+ * Message queue with one FIFO queue per message priority. Each priority may be
+ * bounded, in which case the oldest message of that priority is evicted if a
+ * new one is added to a full queue. Messages may be added from any thread
+ * without locking, {@link #poll()} is meant to be called by a single consumer
+ * thread only.
+ */
+final class MessageQueue {
+
+	private static final MessagePriority[] PRIORITIES = MessagePriority.values();
+	private final Queue<Message>[] queues;
+	private final AtomicIntegerArray sizes = new AtomicIntegerArray(PRIORITIES.length);
+	private final int[] limits;
+
+	/**
+	 * Creates a new message queue.
+	 * 
+	 * @param limits Maximum number of messages per priority indexed by the
+	 *               priority ordinal, 0 means unbounded.
+	 */
+	@SuppressWarnings("unchecked")
+	public MessageQueue(int[] limits) {
+		if (limits.length != PRIORITIES.length) {
+			throw new IllegalArgumentException("Invalid number of limits.");
+		}
+
+		this.limits = limits.clone();
+
+		queues = new Queue[PRIORITIES.length];
+		for (int i = 0; i < queues.length; ++i) {
+			queues[i] = new ConcurrentLinkedQueue<>();
+		}
+	}
+
+	/**
+	 * Adds a message to the queue. This method is thread-safe.
+	 * 
+	 * @param msg Message to add
+	 * @return Message evicted to make room for the new one or {@code null}.
+	 */
+	public Message offer(Message msg) {
+		int prio = msg.getMessage().getPriority().ordinal();
+		Queue<Message> queue = queues[prio];
+
+		queue.offer(msg);
+		sizes.incrementAndGet(prio);
+
+		if (limits[prio] == 0) {
+			return null;
+		}
+
+		// Reserve the eviction first, the consumer may have made room meanwhile
+		int size;
+		while ((size = sizes.get(prio)) > limits[prio]) {
+			if (sizes.compareAndSet(prio, size, size - 1)) {
+				Message evicted = queue.poll();
+				if (evicted == null) {
+					// Drained by the consumer, which counts its messages itself
+					sizes.incrementAndGet(prio);
+				}
+
+				return evicted;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes the oldest message with the highest priority. Must only be called
+	 * by the consumer thread.
+	 * 
+	 * @return Message or {@code null} if the queue is empty.
+	 */
+	public Message poll() {
+		for (int i = 0; i < queues.length; ++i) {
+			if (sizes.get(i) == 0) {
+				continue;
+			}
+
+			Message msg = queues[i].poll();
+			if (msg != null) {
+				sizes.decrementAndGet(i);
+				return msg;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the oldest message with the highest priority without removing it.
+	 * Must only be called by the consumer thread.
+	 * 
+	 * @return Message or {@code null} if the queue is empty.
+	 */
+	public Message peek() {
+		for (int i = 0; i < queues.length; ++i) {
+			if (sizes.get(i) == 0) {
+				continue;
+			}
+
+			Message msg = queues[i].peek();
+			if (msg != null) {
+				return msg;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes a message previously returned by {@link #peek()}. Must only be
+	 * called by the consumer thread.
+	 * 
+	 * @param msg Message to remove
+	 * @return {@code true} if the message was removed, {@code false} if it has
+	 *         been evicted in the meantime.
+	 */
+	public boolean remove(Message msg) {
+		int prio = msg.getMessage().getPriority().ordinal();
+		if (queues[prio].remove(msg)) {
+			sizes.decrementAndGet(prio);
+			return true;
+		} else {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the total number of queued messages. This method is thread-safe.
+	 * 
+	 * @return Number of queued messages
+	 */
+	public int size() {
+		int size = 0;
+		for (int i = 0; i < PRIORITIES.length; ++i) {
+			size += sizes.get(i);
+		}
+
+		return size;
+	}
+
+	/**
+	 * Returns the number of queued messages for the given priority. This method is
+	 * thread-safe.
+	 * 
+	 * @param priority Message priority
+	 * @return Number of queued messages
+	 */
+	public int size(MessagePriority priority) {
+		return sizes.get(priority.ordinal());
+	}
+
+}
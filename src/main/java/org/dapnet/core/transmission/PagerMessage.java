@@ -14,14 +14,18 @@
 
 package org.dapnet.core.transmission;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 
 public class PagerMessage implements Comparable<PagerMessage> {
-	private final String text;
+	// Pre-encoded text, shared between messages and never modified
+	private final byte[] text;
 	private final int address;
 	private final Instant timestamp;
 	private final MessagePriority priority;
 	private final FunctionalBits functionalBits;
+	// Cached frame body, see MessageEncoder
+	private volatile byte[] encodedBody;
 
 	public enum MessagePriority {
 		EMERGENCY, TIME, CALL, NEWS, ACTIVATION, RUBRIC
@@ -43,6 +47,26 @@ public class PagerMessage implements Comparable<PagerMessage> {
 
 	public PagerMessage(Instant timestamp, String text, int address, MessagePriority priority,
 			FunctionalBits functionalBits) {
+		this(timestamp, String.valueOf(text).getBytes(StandardCharsets.US_ASCII), address, priority, functionalBits);
+	}
+
+	/**
+	 * Creates a new message from already encoded text. The text array is not
+	 * copied and must not be modified afterwards, which allows sharing it between
+	 * multiple messages.
+	 * 
+	 * @param timestamp      Message timestamp
+	 * @param text           ASCII encoded text
+	 * @param address        Pager address
+	 * @param priority       Message priority
+	 * @param functionalBits Functional bits
+	 */
+	public PagerMessage(Instant timestamp, byte[] text, int address, MessagePriority priority,
+			FunctionalBits functionalBits) {
+		if (text == null) {
+			throw new NullPointerException("text");
+		}
+
 		this.text = text;
 		this.address = address;
 		this.timestamp = timestamp;
@@ -55,13 +79,50 @@ public class PagerMessage implements Comparable<PagerMessage> {
 	}
 
 	public String getText() {
+		return new String(text, StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Returns the encoded text without copying it. The returned array must not be
+	 * modified.
+	 * 
+	 * @return ASCII encoded text
+	 */
+	byte[] getTextBytes() {
 		return text;
 	}
 
+	/**
+	 * Returns the length of the encoded text in bytes.
+	 * 
+	 * @return Text length
+	 */
+	public int getTextLength() {
+		return text.length;
+	}
+
 	public int getAddress() {
 		return address;
 	}
 
+	/**
+	 * Returns the cached encoded frame body.
+	 * 
+	 * @return Encoded frame body or {@code null} if not encoded yet.
+	 */
+	byte[] getEncodedBody() {
+		return encodedBody;
+	}
+
+	/**
+	 * Sets the cached encoded frame body.
+	 * 
+	 * @param encodedBody Encoded frame body
+	 */
+	void setEncodedBody(byte[] encodedBody) {
+		this.encodedBody = encodedBody;
+	}
+
 	public Instant getTimestamp() {
 		return timestamp;
 	}
@@ -0,0 +1,255 @@
+package org.dapnet.core.transmission;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.dapnet.core.transmission.TransmitterClient.AckType;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+
+/**
+ * Splits the received data into lines and decodes the frequent responses of
+ * the transmitter protocol directly from the buffer. Message acks are decoded
+ * into {@link MessageAck}, plain acks into {@link SimpleAck#OK} and time sync
+ * responses into {@link SyncResponse}. All other lines (e.g. the welcome
+ * string) are passed on as {@link String}.
+ */
+class ResponseDecoder extends ByteToMessageDecoder {
+
+	private static final int MAX_LINE_LENGTH = 2048;
+	// Maximum number of hex digits of a time value in a sync response
+	private static final int MAX_TIME_DIGITS = 8;
+
+	/**
+	 * Plain ack without sequence number.
+	 */
+	public enum SimpleAck {
+		OK;
+
+		@Override
+		public String toString() {
+			return "+";
+		}
+	}
+
+	@Override
+	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+		int start = in.readerIndex();
+		int eol = in.indexOf(start, in.writerIndex(), (byte) '\n');
+		if (eol < 0) {
+			if (in.readableBytes() > MAX_LINE_LENGTH) {
+				in.skipBytes(in.readableBytes());
+				throw new TooLongFrameException("Line exceeds " + MAX_LINE_LENGTH + " bytes.");
+			}
+
+			return;
+		}
+
+		int length = eol - start;
+		if (length > 0 && in.getByte(eol - 1) == '\r') {
+			--length;
+		}
+
+		in.readerIndex(eol + 1);
+
+		if (length > MAX_LINE_LENGTH) {
+			throw new TooLongFrameException("Line exceeds " + MAX_LINE_LENGTH + " bytes.");
+		}
+
+		out.add(decodeLine(in, start, length));
+	}
+
+	private static Object decodeLine(ByteBuf in, int start, int length) {
+		// +
+		if (length == 1 && in.getByte(start) == '+') {
+			return SimpleAck.OK;
+		}
+
+		// #04 +
+		if (length == 5 && in.getByte(start) == '#' && in.getByte(start + 3) == ' ') {
+			int hi = hexValue(in.getByte(start + 1));
+			int lo = hexValue(in.getByte(start + 2));
+			AckType type = ackType(in.getByte(start + 4));
+			if (hi >= 0 && lo >= 0 && type != null) {
+				return MessageAck.of((hi << 4) | lo, type);
+			}
+		}
+
+		// 2:13d3:0026
+		SyncResponse sync = decodeSync(in, start, length);
+		if (sync != null) {
+			return sync;
+		}
+
+		return in.toString(start, length, StandardCharsets.US_ASCII);
+	}
+
+	private static SyncResponse decodeSync(ByteBuf in, int start, int length) {
+		if (length < 5) {
+			return null;
+		}
+
+		int type = in.getByte(start) - '0';
+		if (type < 0 || type > 9 || in.getByte(start + 1) != ':') {
+			return null;
+		}
+
+		int end = start + length;
+		int pos = start + 2;
+		long serverTime = 0;
+		int digits = 0;
+		for (; pos < end && in.getByte(pos) != ':'; ++pos) {
+			int v = hexValue(in.getByte(pos));
+			if (v < 0 || ++digits > MAX_TIME_DIGITS) {
+				return null;
+			}
+
+			serverTime = (serverTime << 4) | v;
+		}
+
+		if (digits == 0 || pos >= end) {
+			return null;
+		}
+
+		long clientTime = 0;
+		digits = 0;
+		for (++pos; pos < end; ++pos) {
+			int v = hexValue(in.getByte(pos));
+			if (v < 0 || ++digits > MAX_TIME_DIGITS) {
+				return null;
+			}
+
+			clientTime = (clientTime << 4) | v;
+		}
+
+		if (digits == 0) {
+			return null;
+		}
+
+		return new SyncResponse(type, serverTime, clientTime);
+	}
+
+	private static int hexValue(byte b) {
+		if (b >= '0' && b <= '9') {
+			return b - '0';
+		} else if (b >= 'A' && b <= 'F') {
+			return b - 'A' + 10;
+		} else if (b >= 'a' && b <= 'f') {
+			return b - 'a' + 10;
+		} else {
+			return -1;
+		}
+	}
+
+	private static AckType ackType(byte b) {
+		switch (b) {
+		case '+':
+			return AckType.OK;
+		case '%':
+			return AckType.RETRY;
+		case '-':
+			return AckType.ERROR;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Ack for a pager message. Instances are cached and shared.
+	 */
+	public static final class MessageAck {
+
+		private static final AckType[] TYPES = AckType.values();
+		private static final MessageAck[] CACHE = new MessageAck[256 * TYPES.length];
+
+		static {
+			for (int sn = 0; sn < 256; ++sn) {
+				for (AckType type : TYPES) {
+					CACHE[sn * TYPES.length + type.ordinal()] = new MessageAck(sn, type);
+				}
+			}
+		}
+
+		private final int sequenceNumber;
+		private final AckType type;
+
+		private MessageAck(int sequenceNumber, AckType type) {
+			this.sequenceNumber = sequenceNumber;
+			this.type = type;
+		}
+
+		/**
+		 * Returns the ack instance for the given sequence number and type.
+		 * 
+		 * @param sequenceNumber Sequence number (0 to 255)
+		 * @param type           Ack type
+		 * @return Ack instance
+		 */
+		public static MessageAck of(int sequenceNumber, AckType type) {
+			return CACHE[(sequenceNumber & 0xFF) * TYPES.length + type.ordinal()];
+		}
+
+		public int getSequenceNumber() {
+			return sequenceNumber;
+		}
+
+		public AckType getType() {
+			return type;
+		}
+
+		@Override
+		public String toString() {
+			char c;
+			switch (type) {
+			case OK:
+				c = '+';
+				break;
+			case RETRY:
+				c = '%';
+				break;
+			default:
+				c = '-';
+				break;
+			}
+
+			return String.format("#%02X %c", sequenceNumber, c);
+		}
+	}
+
+	/**
+	 * Time synchronization response.
+	 */
+	public static final class SyncResponse {
+
+		private final int type;
+		private final long serverTime;
+		private final long clientTime;
+
+		public SyncResponse(int type, long serverTime, long clientTime) {
+			this.type = type;
+			this.serverTime = serverTime;
+			this.clientTime = clientTime;
+		}
+
+		public int getType() {
+			return type;
+		}
+
+		public long getServerTime() {
+			return serverTime;
+		}
+
+		public long getClientTime() {
+			return clientTime;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d:%04X:%04X", type, serverTime, clientTime);
+		}
+	}
+
+}
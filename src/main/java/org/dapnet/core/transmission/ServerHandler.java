@@ -1,6 +1,7 @@
 package org.dapnet.core.transmission;
 
 import java.net.InetSocketAddress;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -11,7 +12,8 @@ import org.dapnet.core.Settings;
 import org.dapnet.core.model.Transmitter;
 import org.dapnet.core.model.Transmitter.Status;
 import org.dapnet.core.transmission.TransmissionSettings.PagingProtocolSettings;
-import org.dapnet.core.transmission.TransmitterClient.AckType;
+import org.dapnet.core.transmission.ResponseDecoder.MessageAck;
+import org.dapnet.core.transmission.ResponseDecoder.SimpleAck;
 import org.jgroups.stack.IpAddress;
 
 import io.netty.channel.ChannelFutureListener;
@@ -20,18 +22,18 @@ import io.netty.channel.ChannelPromise;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.util.concurrent.ScheduledFuture;
 
-class ServerHandler extends SimpleChannelInboundHandler<String> {
+class ServerHandler extends SimpleChannelInboundHandler<Object> {
 
 	private enum ConnectionState {
 		AUTH_PENDING, SYNC_TIME, TIMESLOTS_SENT, ONLINE, OFFLINE, EXCEPTION_CAUGHT
 	}
 
 	private static final Logger logger = LogManager.getLogger();
-	// Ack message #04 +
-	private static final Pattern ACK_PATTERN = Pattern.compile("#(\\p{XDigit}{2}) ([-%\\+])");
 	// Welcome string [RasPager v1.0-SCP-#2345678 abcde]
 	private static final Pattern AUTH_PATTERN = Pattern
 			.compile("\\[([/\\-\\p{Alnum}]+) v(\\d[\\d\\.]+[\\p{Graph}]*) ([\\p{Alnum}_]+) (\\p{Alnum}+)\\]");
+	// Numeric part of the version string 1.0.3-SCP-#2345678
+	private static final Pattern VERSION_PATTERN = Pattern.compile("\\d+(\\.\\d+)*");
 	private static final PagingProtocolSettings settings = Settings.getTransmissionSettings()
 			.getPagingProtocolSettings();
 	private static final int HANDSHAKE_TIMEOUT_SEC = 30;
@@ -46,10 +48,10 @@ class ServerHandler extends SimpleChannelInboundHandler<String> {
 	}
 
 	@Override
-	protected void channelRead0(ChannelHandlerContext ctx, String msg) throws Exception {
+	protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
 		switch (state) {
 		case AUTH_PENDING:
-			handleAuth(ctx, msg);
+			handleAuth(ctx, msg.toString());
 			break;
 		case SYNC_TIME:
 			handleSyncTime(ctx, msg);
@@ -73,7 +75,7 @@ class ServerHandler extends SimpleChannelInboundHandler<String> {
 
 		// Do not add the client to the transmitter manager yet. This is done
 		// once the handshake is finished.
-		client = new TransmitterClient(ctx.channel());
+		client = new TransmitterClient(ctx.channel(), manager.getStatistics());
 
 		syncHandler = new SyncTimeHandler(settings.getNumberOfSyncLoops());
 
@@ -109,6 +111,15 @@ class ServerHandler extends SimpleChannelInboundHandler<String> {
 		state = ConnectionState.OFFLINE;
 	}
 
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		if (client != null && state == ConnectionState.ONLINE) {
+			client.onWritabilityChanged();
+		}
+
+		super.channelWritabilityChanged(ctx);
+	}
+
 	@Override
 	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
 		state = ConnectionState.EXCEPTION_CAUGHT;
@@ -143,26 +154,13 @@ class ServerHandler extends SimpleChannelInboundHandler<String> {
 		}
 	}
 
-	private void handleMessageAck(String msg) throws Exception {
-		Matcher ackMatcher = ACK_PATTERN.matcher(msg);
-		if (!ackMatcher.matches()) {
+	private void handleMessageAck(Object msg) throws Exception {
+		if (!(msg instanceof MessageAck)) {
 			throw new TransmitterException("Invalid response received: " + msg);
 		}
 
-		int seq = Integer.parseInt(ackMatcher.group(1), 16);
-		AckType type = AckType.ERROR;
-		switch (ackMatcher.group(2)) {
-		case "+":
-			type = AckType.OK;
-			break;
-		case "%":
-			type = AckType.RETRY;
-			break;
-		case "-":
-			type = AckType.ERROR;
-		}
-
-		if (!client.ackMessage(seq, type)) {
+		MessageAck ack = (MessageAck) msg;
+		if (!client.ackMessage(ack.getSequenceNumber(), ack.getType())) {
 			Transmitter t = client.getTransmitter();
 			if (t != null) {
 				logger.warn("Invalid ack received from {}: {}", t.getName(), msg);
@@ -214,6 +212,7 @@ class ServerHandler extends SimpleChannelInboundHandler<String> {
 		t.setAddress(new IpAddress((InetSocketAddress) ctx.channel().remoteAddress()));
 
 		client.setTransmitter(t);
+		client.setWindowSize(getSendWindowSize(type, version));
 
 		// Begin the sync time procedure
 		syncHandler.handleMessage(ctx, msg);
@@ -221,14 +220,18 @@ class ServerHandler extends SimpleChannelInboundHandler<String> {
 		state = ConnectionState.SYNC_TIME;
 	}
 
-	private void handleSyncTime(ChannelHandlerContext ctx, String message) throws Exception {
+	private void handleSyncTime(ChannelHandlerContext ctx, Object message) throws Exception {
 		syncHandler.handleMessage(ctx, message);
 
 		if (syncHandler.isDone()) {
+			Transmitter t = client.getTransmitter();
+			if (settings.isSlotScheduling()) {
+				initSlotScheduler(t, syncHandler.getClockUncertainty());
+			}
+
 			syncHandler = null;
 
 			// Send timeslots to client
-			Transmitter t = client.getTransmitter();
 			String msg = String.format("%d:%s\n", MessageEncoder.MT_SLOTS, t.getTimeSlot());
 			ctx.writeAndFlush(msg);
 
@@ -236,8 +239,8 @@ class ServerHandler extends SimpleChannelInboundHandler<String> {
 		}
 	}
 
-	private void handleTimeslotsAck(ChannelHandlerContext ctx, String msg) throws Exception {
-		if (!msg.equals("+")) {
+	private void handleTimeslotsAck(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (msg != SimpleAck.OK) {
 			throw new TransmitterException("Wrong ack received.");
 		}
 
@@ -250,6 +253,70 @@ class ServerHandler extends SimpleChannelInboundHandler<String> {
 		state = ConnectionState.ONLINE;
 	}
 
+	private void initSlotScheduler(Transmitter t, long clockUncertainty) {
+		try {
+			client.setSlotScheduler(new SlotScheduler(t.getTimeSlot(), clockUncertainty, settings.getSendSpeed()));
+		} catch (IllegalArgumentException ex) {
+			logger.warn("Slot scheduling disabled for {}: {}", t.getName(), ex.getMessage());
+		}
+	}
+
+	/**
+	 * Determines the send window size for the given device. Devices without a
+	 * configured minimum version or with older firmware fall back to
+	 * stop-and-wait.
+	 * 
+	 * @param type    Device type
+	 * @param version Device firmware version
+	 * @return Send window size
+	 */
+	private static int getSendWindowSize(String type, String version) {
+		int windowSize = Math.max(1, Math.min(settings.getSendWindowSize(), 128));
+		if (windowSize == 1) {
+			return 1;
+		}
+
+		Map<String, String> minVersions = settings.getSendWindowMinVersions();
+		if (minVersions == null) {
+			return 1;
+		}
+
+		String minVersion = minVersions.get(type);
+		if (minVersion != null && compareVersions(version, minVersion) >= 0) {
+			return windowSize;
+		} else {
+			return 1;
+		}
+	}
+
+	/**
+	 * Compares the numeric parts of two version strings, e.g. 1.0.3-SCP-#2345678
+	 * is treated as 1.0.3.
+	 * 
+	 * @param a First version
+	 * @param b Second version
+	 * @return Negative if a is older than b, 0 if equal, positive if a is newer.
+	 */
+	private static int compareVersions(String a, String b) {
+		Matcher ma = VERSION_PATTERN.matcher(a);
+		Matcher mb = VERSION_PATTERN.matcher(b);
+		if (!ma.lookingAt() || !mb.lookingAt()) {
+			return -1;
+		}
+
+		String[] pa = ma.group().split("\\.");
+		String[] pb = mb.group().split("\\.");
+		for (int i = 0; i < Math.max(pa.length, pb.length); ++i) {
+			int va = i < pa.length ? Integer.parseInt(pa[i]) : 0;
+			int vb = i < pb.length ? Integer.parseInt(pb[i]) : 0;
+			if (va != vb) {
+				return Integer.compare(va, vb);
+			}
+		}
+
+		return 0;
+	}
+
 	private void initHandshakeTimeout(final ChannelHandlerContext ctx) {
 		final ChannelPromise p = handshakePromise;
 
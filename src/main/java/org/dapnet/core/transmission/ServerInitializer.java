@@ -2,13 +2,13 @@ package org.dapnet.core.transmission;
 
 import java.nio.charset.StandardCharsets;
 
+import org.dapnet.core.Settings;
+
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.DelimiterBasedFrameDecoder;
-import io.netty.handler.codec.Delimiters;
-import io.netty.handler.codec.string.StringDecoder;
 import io.netty.handler.codec.string.StringEncoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
 
 /**
  * The server initializer initializes the newly created channel pipeline.
@@ -17,21 +17,34 @@ import io.netty.handler.codec.string.StringEncoder;
  */
 class ServerInitializer extends ChannelInitializer<SocketChannel> {
 	private static final StringEncoder encoder = new StringEncoder(StandardCharsets.US_ASCII);
-	private static final StringDecoder decoder = new StringDecoder(StandardCharsets.US_ASCII);
 	private static final MessageEncoder msgEncoder = new MessageEncoder();
 	private final TransmitterManager manager;
+	private final int flushConsolidationLimit;
+	private final FlushCounter requestedFlushCounter;
+	private final FlushCounter writtenFlushCounter;
 
 	public ServerInitializer(TransmitterManager manager) {
 		this.manager = manager;
+		this.flushConsolidationLimit = Settings.getTransmissionSettings().getServerSettings()
+				.getFlushConsolidationLimit();
+
+		TransmissionStatistics stats = manager.getStatistics();
+		requestedFlushCounter = new FlushCounter(stats::incrementFlushesRequested);
+		writtenFlushCounter = new FlushCounter(stats::incrementFlushesWritten);
 	}
 
 	@Override
 	protected void initChannel(SocketChannel ch) throws Exception {
 		ChannelPipeline p = ch.pipeline();
-		p.addLast(new DelimiterBasedFrameDecoder(2048, Delimiters.lineDelimiter()));
-		p.addLast(decoder);
+		p.addLast(writtenFlushCounter);
+		p.addLast(new ResponseDecoder());
 		p.addLast(encoder);
 		p.addLast(msgEncoder);
+		if (flushConsolidationLimit > 0) {
+			// Coalesce flushes issued in the same event loop tick
+			p.addLast(new FlushConsolidationHandler(flushConsolidationLimit, true));
+		}
+		p.addLast(requestedFlushCounter);
 		p.addLast(new ServerHandler(manager));
 	}
 }
@@ -60,20 +60,32 @@ public class SkyperProtocol implements PagerProtocol {
 			Matcher m = NUMERIC_PATTERN.matcher(call.getText());
 			boolean numeric = m.matches();
 
+			// Encode the text only once, it is shared between all messages
+			byte[] alphanumText = null;
+			byte[] numericText = null;
+
 			List<PagerMessage> messages = new ArrayList<>();
 			for (CallSign callsign : call.getCallSigns()) {
 				FunctionalBits mode;
-				String text;
+				byte[] text;
 				if (!callsign.isNumeric()) {
 					// Support for alphanumeric messages -> create ALPHANUM
 					// message
 					mode = FunctionalBits.ALPHANUM;
-					text = encodeString(call.getText());
+					if (alphanumText == null) {
+						alphanumText = call.getText().getBytes(PAGER_CHARSET);
+					}
+
+					text = alphanumText;
 				} else if (numeric) {
 					// No support for alphanumeric messages but text is numeric
 					// -> create NUMERIC message
 					mode = FunctionalBits.NUMERIC;
-					text = call.getText().toUpperCase();
+					if (numericText == null) {
+						numericText = call.getText().toUpperCase().getBytes(StandardCharsets.US_ASCII);
+					}
+
+					text = numericText;
 				} else {
 					// No support for alphanumeric messages and non-numeric
 					// message -> skip
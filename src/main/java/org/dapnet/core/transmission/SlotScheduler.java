@@ -0,0 +1,178 @@
+package org.dapnet.core.transmission;
+
+import org.dapnet.core.transmission.PagerMessage.MessagePriority;
+
+/**
+ * Paces the messages sent to a transmitter according to its time slots. A
+ * transmitter may only send in its own slots, so messages are released shortly
+ * before one of these slots starts and only as long as their airtime fits into
+ * the remaining slot time. Messages released for the same transmission are
+ * packed into POCSAG batches as the transmitter would do. This keeps the buffer of the transmitter
+ * small while still filling each slot. Emergency messages are never held back.
+ * <p>
+ * The slot plan uses the same time base as the transmitter: one slot lasts 64
+ * deciseconds and the 16 slots repeat every 102.4 seconds. The clock of the
+ * transmitter has been adjusted to the core clock during the time
+ * synchronization, the remaining uncertainty is covered by a guard time.
+ * <p>
+ * This class is not thread-safe, it must only be used by the event loop of the
+ * connection.
+ */
+final class SlotScheduler {
+
+	private static final int SLOT_COUNT = 16;
+	private static final long SLOT_MICROS = 6_400_000L;
+	// Release messages for a slot this long before it starts
+	private static final long LEAD_MICROS = 1_000_000L;
+	// Minimum guard time at the end of a slot (clock resolution)
+	private static final long MIN_GUARD_MICROS = 100_000L;
+	private final boolean[] slots = new boolean[SLOT_COUNT];
+	private final long guardMicros;
+	private final AirtimeEstimator estimator;
+	// Current transmission: start of the first batch, position and end
+	private long transmissionStart;
+	private int position;
+	private long busyUntil;
+	// Transmission before the last reservation, restored by release()
+	private long previousStart;
+	private int previousPosition;
+	private long previousBusyUntil;
+	// Airtime added by the last reservation
+	private long acquiredAirtime;
+
+	/**
+	 * Creates a new scheduler.
+	 *
+	 * @param timeSlots              Time slots of the transmitter, e.g.
+	 *                               {@code 0123768EF}
+	 * @param clockUncertaintyMillis Remaining clock uncertainty after the time
+	 *                               synchronization in milliseconds
+	 * @param sendSpeed              Send speed index (0: 512, 1: 1200, 2: 2400
+	 *                               bps)
+	 * @throws IllegalArgumentException If the time slots are invalid or empty.
+	 */
+	public SlotScheduler(String timeSlots, long clockUncertaintyMillis, int sendSpeed) {
+		if (timeSlots == null || timeSlots.isEmpty()) {
+			throw new IllegalArgumentException("No time slots given.");
+		}
+
+		for (int i = 0; i < timeSlots.length(); ++i) {
+			int slot = Character.digit(timeSlots.charAt(i), SLOT_COUNT);
+			if (slot < 0) {
+				throw new IllegalArgumentException("Invalid time slot: " + timeSlots.charAt(i));
+			}
+
+			slots[slot] = true;
+		}
+
+		this.guardMicros = Math.max(MIN_GUARD_MICROS, clockUncertaintyMillis * 1000);
+		this.estimator = new AirtimeEstimator(sendSpeed);
+	}
+
+	/**
+	 * Tries to reserve airtime for a message.
+	 *
+	 * @param msg       Message to send
+	 * @param nowMillis Current time in milliseconds since the epoch
+	 * @return 0 if the message may be sent now or the time in milliseconds to wait
+	 *         before trying again.
+	 */
+	public long tryAcquire(PagerMessage msg, long nowMillis) {
+		long now = nowMillis * 1000;
+
+		if (msg.getPriority() == MessagePriority.EMERGENCY) {
+			saveTransmission();
+			long from = Math.max(busyUntil, now);
+			if (busyUntil <= now) {
+				startTransmission(now);
+			}
+
+			append(msg);
+			acquiredAirtime = busyUntil - from;
+			return 0;
+		}
+
+		long current = now / SLOT_MICROS;
+		for (long n = current; n <= current + SLOT_COUNT; ++n) {
+			if (!slots[(int) (n % SLOT_COUNT)]) {
+				continue;
+			}
+
+			long start = n * SLOT_MICROS;
+			if (start - now > LEAD_MICROS) {
+				return (start - LEAD_MICROS - now) / 1000 + 1;
+			}
+
+			long from = Math.max(start, now);
+			long txStart = transmissionStart;
+			int pos = position;
+			if (busyUntil <= from) {
+				// The transmitter keys up again
+				txStart = from + estimator.getBitAirtime(AirtimeEstimator.PREAMBLE_BITS);
+				pos = 0;
+			}
+
+			int next = AirtimeEstimator.append(pos, msg);
+			long txEnd = txStart
+					+ estimator.getCodewordAirtime(AirtimeEstimator.getTransmittedCodewords(next));
+
+			long end = start + SLOT_MICROS - guardMicros;
+			// Messages longer than a slot are sent at the start of a slot
+			if (txEnd <= end || (pos == 0 && from == start)) {
+				saveTransmission();
+				// Only the codewords not sent anyway, including the preamble on key up
+				acquiredAirtime = txEnd - Math.max(busyUntil, from);
+				transmissionStart = txStart;
+				position = next;
+				busyUntil = txEnd;
+				return 0;
+			}
+		}
+
+		// Not reached unless the slot plan is empty
+		return SLOT_MICROS / 1000;
+	}
+
+	/**
+	 * Returns the airtime reserved by the last successful call to
+	 * {@link #tryAcquire(PagerMessage, long)}, e.g. because the message has been
+	 * evicted from the queue in the meantime. Must be called before any other
+	 * message is acquired.
+	 */
+	public void release() {
+		transmissionStart = previousStart;
+		position = previousPosition;
+		busyUntil = previousBusyUntil;
+		acquiredAirtime = 0;
+	}
+
+	/**
+	 * Returns the airtime added by the last successful call to
+	 * {@link #tryAcquire(PagerMessage, long)}. A message packed into a running
+	 * transmission only adds the codewords exceeding its last batch, a message
+	 * starting a transmission also adds the preamble.
+	 *
+	 * @return Airtime in microseconds
+	 */
+	public long getAcquiredAirtime() {
+		return acquiredAirtime;
+	}
+
+	private void saveTransmission() {
+		previousStart = transmissionStart;
+		previousPosition = position;
+		previousBusyUntil = busyUntil;
+	}
+
+	private void startTransmission(long now) {
+		transmissionStart = now + estimator.getBitAirtime(AirtimeEstimator.PREAMBLE_BITS);
+		position = 0;
+	}
+
+	private void append(PagerMessage msg) {
+		position = AirtimeEstimator.append(position, msg);
+		busyUntil = transmissionStart
+				+ estimator.getCodewordAirtime(AirtimeEstimator.getTransmittedCodewords(position));
+	}
+
+}
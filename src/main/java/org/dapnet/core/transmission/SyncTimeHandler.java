@@ -1,7 +1,7 @@
 package org.dapnet.core.transmission;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import org.dapnet.core.transmission.ResponseDecoder.SimpleAck;
+import org.dapnet.core.transmission.ResponseDecoder.SyncResponse;
 
 import io.netty.channel.ChannelHandlerContext;
 
@@ -17,8 +17,6 @@ final class SyncTimeHandler {
 		WRITE_TIME, READ_TIME, READ_TIME_ACK, READ_TIME_ADJUST_ACK, DONE
 	}
 
-	// 2:13d3:0026
-	private static final Pattern syncAckPattern = Pattern.compile("(\\d):(\\w+):(\\w+)");
 	private final int maxLoops;
 	private SyncState state = SyncState.WRITE_TIME;
 	private int loopCounter = 0;
@@ -26,8 +24,7 @@ final class SyncTimeHandler {
 	private long timeRx = 0;
 	private long minRTT = Long.MAX_VALUE;
 	private long timeAdjust = 0;
-	private String timeTxMsg;
-	private String timeRxMsg;
+	private Object timeRxMsg;
 
 	/**
 	 * Creates a new instance.
@@ -45,7 +42,7 @@ final class SyncTimeHandler {
 	 * @param message Received message.
 	 * @throws Exception If an error occurs.
 	 */
-	public void handleMessage(ChannelHandlerContext ctx, String message) throws Exception {
+	public void handleMessage(ChannelHandlerContext ctx, Object message) throws Exception {
 		switch (state) {
 		case WRITE_TIME:
 			writeTime(ctx);
@@ -57,7 +54,7 @@ final class SyncTimeHandler {
 			readTimeAck(ctx, message);
 			break;
 		case READ_TIME_ADJUST_ACK:
-			if (message.equals("+")) {
+			if (message == SimpleAck.OK) {
 				state = SyncState.DONE;
 			} else {
 				throw new TransmitterException("Wrong ack received.");
@@ -77,6 +74,21 @@ final class SyncTimeHandler {
 		return state == SyncState.DONE;
 	}
 
+	/**
+	 * Returns the remaining uncertainty of the transmitter clock after the time
+	 * synchronization, i.e. half of the smallest round trip time.
+	 * 
+	 * @return Clock uncertainty in milliseconds
+	 */
+	public long getClockUncertainty() {
+		if (minRTT == Long.MAX_VALUE || minRTT < 0) {
+			return 0;
+		}
+
+		// Round trip time is measured in deciseconds
+		return minRTT * 100 / 2;
+	}
+
 	private void writeTime(ChannelHandlerContext ctx) {
 		long timemillis = System.currentTimeMillis();
 		long seconds = timemillis / 1000;
@@ -87,14 +99,13 @@ final class SyncTimeHandler {
 		// up to 0xffff, than wrap to 0x0000
 		timeTx = (seconds * 10 + deltaTimemillis / 100) & 0xffff;
 
-		timeTxMsg = String.format("%04X", timeTx);
-		String resp = String.format("%d:%s\n", MessageEncoder.MT_SYNCREQUEST, timeTxMsg);
+		String resp = String.format("%d:%04X\n", MessageEncoder.MT_SYNCREQUEST, timeTx);
 		ctx.writeAndFlush(resp);
 
 		state = SyncState.READ_TIME;
 	}
 
-	private void readTime(String message) {
+	private void readTime(Object message) {
 		long timemillis = System.currentTimeMillis();
 		long seconds = timemillis / 1000;
 		long deltaTimemillis = timemillis - seconds * 1000;
@@ -106,25 +117,22 @@ final class SyncTimeHandler {
 		state = SyncState.READ_TIME_ACK;
 	}
 
-	private void readTimeAck(ChannelHandlerContext ctx, String message) throws Exception {
-		if (!message.equals("+")) {
+	private void readTimeAck(ChannelHandlerContext ctx, Object message) throws Exception {
+		if (message != SimpleAck.OK) {
 			throw new TransmitterException("Wrong ack received.");
 		}
 
-		Matcher syncMatcher = syncAckPattern.matcher(timeRxMsg);
-		if (!syncMatcher.matches()) {
+		if (!(timeRxMsg instanceof SyncResponse)) {
 			throw new TransmitterException("Wrong sync response received.");
 		}
 
-		int id = Integer.parseInt(syncMatcher.group(1));
-		String timeStringResp = syncMatcher.group(2);
-		String timeStringClient = syncMatcher.group(3);
-		long timeLongClient = Long.parseLong(timeStringClient, 16);
-
-		if (id != MessageEncoder.MT_SYNCREQUEST || !timeTxMsg.equalsIgnoreCase(timeStringResp)) {
+		SyncResponse response = (SyncResponse) timeRxMsg;
+		if (response.getType() != MessageEncoder.MT_SYNCREQUEST || response.getServerTime() != timeTx) {
 			throw new TransmitterException("Wrong sync response received.");
 		}
 
+		long timeLongClient = response.getClientTime();
+
 		long rtt = timeRx - timeTx;
 		if (rtt < minRTT) {
 			minRTT = rtt;
@@ -15,6 +15,9 @@
 package org.dapnet.core.transmission;
 
 import java.io.Serializable;
+import java.util.Map;
+
+import org.dapnet.core.transmission.PagerMessage.MessagePriority;
 
 public final class TransmissionSettings implements Serializable {
 	private static final long serialVersionUID = 6990520510506509511L;
@@ -34,6 +37,12 @@ public final class TransmissionSettings implements Serializable {
 		private int numberOfSyncLoops = 5;
 		private int sendSpeed = 1;// 0: 512, 1: 1200, 2:2400
 		private String activationCode = "0 7 50,0 7 34,0 7 53,0 7 51,0 7 51,0 7 52,0 7 52,0 7 56";
+		private int sendWindowSize = 1;
+		// Device type -> minimum firmware version supporting a send window > 1
+		private Map<String, String> sendWindowMinVersions;
+		// Maximum number of queued messages per priority and transmitter
+		private Map<MessagePriority, Integer> queueLimits;
+		private boolean slotScheduling = false;
 
 		public int getNumberOfSyncLoops() {
 			return numberOfSyncLoops;
@@ -46,14 +55,90 @@ public final class TransmissionSettings implements Serializable {
 		public String getActivationCode() {
 			return activationCode;
 		}
+
+		/**
+		 * Returns the maximum number of unacknowledged messages per transmitter.
+		 * 
+		 * @return Send window size
+		 */
+		public int getSendWindowSize() {
+			return sendWindowSize;
+		}
+
+		/**
+		 * Returns the minimum firmware versions per device type that support a send
+		 * window larger than 1. Devices not listed here use stop-and-wait.
+		 * 
+		 * @return Map of device type to minimum version or {@code null}.
+		 */
+		public Map<String, String> getSendWindowMinVersions() {
+			return sendWindowMinVersions;
+		}
+
+		/**
+		 * Returns the maximum number of queued messages per transmitter for the
+		 * given priority. If the limit is reached, the oldest message of that
+		 * priority is dropped. Emergency messages are never dropped.
+		 * 
+		 * @param priority Message priority
+		 * @return Queue limit or 0 if unbounded.
+		 */
+		public int getQueueLimit(MessagePriority priority) {
+			if (priority == MessagePriority.EMERGENCY) {
+				return 0;
+			}
+
+			if (queueLimits != null) {
+				Integer limit = queueLimits.get(priority);
+				if (limit != null) {
+					return Math.max(0, limit);
+				}
+			}
+
+			switch (priority) {
+			case TIME:
+				return 10;
+			case CALL:
+				return 5000;
+			case NEWS:
+				return 2500;
+			case ACTIVATION:
+				return 100;
+			case RUBRIC:
+				return 500;
+			default:
+				return 0;
+			}
+		}
+
+		/**
+		 * Returns whether messages are paced according to the time slots of the
+		 * transmitters instead of being sent as fast as they are acked.
+		 * 
+		 * @return {@code true} if slot scheduling is enabled.
+		 */
+		public boolean isSlotScheduling() {
+			return slotScheduling;
+		}
 	}
 
 	public final class ServerSettings implements Serializable {
 		private static final long serialVersionUID = 5452321606678683312L;
 		private int port = 43434;
+		private int flushConsolidationLimit = 256;
 
 		public int getPort() {
 			return port;
 		}
+
+		/**
+		 * Returns the maximum number of flushes that are consolidated into a single
+		 * socket flush. A value of 0 disables flush consolidation.
+		 * 
+		 * @return Flush consolidation limit
+		 */
+		public int getFlushConsolidationLimit() {
+			return flushConsolidationLimit;
+		}
 	}
 }
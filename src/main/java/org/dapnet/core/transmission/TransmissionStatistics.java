@@ -0,0 +1,83 @@
+package org.dapnet.core.transmission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class holds the aggregated statistics of the transmitter connections.
+ * This implementation is thread-safe.
+ */
+public final class TransmissionStatistics {
+
+	private final AtomicLong flushesRequested = new AtomicLong();
+	private final AtomicLong flushesWritten = new AtomicLong();
+	private final AtomicLong droppedMessages = new AtomicLong();
+	private final DeliveryStatistics delivery = new DeliveryStatistics();
+
+	/**
+	 * Gets the number of flush operations requested by the channel handlers.
+	 * 
+	 * @return Number of requested flushes
+	 */
+	public long getFlushesRequested() {
+		return flushesRequested.get();
+	}
+
+	/**
+	 * Increments the number of requested flush operations.
+	 */
+	void incrementFlushesRequested() {
+		flushesRequested.incrementAndGet();
+	}
+
+	/**
+	 * Gets the number of flush operations that actually reached the socket.
+	 * 
+	 * @return Number of written flushes
+	 */
+	public long getFlushesWritten() {
+		return flushesWritten.get();
+	}
+
+	/**
+	 * Increments the number of written flush operations.
+	 */
+	void incrementFlushesWritten() {
+		flushesWritten.incrementAndGet();
+	}
+
+	/**
+	 * Gets the number of flush operations saved by consolidating writes.
+	 * 
+	 * @return Number of saved flushes
+	 */
+	public long getFlushesSaved() {
+		return Math.max(0, getFlushesRequested() - getFlushesWritten());
+	}
+
+	/**
+	 * Gets the number of messages dropped because of full queues or saturated
+	 * connections.
+	 * 
+	 * @return Number of dropped messages
+	 */
+	public long getDroppedMessages() {
+		return droppedMessages.get();
+	}
+
+	/**
+	 * Increments the number of dropped messages.
+	 */
+	void incrementDroppedMessages() {
+		droppedMessages.incrementAndGet();
+	}
+
+	/**
+	 * Gets the delivery statistics aggregated over all transmitters.
+	 * 
+	 * @return Delivery statistics
+	 */
+	public DeliveryStatistics getDelivery() {
+		return delivery;
+	}
+
+}
@@ -1,16 +1,32 @@
 package org.dapnet.core.transmission;
 
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.PriorityQueue;
-
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dapnet.core.Settings;
 import org.dapnet.core.model.Transmitter;
+import org.dapnet.core.transmission.PagerMessage.MessagePriority;
+import org.dapnet.core.transmission.TransmissionSettings.PagingProtocolSettings;
 import org.jgroups.stack.IpAddress;
 
 import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.ScheduledFuture;
 
 /**
- * This class holds the client session.
+ * This class holds the client session. Messages may be queued from any thread
+ * without locking, the send window is only maintained by the event loop of the
+ * channel.
  * 
  * @author Philipp Thiel
  */
@@ -20,24 +36,57 @@ final class TransmitterClient {
 		OK, RETRY, ERROR;
 	}
 
-	private final PriorityQueue<PagerMessage> messageQueue = new PriorityQueue<>();
+	private static final Logger logger = LogManager.getLogger();
+	private static final int SEQUENCE_SPACE = 256;
+	private static final MessagePriority[] PRIORITIES = MessagePriority.values();
+	private static final PagingProtocolSettings settings = Settings.getTransmissionSettings()
+			.getPagingProtocolSettings();
+	private static final AirtimeEstimator airtimeEstimator = new AirtimeEstimator(settings.getSendSpeed());
+	private final MessageQueue messageQueue;
+	private final AtomicLongArray droppedMessages = new AtomicLongArray(PRIORITIES.length);
+	private final TransmissionStatistics statistics;
+	private final DeliveryStatistics delivery;
+	private final AtomicLong airtime = new AtomicLong();
+	private final long connectedSince = System.nanoTime();
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+	private final Runnable drainTask = this::drain;
+	private final Runnable wakeupTask = this::wakeup;
+	// In-flight messages indexed by their sequence number
+	private final Message[] pendingAcks = new Message[SEQUENCE_SPACE];
+	// In-flight messages to send again, before any new message
+	private final Deque<Message> retries = new ArrayDeque<>();
 	private final Channel channel;
 	private int sequenceNumber;
-	private Message currentMessage;
+	private SlotScheduler slotScheduler;
+	private ScheduledFuture<?> wakeupFuture;
+	private volatile int inFlightCount;
+	private volatile int windowSize = 1;
 	private volatile Transmitter transmitter;
 
 	/**
 	 * Creates a new client session.
 	 * 
-	 * @param channel Client connection channel
-	 * @throws NullPointerException If channel is null.
+	 * @param channel    Client connection channel
+	 * @param statistics Aggregated statistics to update
+	 * @throws NullPointerException If channel or statistics is null.
 	 */
-	public TransmitterClient(Channel channel) {
+	public TransmitterClient(Channel channel, TransmissionStatistics statistics) {
 		if (channel == null) {
 			throw new NullPointerException("channel");
+		} else if (statistics == null) {
+			throw new NullPointerException("statistics");
 		}
 
 		this.channel = channel;
+		this.statistics = statistics;
+		this.delivery = new DeliveryStatistics(statistics.getDelivery());
+
+		int[] limits = new int[PRIORITIES.length];
+		for (MessagePriority p : PRIORITIES) {
+			limits[p.ordinal()] = settings.getQueueLimit(p);
+		}
+
+		messageQueue = new MessageQueue(limits);
 	}
 
 	/**
@@ -107,6 +156,44 @@ final class TransmitterClient {
 		this.transmitter = transmitter;
 	}
 
+	/**
+	 * Gets the maximum number of unacknowledged messages.
+	 * 
+	 * @return Send window size
+	 */
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * Sets the maximum number of unacknowledged messages that may be in flight at
+	 * the same time. A window size of 1 results in stop-and-wait behaviour. Must be
+	 * called from the event loop of the channel.
+	 * 
+	 * @param windowSize Send window size
+	 * @throws IllegalArgumentException If the window size is out of range.
+	 */
+	public void setWindowSize(int windowSize) {
+		if (windowSize < 1 || windowSize > SEQUENCE_SPACE / 2) {
+			throw new IllegalArgumentException("windowSize must be between 1 and " + SEQUENCE_SPACE / 2);
+		}
+
+		this.windowSize = windowSize;
+		sendNext();
+	}
+
+	/**
+	 * Sets the scheduler used to pace messages according to the time slots of the
+	 * transmitter. Must be called from the event loop of the channel.
+	 * 
+	 * @param slotScheduler Slot scheduler or {@code null} to send messages as fast
+	 *                      as they are acked.
+	 */
+	public void setSlotScheduler(SlotScheduler slotScheduler) {
+		this.slotScheduler = slotScheduler;
+		sendNext();
+	}
+
 	/**
 	 * Sends a message containing the transmitter name (callsign) to the connected
 	 * transmitter.
@@ -125,10 +212,8 @@ final class TransmitterClient {
 	 * @param msg Message to send.
 	 */
 	public void sendMessage(PagerMessage msg) {
-		synchronized (messageQueue) {
-			messageQueue.add(msg);
-			sendNext(false);
-		}
+		enqueue(msg);
+		scheduleDrain();
 	}
 
 	/**
@@ -137,64 +222,142 @@ final class TransmitterClient {
 	 * @param messages Messages to send.
 	 */
 	public void sendMessages(Collection<PagerMessage> messages) {
-		synchronized (messageQueue) {
-			messageQueue.addAll(messages);
-			sendNext(false);
+		for (PagerMessage msg : messages) {
+			enqueue(msg);
 		}
+
+		scheduleDrain();
 	}
 
 	/**
-	 * Acknowleges a message and sends the next one.
+	 * Acknowleges a message and fills up the send window. Acks may arrive in any
+	 * order as long as they refer to an in-flight message. Must be called from the
+	 * event loop of the channel.
 	 * 
 	 * @param sequenceNumber Sequence number to ack.
 	 * @param response       Ack response type.
+	 * @return {@code true} if the ack refers to an in-flight message.
 	 */
 	public boolean ackMessage(int sequenceNumber, AckType response) {
-		synchronized (messageQueue) {
-			if (currentMessage == null) {
-				return false;
-			}
+		// Positive acks carry the sequence number following the message
+		int index = sequenceNumber;
+		if (response == AckType.OK) {
+			index = (sequenceNumber + SEQUENCE_SPACE - 1) % SEQUENCE_SPACE;
+		}
 
-			boolean valid = false;
-			boolean retransmit = false;
-			switch (response) {
-			case OK:
-				valid = currentMessage.getExpectedSequenceNumber() == sequenceNumber;
-				currentMessage = null;
-				break;
-			case RETRY:
-				valid = currentMessage.getSequenceNumber() == sequenceNumber;
-				if (!currentMessage.retry()) {
-					// Too many retries, discard message
-					currentMessage = null;
-				} else {
-					retransmit = true;
+		Message msg = pendingAcks[index];
+		if (msg == null) {
+			return false;
+		}
+
+		switch (response) {
+		case OK:
+			removePending(index);
+			recordDelivery(msg);
+			break;
+		case RETRY:
+			delivery.incrementRetries();
+			if (msg.retry()) {
+				// Sent again as soon as the transmitter has airtime left
+				if (!retries.contains(msg)) {
+					retries.add(msg);
 				}
-				break;
-			case ERROR:
-				valid = currentMessage.getSequenceNumber() == sequenceNumber;
-				// Discard message
-				currentMessage = null;
-				break;
+			} else {
+				// Too many retries, discard message
+				removePending(index);
+				delivery.incrementDiscards();
 			}
+			break;
+		case ERROR:
+			// Discard message
+			removePending(index);
+			delivery.incrementDiscards();
+			break;
+		}
 
-			sendNext(retransmit);
+		sendNext();
 
-			return valid;
-		}
+		return true;
 	}
 
 	/**
-	 * Returns the number of pending messages.
+	 * Returns the number of pending messages, including the messages waiting for
+	 * an ack.
 	 * 
 	 * @return Number of pending messages.
 	 */
 	public int getPendingMessageCount() {
-		synchronized (messageQueue) {
-			return messageQueue.size();
+		return messageQueue.size() + inFlightCount;
+	}
+
+	/**
+	 * Tests whether the connection is saturated, i.e. the outbound buffer of the
+	 * channel is full because the transmitter does not keep up.
+	 * 
+	 * @return {@code true} if the connection is saturated.
+	 */
+	public boolean isSaturated() {
+		return !channel.isWritable();
+	}
+
+	/**
+	 * Called when the channel writability changed. Resumes sending once the
+	 * channel becomes writable again. Must be called from the event loop of the
+	 * channel.
+	 */
+	public void onWritabilityChanged() {
+		if (channel.isWritable()) {
+			sendNext();
 		}
 	}
 
+	/**
+	 * Counts a message that was dropped without being sent.
+	 * 
+	 * @param msg Dropped message
+	 */
+	public void onMessageDropped(PagerMessage msg) {
+		droppedMessages.incrementAndGet(msg.getPriority().ordinal());
+		statistics.incrementDroppedMessages();
+	}
+
+	/**
+	 * Returns the number of dropped messages for the given priority.
+	 * 
+	 * @param priority Message priority
+	 * @return Number of dropped messages
+	 */
+	public long getDroppedMessageCount(MessagePriority priority) {
+		return droppedMessages.get(priority.ordinal());
+	}
+
+	/**
+	 * Gets the delivery statistics of this client.
+	 * 
+	 * @return Delivery statistics
+	 */
+	public DeliveryStatistics getDeliveryStatistics() {
+		return delivery;
+	}
+
+	/**
+	 * Returns the estimated airtime of all messages sent to the transmitter.
+	 * 
+	 * @return Airtime in microseconds
+	 */
+	public long getAirtime() {
+		return airtime.get();
+	}
+
+	/**
+	 * Returns the time since the client connected.
+	 * 
+	 * @return Connection time in microseconds
+	 */
+	public long getConnectedTime() {
+		return (System.nanoTime() - connectedSince) / 1000;
+	}
+
 	/**
 	 * Closes the connection. This call will block until the connection is closed.
 	 */
@@ -207,21 +370,147 @@ final class TransmitterClient {
 
 	private int getNextSequenceNumber() {
 		int sn = sequenceNumber;
-		sequenceNumber = (sequenceNumber + 1) % 256;
+		sequenceNumber = (sequenceNumber + 1) % SEQUENCE_SPACE;
 		return sn;
 	}
 
-	private void sendNext(boolean retransmit) {
-		if (currentMessage == null) {
-			PagerMessage msg = messageQueue.poll();
-			if (msg != null) {
-				currentMessage = new Message(getNextSequenceNumber(), msg);
-				channel.writeAndFlush(currentMessage);
-			} else {
-				return;
+	private void removePending(int index) {
+		pendingAcks[index] = null;
+		--inFlightCount;
+	}
+
+	private void recordDelivery(Message msg) {
+		delivery.recordRoundTrip((System.nanoTime() - msg.getSendTime()) / 1000);
+
+		Instant timestamp = msg.getMessage().getTimestamp();
+		if (timestamp != null) {
+			try {
+				delivery.recordEndToEnd(Duration.between(timestamp, Instant.now()).toNanos() / 1000);
+			} catch (ArithmeticException ex) {
+				// Timestamp is way off, ignore it
+			}
+		}
+	}
+
+	private void enqueue(PagerMessage msg) {
+		Message evicted = messageQueue.offer(new Message(msg));
+		if (evicted != null) {
+			onMessageDropped(evicted.getMessage());
+		}
+	}
+
+	private void scheduleDrain() {
+		EventLoop loop = channel.eventLoop();
+		if (loop.inEventLoop()) {
+			sendNext();
+		} else if (drainScheduled.compareAndSet(false, true)) {
+			loop.execute(drainTask);
+		}
+	}
+
+	private void drain() {
+		// Reset first, messages queued from now on will schedule another drain
+		drainScheduled.set(false);
+		sendNext();
+	}
+
+	private void wakeup() {
+		wakeupFuture = null;
+		sendNext();
+	}
+
+	private void scheduleWakeup(long delayMillis) {
+		if (wakeupFuture == null) {
+			wakeupFuture = channel.eventLoop().schedule(wakeupTask, delayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void sendNext() {
+		boolean written = false;
+		while (!retries.isEmpty() && channel.isWritable()) {
+			Message retry = retries.peek();
+			if (pendingAcks[retry.getSequenceNumber()] != retry) {
+				// Acked or discarded in the meantime
+				retries.remove();
+				continue;
+			}
+
+			if (!acquireSlot(retry)) {
+				break;
+			}
+
+			retries.remove();
+			addAirtime(retry.getMessage());
+			retry.setSendTime(System.nanoTime());
+			channel.write(retry);
+			written = true;
+		}
+
+		while (retries.isEmpty() && inFlightCount < windowSize && channel.isWritable()) {
+			Message next = messageQueue.peek();
+			if (next == null) {
+				break;
+			}
+
+			if (!acquireSlot(next)) {
+				break;
+			}
+
+			if (!messageQueue.remove(next)) {
+				// Evicted in the meantime, the airtime is free again
+				if (slotScheduler != null) {
+					slotScheduler.release();
+				}
+
+				continue;
 			}
-		} else if (retransmit) {
-			channel.writeAndFlush(currentMessage);
+
+			int sn = getNextSequenceNumber();
+			if (pendingAcks[sn] != null) {
+				// The ack for this sequence number never arrived, consider it lost
+				logger.warn("Discarding unacknowledged message #{} for {}.", String.format("%02X", sn), getName());
+				removePending(sn);
+				delivery.incrementDiscards();
+			}
+
+			long now = System.nanoTime();
+			delivery.recordQueueWait((now - next.getEnqueueTime()) / 1000);
+
+			addAirtime(next.getMessage());
+
+			next.setSequenceNumber(sn);
+			next.setSendTime(now);
+			pendingAcks[sn] = next;
+			++inFlightCount;
+
+			channel.write(next);
+			written = true;
+		}
+
+		if (written) {
+			channel.flush();
+		}
+	}
+
+	private boolean acquireSlot(Message msg) {
+		if (slotScheduler != null) {
+			long delay = slotScheduler.tryAcquire(msg.getMessage(), System.currentTimeMillis());
+			if (delay > 0) {
+				// Wait for the next slot of the transmitter
+				scheduleWakeup(delay);
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void addAirtime(PagerMessage msg) {
+		if (slotScheduler != null) {
+			airtime.addAndGet(slotScheduler.getAcquiredAirtime());
+		} else {
+			// Without a slot plan the messages are not packed by us, assume a batch each
+			airtime.addAndGet(airtimeEstimator.getCodewordAirtime(AirtimeEstimator.getCodewords(msg)));
 		}
 	}
 
@@ -234,12 +523,13 @@ final class TransmitterClient {
 	public static class Message {
 
 		private static final int MAX_RETRY_COUNT = 5;
-		private final int sequenceNumber;
 		private final PagerMessage message;
+		private final long enqueueTime = System.nanoTime();
+		private int sequenceNumber;
+		private long sendTime;
 		private int retryCount;
 
-		public Message(int sequenceNumber, PagerMessage message) {
-			this.sequenceNumber = sequenceNumber;
+		public Message(PagerMessage message) {
 			this.message = message;
 		}
 
@@ -247,6 +537,22 @@ final class TransmitterClient {
 			return sequenceNumber;
 		}
 
+		void setSequenceNumber(int sequenceNumber) {
+			this.sequenceNumber = sequenceNumber;
+		}
+
+		long getEnqueueTime() {
+			return enqueueTime;
+		}
+
+		long getSendTime() {
+			return sendTime;
+		}
+
+		void setSendTime(long sendTime) {
+			this.sendTime = sendTime;
+		}
+
 		public int getExpectedSequenceNumber() {
 			/* Warp around on 8 Bits */
 			return ((sequenceNumber + 1) % 256);
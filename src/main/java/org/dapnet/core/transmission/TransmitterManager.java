@@ -1,8 +1,10 @@
 package org.dapnet.core.transmission;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -12,6 +14,7 @@ import org.apache.logging.log4j.Logger;
 import org.dapnet.core.model.Transmitter;
 import org.dapnet.core.model.Transmitter.Status;
 import org.dapnet.core.model.TransmitterGroup;
+import org.dapnet.core.transmission.PagerMessage.MessagePriority;
 
 /**
  * This class manages connected transmitters.
@@ -21,6 +24,7 @@ import org.dapnet.core.model.TransmitterGroup;
 public class TransmitterManager {
 	private static final Logger logger = LogManager.getLogger();
 	private final ConcurrentMap<String, TransmitterClient> connectedClients = new ConcurrentHashMap<>();
+	private final TransmissionStatistics statistics = new TransmissionStatistics();
 	private volatile TransmitterManagerListener listener;
 
 	/**
@@ -38,6 +42,15 @@ public class TransmitterManager {
 		}
 	}
 
+	/**
+	 * Gets the transmission statistics.
+	 * 
+	 * @return Transmission statistics
+	 */
+	public TransmissionStatistics getStatistics() {
+		return statistics;
+	}
+
 	/**
 	 * Sets the event listener.
 	 * 
@@ -53,7 +66,7 @@ public class TransmitterManager {
 	 * @param message Message to send.
 	 */
 	public void sendMessage(PagerMessage message) {
-		connectedClients.values().forEach(c -> c.sendMessage(message));
+		connectedClients.values().forEach(c -> sendTo(c, message));
 	}
 
 	/**
@@ -85,7 +98,7 @@ public class TransmitterManager {
 	public void sendMessage(PagerMessage message, String transmitterName) {
 		TransmitterClient cl = connectedClients.get(transmitterName.toLowerCase());
 		if (cl != null) {
-			cl.sendMessage(message);
+			sendTo(cl, message);
 		}
 	}
 
@@ -105,7 +118,7 @@ public class TransmitterManager {
 			if (name.equalsIgnoreCase(transmitterName)) {
 				TransmitterClient cl = connectedClients.get(transmitterName.toLowerCase());
 				if (cl != null) {
-					cl.sendMessage(message);
+					sendTo(cl, message);
 					return true;
 				}
 			}
@@ -123,7 +136,7 @@ public class TransmitterManager {
 	public void sendMessages(Collection<PagerMessage> messages, String transmitterName) {
 		TransmitterClient cl = connectedClients.get(transmitterName.toLowerCase());
 		if (cl != null) {
-			cl.sendMessages(messages);
+			sendTo(cl, messages);
 		}
 	}
 
@@ -186,6 +199,62 @@ public class TransmitterManager {
 		notifyStatusChanged(listener, t);
 	}
 
+	/**
+	 * Returns the statistics of all connected transmitters.
+	 * 
+	 * @return Statistics snapshots
+	 */
+	public Collection<ClientStatistics> getClientStatistics() {
+		List<ClientStatistics> result = new ArrayList<>();
+		connectedClients.values().forEach(cl -> result.add(new ClientStatistics(cl)));
+		return result;
+	}
+
+	/**
+	 * Gets the delivery statistics of a connected transmitter.
+	 * 
+	 * @param transmitterName Transmitter name
+	 * @return Delivery statistics snapshot or {@code null} if the transmitter is
+	 *         not connected.
+	 */
+	public DeliveryStatistics.Snapshot getDeliveryStatistics(String transmitterName) {
+		TransmitterClient cl = connectedClients.get(transmitterName.toLowerCase());
+		if (cl != null) {
+			return cl.getDeliveryStatistics().getSnapshot();
+		} else {
+			return null;
+		}
+	}
+
+	private static void sendTo(TransmitterClient cl, PagerMessage message) {
+		// Do not queue up more messages for saturated links, except emergencies
+		if (cl.isSaturated() && message.getPriority() != MessagePriority.EMERGENCY) {
+			cl.onMessageDropped(message);
+		} else {
+			cl.sendMessage(message);
+		}
+	}
+
+	private static void sendTo(TransmitterClient cl, Collection<PagerMessage> messages) {
+		if (!cl.isSaturated()) {
+			cl.sendMessages(messages);
+			return;
+		}
+
+		List<PagerMessage> emergency = new ArrayList<>();
+		for (PagerMessage msg : messages) {
+			if (msg.getPriority() == MessagePriority.EMERGENCY) {
+				emergency.add(msg);
+			} else {
+				cl.onMessageDropped(msg);
+			}
+		}
+
+		if (!emergency.isEmpty()) {
+			cl.sendMessages(emergency);
+		}
+	}
+
 	private static void notifyStatusChanged(TransmitterManagerListener listener, Transmitter t) {
 		if (listener != null) {
 			listener.handleTransmitterStatusChanged(t);
@@ -0,0 +1,340 @@
+#!/usr/bin/env python3
+
+"""Converts DAPNET state snapshots between the JSON and the binary format.
+
+The direction is detected from the input file: binary snapshots are converted
+to JSON and vice versa.
+"""
+
+from argparse import ArgumentParser
+import calendar
+import json
+import struct
+import sys
+import time
+
+MAGIC = 0x44415053
+VERSION = 1
+
+SECTION_END = 0
+ENTITY_SECTIONS = [
+    (1, "callSigns"),
+    (2, "nodes"),
+    (3, "users"),
+    (4, "transmitters"),
+    (5, "transmitterGroups"),
+    (6, "rubrics"),
+]
+SECTION_CALLS = 7
+SECTION_NEWS = 8
+SECTION_STATS = 9
+
+
+def parse_args(args):
+    ap = ArgumentParser(description="Convert state snapshots between JSON and binary format")
+    ap.add_argument("-v", "--version", action="version", version="Version 0.1")
+    ap.add_argument("input", help="input file name")
+    ap.add_argument("output", help="output file name")
+
+    return ap.parse_args(args=args)
+
+
+def parse_instant(value):
+    if value is None:
+        return None
+
+    value = value.rstrip("Z")
+    if "." in value:
+        value, fraction = value.split(".")
+        nanos = int(fraction.ljust(9, "0"))
+    else:
+        nanos = 0
+
+    seconds = calendar.timegm(time.strptime(value, "%Y-%m-%dT%H:%M:%S"))
+    return (seconds, nanos)
+
+
+def format_instant(seconds, nanos):
+    # Same format as java.time.Instant.toString()
+    value = time.strftime("%Y-%m-%dT%H:%M:%S", time.gmtime(seconds))
+    if nanos == 0:
+        pass
+    elif nanos % 1000000 == 0:
+        value += ".%03d" % (nanos // 1000000)
+    elif nanos % 1000 == 0:
+        value += ".%06d" % (nanos // 1000)
+    else:
+        value += ".%09d" % nanos
+
+    return value + "Z"
+
+
+class Writer:
+    def __init__(self, fout):
+        self.fout = fout
+        self.strings = {}
+        self.record = bytearray()
+
+    def header(self):
+        self.fout.write(struct.pack(">IH", MAGIC, VERSION))
+
+    def section(self, tag, count):
+        self.fout.write(struct.pack(">Bi", tag, count))
+
+    def end_record(self):
+        self.fout.write(struct.pack(">i", len(self.record)))
+        self.fout.write(self.record)
+        self.record = bytearray()
+
+    def end(self):
+        self.fout.write(struct.pack(">B", SECTION_END))
+
+    def int(self, value):
+        self.record += struct.pack(">i", value)
+
+    def long(self, value):
+        self.record += struct.pack(">q", value)
+
+    def bool(self, value):
+        self.record += struct.pack(">?", bool(value))
+
+    def string(self, value):
+        if value is None:
+            self.int(-1)
+        else:
+            data = value.encode("utf-8")
+            self.int(len(data))
+            self.record += data
+
+    def interned(self, value):
+        if value is None:
+            self.int(-1)
+        elif value in self.strings:
+            self.int(self.strings[value])
+        else:
+            index = len(self.strings)
+            self.strings[value] = index
+            self.int(index)
+            self.string(value)
+
+    def interned_list(self, values):
+        if values is None:
+            self.int(-1)
+        else:
+            self.int(len(values))
+            for v in values:
+                self.interned(v)
+
+    def instant(self, value):
+        instant = parse_instant(value)
+        self.bool(instant is not None)
+        if instant is not None:
+            self.long(instant[0])
+            self.int(instant[1])
+
+
+class Reader:
+    def __init__(self, fin):
+        self.fin = fin
+        self.strings = []
+        self.record = b""
+        self.pos = 0
+
+    def read(self, fmt):
+        size = struct.calcsize(fmt)
+        data = self.fin.read(size)
+        if len(data) != size:
+            raise EOFError("Unexpected end of file")
+        return struct.unpack(fmt, data)[0]
+
+    def next_record(self):
+        length = self.read(">i")
+        self.record = self.fin.read(length)
+        if len(self.record) != length:
+            raise EOFError("Unexpected end of file")
+        self.pos = 0
+
+    def field(self, fmt):
+        value = struct.unpack_from(fmt, self.record, self.pos)[0]
+        self.pos += struct.calcsize(fmt)
+        return value
+
+    def int(self):
+        return self.field(">i")
+
+    def long(self):
+        return self.field(">q")
+
+    def bool(self):
+        return self.field(">?")
+
+    def string(self):
+        length = self.int()
+        if length < 0:
+            return None
+        value = self.record[self.pos:self.pos + length].decode("utf-8")
+        self.pos += length
+        return value
+
+    def interned(self):
+        index = self.int()
+        if index < 0:
+            return None
+        if index == len(self.strings):
+            self.strings.append(self.string())
+        return self.strings[index]
+
+    def interned_list(self):
+        count = self.int()
+        if count < 0:
+            return None
+        return [self.interned() for _ in range(count)]
+
+    def instant(self):
+        if not self.bool():
+            return None
+        seconds = self.long()
+        nanos = self.int()
+        return format_instant(seconds, nanos)
+
+
+def put(obj, key, value):
+    # Gson omits null values
+    if value is not None:
+        obj[key] = value
+
+
+def json_to_binary(data, fout):
+    w = Writer(fout)
+    w.header()
+
+    for tag, key in ENTITY_SECTIONS:
+        entities = data.get(key, {})
+        w.section(tag, len(entities))
+        for name, value in entities.items():
+            w.interned(name)
+            w.string(json.dumps(value, separators=(",", ":"), ensure_ascii=False))
+            w.end_record()
+
+    calls = data.get("calls", [])
+    w.section(SECTION_CALLS, len(calls))
+    for c in calls:
+        w.string(c.get("text"))
+        w.interned_list(c.get("callSignNames"))
+        w.interned_list(c.get("transmitterGroupNames"))
+        w.bool(c.get("emergency", False))
+        w.instant(c.get("timestamp"))
+        w.interned(c.get("ownerName"))
+        w.end_record()
+
+    news = data.get("news", {})
+    w.section(SECTION_NEWS, len(news))
+    for name, slots in news.items():
+        w.interned(name)
+        w.record += struct.pack(">B", len(slots))
+        for n in slots:
+            w.bool(n is not None)
+            if n is not None:
+                w.string(n.get("text"))
+                w.interned(n.get("rubricName"))
+                w.int(n.get("number", 0))
+                w.instant(n.get("timestamp"))
+                w.interned(n.get("ownerName"))
+        w.end_record()
+
+    stats = data.get("stats", {})
+    w.section(SECTION_STATS, 1)
+    w.long(stats.get("calls", 0))
+    w.long(stats.get("news", 0))
+    w.end_record()
+
+    w.end()
+
+
+def binary_to_json(fin):
+    r = Reader(fin)
+    if r.read(">I") != MAGIC:
+        raise ValueError("Not a binary state snapshot")
+    version = r.read(">H")
+    if version != VERSION:
+        raise ValueError("Unsupported snapshot version: %d" % version)
+
+    sections = dict(ENTITY_SECTIONS)
+    data = {}
+    while True:
+        tag = r.read(">B")
+        if tag == SECTION_END:
+            break
+
+        count = r.read(">i")
+        if tag in sections:
+            entities = {}
+            for _ in range(count):
+                r.next_record()
+                name = r.interned()
+                entities[name] = json.loads(r.string())
+            data[sections[tag]] = entities
+        elif tag == SECTION_CALLS:
+            calls = []
+            for _ in range(count):
+                r.next_record()
+                c = {}
+                put(c, "text", r.string())
+                put(c, "callSignNames", r.interned_list())
+                put(c, "transmitterGroupNames", r.interned_list())
+                c["emergency"] = r.bool()
+                put(c, "timestamp", r.instant())
+                put(c, "ownerName", r.interned())
+                calls.append(c)
+            data["calls"] = calls
+        elif tag == SECTION_NEWS:
+            news = {}
+            for _ in range(count):
+                r.next_record()
+                name = r.interned()
+                slots = []
+                for _ in range(r.field(">B")):
+                    if not r.bool():
+                        slots.append(None)
+                        continue
+                    n = {}
+                    put(n, "text", r.string())
+                    put(n, "rubricName", r.interned())
+                    n["number"] = r.int()
+                    put(n, "timestamp", r.instant())
+                    put(n, "ownerName", r.interned())
+                    slots.append(n)
+                news[name] = slots
+            data["news"] = news
+        elif tag == SECTION_STATS:
+            for _ in range(count):
+                r.next_record()
+                data["stats"] = {"calls": r.long(), "news": r.long()}
+        else:
+            raise ValueError("Unknown section: %d" % tag)
+
+    return data
+
+
+def main(args):
+    args = parse_args(args)
+
+    with open(args.input, "rb") as fin:
+        binary = fin.read(4) == struct.pack(">I", MAGIC)
+        fin.seek(0)
+
+        if binary:
+            data = binary_to_json(fin)
+        else:
+            data = json.load(fin)
+
+    if binary:
+        with open(args.output, "w", encoding="utf-8") as fout:
+            json.dump(data, fout, indent=2, ensure_ascii=False)
+    else:
+        with open(args.output, "wb") as fout:
+            json_to_binary(data, fout)
+
+
+if __name__ == "__main__":
+    main(sys.argv[1:])